@@ -1,21 +1,44 @@
 package com.github.jdye64.reportingtasks;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
-import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
-import org.apache.http.client.methods.HttpPost;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.HttpEntityWrapper;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
+import org.apache.nifi.components.AllowableValue;
 import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.components.ValidationContext;
+import org.apache.nifi.components.ValidationResult;
+import org.apache.nifi.controller.ConfigurationContext;
+import org.apache.nifi.processor.DataUnit;
 import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.reporting.AbstractReportingTask;
 import org.apache.nifi.reporting.ReportingContext;
 
+import com.github.jdye64.services.flowstatus.FlowStatusSnapshot;
+import com.github.jdye64.services.flowstatus.FlowStatusSnapshotService;
+import com.github.jdye64.services.flowstatus.ParallelStatusTreeTraversal;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 /**
  * Licensed to the Apache Software Foundation (ASF) under one or more
@@ -69,47 +92,668 @@ public abstract class AbstractDeviceRegistryReportingTask
             .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
             .build();
 
+    protected static final PropertyDescriptor CONNECT_TIMEOUT = new PropertyDescriptor.Builder()
+            .name("Connection Timeout")
+            .description("Maximum amount of time to wait when establishing a connection to the NiFi Device Registry")
+            .required(true)
+            .defaultValue("5 secs")
+            .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
+            .build();
+
+    protected static final PropertyDescriptor READ_TIMEOUT = new PropertyDescriptor.Builder()
+            .name("Read Timeout")
+            .description("Maximum amount of time to wait for the NiFi Device Registry to respond once a request has been sent")
+            .required(true)
+            .defaultValue("30 secs")
+            .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
+            .build();
+
+    protected static final PropertyDescriptor POOL_LEASE_TIMEOUT = new PropertyDescriptor.Builder()
+            .name("Connection Pool Lease Timeout")
+            .description("Maximum amount of time to wait for a free connection from the connection pool before the POST is abandoned")
+            .required(true)
+            .defaultValue("5 secs")
+            .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
+            .build();
+
+    protected static final PropertyDescriptor MAX_CONNECTIONS = new PropertyDescriptor.Builder()
+            .name("Max Pooled Connections")
+            .description("Maximum number of persistent connections kept open to the NiFi Device Registry")
+            .required(true)
+            .defaultValue("2")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
+    protected static final PropertyDescriptor KEEP_ALIVE = new PropertyDescriptor.Builder()
+            .name("Connection Keep-Alive")
+            .description("How long an idle pooled connection is kept open when the NiFi Device Registry does not send a Keep-Alive header." +
+                    " Should be longer than the reporting task scheduling period so that connections are reused between runs")
+            .required(true)
+            .defaultValue("5 mins")
+            .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
+            .build();
+
+    protected static final AllowableValue DELIVERY_SYNCHRONOUS = new AllowableValue("Synchronous", "Synchronous",
+            "Each POST is performed on the reporting task thread and onTrigger waits for the NiFi Device Registry to respond");
+
+    protected static final AllowableValue DELIVERY_ASYNCHRONOUS = new AllowableValue("Asynchronous", "Asynchronous",
+            "POSTs are queued and delivered by a dedicated sender thread so onTrigger never waits on the NiFi Device Registry");
+
+    protected static final PropertyDescriptor DELIVERY_MODE = new PropertyDescriptor.Builder()
+            .name("Delivery Mode")
+            .description("Whether payloads are POSTed to the NiFi Device Registry from the reporting task thread or through a bounded delivery queue")
+            .required(true)
+            .allowableValues(DELIVERY_SYNCHRONOUS, DELIVERY_ASYNCHRONOUS)
+            .defaultValue(DELIVERY_ASYNCHRONOUS.getValue())
+            .build();
+
+    protected static final PropertyDescriptor DELIVERY_QUEUE_CAPACITY = new PropertyDescriptor.Builder()
+            .name("Delivery Queue Capacity")
+            .description("Maximum number of payloads waiting to be sent to the NiFi Device Registry. The queue is shared by every reporting task" +
+                    " posting to the same registry host and port, and the settings of the task started last apply to it. Payloads of a task for" +
+                    " the same endpoint are coalesced so only its latest snapshot is kept. Only used when Delivery Mode is Asynchronous")
+            .required(true)
+            .defaultValue("100")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
+    protected static final PropertyDescriptor DELIVERY_BATCH_SIZE = new PropertyDescriptor.Builder()
+            .name("Delivery Batch Size")
+            .description("Maximum number of queued payloads the sender thread takes from the shared delivery queue at once. Only used when" +
+                    " Delivery Mode is Asynchronous")
+            .required(true)
+            .defaultValue("10")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
+    protected static final PropertyDescriptor DELIVERY_OVERFLOW_POLICY = new PropertyDescriptor.Builder()
+            .name("Delivery Queue Overflow Policy")
+            .description("What to do with a new payload when the shared delivery queue is full. Only used when Delivery Mode is Asynchronous")
+            .required(true)
+            .allowableValues(DeviceRegistryDeliveryQueue.OverflowPolicy.DROP_OLDEST.name(), DeviceRegistryDeliveryQueue.OverflowPolicy.DROP_NEWEST.name())
+            .defaultValue(DeviceRegistryDeliveryQueue.OverflowPolicy.DROP_OLDEST.name())
+            .build();
+
+    protected static final PropertyDescriptor SPOOL_DIRECTORY = new PropertyDescriptor.Builder()
+            .name("Spool Directory")
+            .description("Local directory where payloads that could not be delivered to the NiFi Device Registry are spooled and later replayed" +
+                    " in order. Each reporting task spools into its own sub-directory named after its identifier. If not set failed payloads are discarded." +
+                    " While spooled payloads are waiting to be replayed new payloads are spooled behind them, so the registry receives every snapshot in order." +
+                    " Delta reports are never spooled, a full report is sent on the next run instead")
+            .required(false)
+            .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
+            .build();
+
+    protected static final PropertyDescriptor SPOOL_SEGMENT_SIZE = new PropertyDescriptor.Builder()
+            .name("Spool Segment Size")
+            .description("Size of each memory-mapped spool segment file. A single payload must fit in one segment")
+            .required(true)
+            .defaultValue("16 MB")
+            .addValidator(StandardValidators.DATA_SIZE_VALIDATOR)
+            .build();
+
+    protected static final PropertyDescriptor SPOOL_MAX_SIZE = new PropertyDescriptor.Builder()
+            .name("Spool Max Size")
+            .description("Maximum amount of disk the spool may use. Once exceeded the oldest segment is evicted even if it has not been replayed yet")
+            .required(true)
+            .defaultValue("256 MB")
+            .addValidator(StandardValidators.DATA_SIZE_VALIDATOR)
+            .build();
+
+    protected static final PropertyDescriptor SPOOL_REPLAY_RATE = new PropertyDescriptor.Builder()
+            .name("Spool Replay Rate")
+            .description("Maximum number of spooled payloads replayed to the NiFi Device Registry per second once it is reachable again")
+            .required(true)
+            .defaultValue("10")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
+    protected static final AllowableValue REPORTING_MODE_FULL = new AllowableValue("Full", "Full",
+            "Every run reports the complete list of matching components");
+
+    protected static final AllowableValue REPORTING_MODE_DELTA = new AllowableValue("Delta", "Delta",
+            "Every run reports only the components that were added, changed or removed since the previous run, POSTed to the" +
+                    " endpoint with '/delta' appended. A full list is sent periodically so the receiver can resynchronize, and on the next run" +
+                    " after a report could not be delivered");
+
+    protected static final PropertyDescriptor REPORTING_MODE = new PropertyDescriptor.Builder()
+            .name("Reporting Mode")
+            .description("Whether each run reports every matching component or only the changes since the previous run")
+            .required(true)
+            .allowableValues(REPORTING_MODE_FULL, REPORTING_MODE_DELTA)
+            .defaultValue(REPORTING_MODE_FULL.getValue())
+            .build();
+
+    protected static final PropertyDescriptor FULL_RESYNC_INTERVAL = new PropertyDescriptor.Builder()
+            .name("Full Resync Interval")
+            .description("How often a full list is sent when Reporting Mode is Delta. A full list is also always sent on the first run after the task is started")
+            .required(true)
+            .defaultValue("15 mins")
+            .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
+            .build();
+
+    protected static final PropertyDescriptor PAYLOAD_FORMAT = new PropertyDescriptor.Builder()
+            .name("Payload Format")
+            .description("Encoding of the payloads POSTed to the NiFi Device Registry. The binary formats are smaller and cheaper to produce" +
+                    " but the registry must be able to read them")
+            .required(true)
+            .allowableValues(JacksonStreamingEntity.PayloadFormat.JSON.name(), JacksonStreamingEntity.PayloadFormat.SMILE.name(),
+                    JacksonStreamingEntity.PayloadFormat.CBOR.name())
+            .defaultValue(JacksonStreamingEntity.PayloadFormat.JSON.name())
+            .build();
+
+    protected static final PropertyDescriptor PAYLOAD_COMPRESSION = new PropertyDescriptor.Builder()
+            .name("Payload Compression")
+            .description("Compression applied to the payloads POSTed to the NiFi Device Registry. gzip payloads are sent with a Content-Encoding: gzip header")
+            .required(true)
+            .allowableValues("none", "gzip")
+            .defaultValue("none")
+            .build();
+
+    protected static final PropertyDescriptor FLOW_STATUS_SERVICE = new PropertyDescriptor.Builder()
+            .name("Flow Status Snapshot Service")
+            .description("Optional service sharing one indexed snapshot of the controller status between reporting tasks. When not set" +
+                    " this task fetches and walks the controller status itself on every run")
+            .required(false)
+            .identifiesControllerService(FlowStatusSnapshotService.class)
+            .build();
+
+    protected static final PropertyDescriptor TRAVERSAL_PARALLELISM = new PropertyDescriptor.Builder()
+            .name("Traversal Parallelism")
+            .description("Number of threads used to walk the controller status tree when no Flow Status Snapshot Service is set." +
+                    " 1 walks the tree on the reporting task thread")
+            .required(true)
+            .defaultValue("1")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
+    protected static final PropertyDescriptor PARALLEL_TRAVERSAL_THRESHOLD = new PropertyDescriptor.Builder()
+            .name("Parallel Traversal Threshold")
+            .description("Minimum number of processors or connections in the flow before the controller status tree is walked in" +
+                    " parallel. Smaller flows are walked sequentially to avoid the overhead of handing work to other threads")
+            .required(true)
+            .defaultValue("20000")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
+    protected static final PropertyDescriptor REPORTED_FIELDS = new PropertyDescriptor.Builder()
+            .name("Reported Fields")
+            .description("Comma separated list of the status fields to report for each component, for example 'id,name,runStatus'." +
+                    " When not set every field of the component status is reported")
+            .required(false)
+            .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
+            .build();
+
+    private final ConcurrentMap<String, DeltaTracker<?>> deltaTrackers = new ConcurrentHashMap<>();
+
+    /**
+     * Marks a payload produced in Delta reporting mode. The tracker has already moved its baseline past the payload,
+     * so if it is never delivered the tracker is reset and the next run sends a full report.
+     */
+    private static final class DeltaPayloadEntity
+        extends HttpEntityWrapper {
+
+        private final DeltaTracker<?> tracker;
+
+        private DeltaPayloadEntity(HttpEntity entity, DeltaTracker<?> tracker) {
+            super(entity);
+            this.tracker = tracker;
+        }
+    }
+
+    private volatile DeviceRegistryTransport transport;
+
+    private volatile ParallelStatusTreeTraversal statusTreeTraversal = new ParallelStatusTreeTraversal(1, Integer.MAX_VALUE);
+
+    private volatile JacksonStreamingEntity.PayloadFormat payloadFormat = JacksonStreamingEntity.PayloadFormat.JSON;
+
+    private volatile ObjectWriter payloadWriter = JacksonStreamingEntity.PayloadFormat.JSON.createWriter();
+
+    private volatile boolean gzipPayloads;
+
+    private volatile List<String> reportedFields = Collections.emptyList();
+
+    private volatile DeviceRegistrySpool spool;
+
+    private volatile ScheduledExecutorService spoolReplayExecutor;
+
+    private volatile DeviceRegistryDeliveryQueue deliveryQueue;
+
+    private final DeviceRegistryDeliveryQueue.Sender deliverySender = new DeviceRegistryDeliveryQueue.Sender() {
+        @Override
+        public void send(String url, HttpEntity entity) throws Exception {
+            deliver(url, entity);
+        }
+
+        @Override
+        public void discarded(String url, HttpEntity entity) {
+            forceFullReportIfDelta(entity);
+        }
+    };
+
+    private long lastReportedDrops;
+
     protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
         final List<PropertyDescriptor> properties = new ArrayList<PropertyDescriptor>();
         properties.add(REST_POSTING_ENABLED);
+        properties.add(FLOW_STATUS_SERVICE);
+        properties.add(TRAVERSAL_PARALLELISM);
+        properties.add(PARALLEL_TRAVERSAL_THRESHOLD);
         properties.add(DEVICE_REGISTRY_HOST);
         properties.add(DEVICE_REGISTRY_PORT);
+        properties.add(CONNECT_TIMEOUT);
+        properties.add(READ_TIMEOUT);
+        properties.add(POOL_LEASE_TIMEOUT);
+        properties.add(MAX_CONNECTIONS);
+        properties.add(KEEP_ALIVE);
+        properties.add(REPORTED_FIELDS);
+        properties.add(REPORTING_MODE);
+        properties.add(FULL_RESYNC_INTERVAL);
+        properties.add(PAYLOAD_FORMAT);
+        properties.add(PAYLOAD_COMPRESSION);
+        properties.add(DELIVERY_MODE);
+        properties.add(DELIVERY_QUEUE_CAPACITY);
+        properties.add(DELIVERY_BATCH_SIZE);
+        properties.add(DELIVERY_OVERFLOW_POLICY);
+        properties.add(SPOOL_DIRECTORY);
+        properties.add(SPOOL_SEGMENT_SIZE);
+        properties.add(SPOOL_MAX_SIZE);
+        properties.add(SPOOL_REPLAY_RATE);
         return properties;
     }
 
+    /**
+     * Returns the fields that may be listed in Reported Fields, or null if this task does not support field selection.
+     */
+    protected StatusField<?>[] getReportableFields() {
+        return null;
+    }
+
+    @Override
+    protected Collection<ValidationResult> customValidate(final ValidationContext validationContext) {
+        final List<ValidationResult> results = new ArrayList<>();
+
+        final StatusField<?>[] available = getReportableFields();
+        if (validationContext.getProperty(REPORTED_FIELDS).isSet()) {
+            for (String name : parseFieldNames(validationContext.getProperty(REPORTED_FIELDS).getValue())) {
+                if (available == null || !StatusProjection.isAvailable(available, name)) {
+                    results.add(new ValidationResult.Builder()
+                            .subject(REPORTED_FIELDS.getName())
+                            .input(name)
+                            .valid(false)
+                            .explanation("'" + name + "' is not a field reported by this task")
+                            .build());
+                }
+            }
+        }
+        return results;
+    }
+
+    private static List<String> parseFieldNames(String value) {
+        final List<String> names = new ArrayList<>();
+        if (value != null) {
+            for (String name : value.split(",")) {
+                if (!name.trim().isEmpty()) {
+                    names.add(name.trim());
+                }
+            }
+        }
+        return names;
+    }
+
+    @OnScheduled
+    public void onScheduled(final ConfigurationContext context) throws IOException {
+        transport = new DeviceRegistryTransport(
+                context.getProperty(MAX_CONNECTIONS).asInteger(),
+                context.getProperty(CONNECT_TIMEOUT).asTimePeriod(TimeUnit.MILLISECONDS).intValue(),
+                context.getProperty(READ_TIMEOUT).asTimePeriod(TimeUnit.MILLISECONDS).intValue(),
+                context.getProperty(POOL_LEASE_TIMEOUT).asTimePeriod(TimeUnit.MILLISECONDS).intValue(),
+                context.getProperty(KEEP_ALIVE).asTimePeriod(TimeUnit.MILLISECONDS));
+
+        statusTreeTraversal = new ParallelStatusTreeTraversal(
+                context.getProperty(TRAVERSAL_PARALLELISM).asInteger(),
+                context.getProperty(PARALLEL_TRAVERSAL_THRESHOLD).asInteger());
+
+        //The registry may have lost track of us while stopped, start over with a full report
+        deltaTrackers.clear();
+
+        payloadFormat = JacksonStreamingEntity.PayloadFormat.valueOf(context.getProperty(PAYLOAD_FORMAT).getValue());
+        payloadWriter = payloadFormat.createWriter();
+        gzipPayloads = "gzip".equals(context.getProperty(PAYLOAD_COMPRESSION).getValue());
+        reportedFields = Collections.unmodifiableList(parseFieldNames(context.getProperty(REPORTED_FIELDS).getValue()));
+
+        if (DELIVERY_ASYNCHRONOUS.getValue().equals(context.getProperty(DELIVERY_MODE).getValue())) {
+            final DeviceRegistryDeliveryQueue queue = DeviceRegistryDeliveryQueue.acquire(
+                    context.getProperty(DEVICE_REGISTRY_HOST).evaluateAttributeExpressions().getValue() + ":"
+                            + context.getProperty(DEVICE_REGISTRY_PORT).evaluateAttributeExpressions().getValue(),
+                    context.getProperty(DELIVERY_QUEUE_CAPACITY).asInteger(),
+                    context.getProperty(DELIVERY_BATCH_SIZE).asInteger(),
+                    DeviceRegistryDeliveryQueue.OverflowPolicy.valueOf(context.getProperty(DELIVERY_OVERFLOW_POLICY).getValue()));
+            //The queue may be shared with tasks that were already running, only report the drops from now on
+            lastReportedDrops = queue.getDroppedCount();
+            deliveryQueue = queue;
+        }
+
+        if (context.getProperty(SPOOL_DIRECTORY).isSet()) {
+            spool = new DeviceRegistrySpool(
+                    Paths.get(context.getProperty(SPOOL_DIRECTORY).getValue(), getIdentifier()),
+                    context.getProperty(SPOOL_SEGMENT_SIZE).asDataSize(DataUnit.B).intValue(),
+                    context.getProperty(SPOOL_MAX_SIZE).asDataSize(DataUnit.B).longValue());
+
+            final int replayRate = context.getProperty(SPOOL_REPLAY_RATE).asInteger();
+            spoolReplayExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "DeviceRegistrySpoolReplay-" + getIdentifier());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            spoolReplayExecutor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    replaySpool(replayRate);
+                }
+            }, 1, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    @OnStopped
+    public void onStopped() {
+        final DeviceRegistryDeliveryQueue queue = deliveryQueue;
+        deliveryQueue = null;
+
+        //Give queued payloads a chance to go out before the connections are closed
+        if (queue != null) {
+            queue.release(deliverySender);
+        }
+
+        final ScheduledExecutorService replayExecutor = spoolReplayExecutor;
+        spoolReplayExecutor = null;
+        if (replayExecutor != null) {
+            replayExecutor.shutdownNow();
+            try {
+                replayExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        final DeviceRegistrySpool currentSpool = spool;
+        spool = null;
+        if (currentSpool != null) {
+            try {
+                currentSpool.close();
+            } catch (IOException e) {
+                getLogger().warn("Error closing NiFi Device Registry spool: {}", new Object[]{e.getMessage()}, e);
+            }
+        }
+
+        final ParallelStatusTreeTraversal traversal = statusTreeTraversal;
+        statusTreeTraversal = new ParallelStatusTreeTraversal(1, Integer.MAX_VALUE);
+        traversal.close();
+
+        final DeviceRegistryTransport current = transport;
+        transport = null;
+
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                getLogger().warn("Error closing connections to NiFi Device Registry: {}", new Object[]{e.getMessage()}, e);
+            }
+        }
+    }
+
+    /**
+     * Returns the snapshot shared through the configured Flow Status Snapshot Service or null if no service is
+     * configured, in which case the caller should walk reportingContext.getEventAccess().getControllerStatus() itself.
+     */
+    protected FlowStatusSnapshot getFlowStatusSnapshot(ReportingContext reportingContext) {
+        if (!reportingContext.getProperty(FLOW_STATUS_SERVICE).isSet()) {
+            return null;
+        }
+        return reportingContext.getProperty(FLOW_STATUS_SERVICE).asControllerService(FlowStatusSnapshotService.class)
+                .getSnapshot(reportingContext.getEventAccess());
+    }
+
+    /**
+     * Returns the traversal configured by Traversal Parallelism, sequential until the task has been scheduled.
+     */
+    protected ParallelStatusTreeTraversal getStatusTreeTraversal() {
+        return statusTreeTraversal;
+    }
+
+    /**
+     * Logs the components and, if enabled, POSTs them to the NiFi Device Registry. In Delta reporting mode only the
+     * components that changed since the previous call for the same uri are reported. When Reported Fields is set only
+     * those fields, taken from the available fields, are written for each component; available may be null for
+     * payloads that do not support field selection.
+     */
+    protected <T> void reportComponents(ReportingContext reportingContext, String uri, List<T> components,
+                                        DeltaTracker.Fingerprinter<T> fingerprinter, StatusField<T>[] available) {
+
+        String targetUri = uri;
+        Object payload;
+        DeltaTracker<T> tracker = null;
+
+        final List<String> fields = reportedFields;
+        final StatusProjection<T> projection = fields.isEmpty() || available == null ? null : StatusProjection.select(available, fields);
+
+        if (REPORTING_MODE_DELTA.getValue().equals(reportingContext.getProperty(REPORTING_MODE).getValue())) {
+            tracker = getDeltaTracker(uri, fingerprinter);
+            DeltaTracker.DeltaReport<T> delta = tracker.compute(components,
+                    reportingContext.getProperty(FULL_RESYNC_INTERVAL).asTimePeriod(TimeUnit.NANOSECONDS));
+            payload = projection == null ? delta : new DeltaTracker.DeltaReport<>(delta.isFull(),
+                    projection.project(delta.getAdded()), projection.project(delta.getChanged()), delta.getRemoved());
+            targetUri = uri + "/delta";
+        } else {
+            payload = projection == null ? components : projection.project(components);
+        }
+
+        try {
+            if (getLogger().isInfoEnabled()) {
+                getLogger().info("{}", new Object[]{mapper.writeValueAsString(payload)});
+            }
+
+            if (reportingContext.getProperty(REST_POSTING_ENABLED).asBoolean()) {
+                if (tracker == null) {
+                    reportToDeviceRegistry(reportingContext, targetUri, payload);
+                } else {
+                    submit(reportingContext, targetUri, new DeltaPayloadEntity(
+                            new JacksonStreamingEntity(payloadWriter, payloadFormat, gzipPayloads, payload), tracker));
+                }
+            }
+
+        } catch (JsonProcessingException e) {
+            getLogger().error("Error Processing {} JSON: {}", new Object[]{uri, e.getMessage()}, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> DeltaTracker<T> getDeltaTracker(String uri, DeltaTracker.Fingerprinter<T> fingerprinter) {
+        DeltaTracker<?> tracker = deltaTrackers.get(uri);
+        if (tracker == null) {
+            DeltaTracker<T> created = new DeltaTracker<>(fingerprinter);
+            tracker = deltaTrackers.putIfAbsent(uri, created);
+            if (tracker == null) {
+                tracker = created;
+            }
+        }
+        return (DeltaTracker<T>) tracker;
+    }
+
     protected void reportToDeviceRegistry(ReportingContext reportingContext, String uri, String jsonString) {
+        submit(reportingContext, uri, new StringEntity(jsonString, ContentType.APPLICATION_JSON));
+    }
+
+    /**
+     * Sends the payload using the configured Payload Format and Payload Compression. The payload is serialized
+     * straight into the request body when the POST is made, which may be after this method returns, so it must not
+     * be modified by the caller afterwards.
+     */
+    protected void reportToDeviceRegistry(ReportingContext reportingContext, String uri, Object payload) {
+        submit(reportingContext, uri, new JacksonStreamingEntity(payloadWriter, payloadFormat, gzipPayloads, payload));
+    }
+
+    private void submit(ReportingContext reportingContext, String uri, HttpEntity entity) {
 
         String host = reportingContext.getProperty(DEVICE_REGISTRY_HOST).evaluateAttributeExpressions().getValue();
         String port = reportingContext.getProperty(DEVICE_REGISTRY_PORT).evaluateAttributeExpressions().getValue();
 
+        String url = "http://" + host + ":" + port + uri;
+
+        final DeviceRegistryDeliveryQueue queue = deliveryQueue;
+        if (queue == null) {
+            try {
+                deliver(url, entity);
+            } catch (Exception ex) {
+                //Already logged by deliver
+            }
+            return;
+        }
+
+        if (!queue.offer(deliverySender, url, entity) && getLogger().isDebugEnabled()) {
+            getLogger().debug("Delivery queue full, discarded payload for {}", new Object[]{url});
+        }
+
+        long drops = queue.getDroppedCount();
+        if (drops > lastReportedDrops) {
+            getLogger().warn("NiFi Device Registry {}:{} is falling behind; {} payloads dropped since last report. Queue depth: {}, average send latency: {} ms",
+                    new Object[]{host, port, drops - lastReportedDrops, queue.getQueueDepth(), queue.getAverageSendLatencyMillis()});
+            lastReportedDrops = drops;
+        }
+
+        if (getLogger().isDebugEnabled()) {
+            getLogger().debug("Delivery queue depth: {}, sent: {}, failed: {}, coalesced: {}, dropped: {}, last send latency: {} ms, average send latency: {} ms",
+                    new Object[]{queue.getQueueDepth(), queue.getSentCount(), queue.getFailedCount(), queue.getCoalescedCount(), drops,
+                            queue.getLastSendLatencyMillis(), queue.getAverageSendLatencyMillis()});
+        }
+    }
+
+    /**
+     * Performs the actual POST on the calling thread. Failures are logged, spooled if a spool is configured and
+     * rethrown so the delivery queue can account for them. While older payloads are still waiting in the spool the
+     * payload is spooled behind them instead of being POSTed, so the registry never receives an older snapshot after
+     * a newer one. Delta mode payloads are not spooled, the next run sends a full report instead.
+     */
+    protected void deliver(String url, HttpEntity entity) throws Exception {
+        final DeviceRegistrySpool currentSpool = spool;
+        if (currentSpool != null && !currentSpool.isEmpty()) {
+            if (getLogger().isDebugEnabled()) {
+                getLogger().debug("Spool replay in progress, queueing payload for {} behind the spooled payloads", new Object[]{url});
+            }
+            if (!forceFullReportIfDelta(entity)) {
+                spool(url, entity);
+            }
+            return;
+        }
+
         try {
 
-            String url = "http://" + host + ":" + port + uri;
+            String output = post(url, entity);
+            if (getLogger().isDebugEnabled()){
+                getLogger().debug("NiFi Device Registry Response: {}", new Object[]{output});
+            }
+
+        } catch (Exception ex) {
+            getLogger().error("Error POSTing payload to NiFi Device Registry {}", new Object[]{url}, ex);
+            if (!forceFullReportIfDelta(entity) && isRetryable(ex)) {
+                spool(url, entity);
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * POSTs the entity through the pooled transport and returns the response body.
+     */
+    String post(String url, HttpEntity entity) throws IOException {
+        final DeviceRegistryTransport current = transport;
+        if (current == null) {
+            throw new IllegalStateException("Reporting task is not scheduled");
+        }
+        return current.post(url, entity);
+    }
+
+    /**
+     * Resets the delta tracker of an undelivered Delta mode payload so the changes it held are covered by a full
+     * report on the next run. Returns false for any other payload.
+     */
+    private boolean forceFullReportIfDelta(HttpEntity entity) {
+        if (!(entity instanceof DeltaPayloadEntity)) {
+            return false;
+        }
+        ((DeltaPayloadEntity) entity).tracker.reset();
+        return true;
+    }
+
+    private void spool(String url, HttpEntity entity) {
+        final DeviceRegistrySpool currentSpool = spool;
+        if (currentSpool == null) {
+            return;
+        }
 
-            HttpClient httpClient = HttpClientBuilder.create().build();
-            HttpPost postRequest = new HttpPost(url);
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            entity.writeTo(body);
+            currentSpool.append(new DeviceRegistrySpool.SpoolRecord(url,
+                    entity.getContentType() == null ? null : entity.getContentType().getValue(),
+                    entity.getContentEncoding() == null ? null : entity.getContentEncoding().getValue(),
+                    body.toByteArray()));
+        } catch (IOException e) {
+            getLogger().error("Unable to spool payload for {}, it will be lost: {}", new Object[]{url, e.getMessage()}, e);
+        }
+    }
 
-            StringEntity input = new StringEntity(jsonString);
-            input.setContentType("application/json");
-            postRequest.setEntity(input);
+    /**
+     * Replays up to maxRecords spooled payloads in order. Stops at the first payload that cannot be delivered so
+     * that it is retried on the next run.
+     */
+    private void replaySpool(int maxRecords) {
+        final DeviceRegistrySpool currentSpool = spool;
+        if (currentSpool == null || transport == null) {
+            return;
+        }
 
-            HttpResponse response = httpClient.execute(postRequest);
+        try {
+            for (int i = 0; i < maxRecords; i++) {
+                DeviceRegistrySpool.SpoolRecord record = currentSpool.peek();
+                if (record == null) {
+                    return;
+                }
 
-            BufferedReader br = new BufferedReader(
-                    new InputStreamReader((response.getEntity().getContent())));
+                ByteArrayEntity entity = new ByteArrayEntity(record.getBody());
+                entity.setContentType(record.getContentType());
+                entity.setContentEncoding(record.getContentEncoding());
 
-            String output;
-            while ((output = br.readLine()) != null) {
-                if (getLogger().isDebugEnabled()){
-                    getLogger().debug("NiFi Device Registry Response: {}", new Object[]{output});
+                try {
+                    post(record.getUrl(), entity);
+                } catch (Exception ex) {
+                    if (isRetryable(ex)) {
+                        if (getLogger().isDebugEnabled()) {
+                            getLogger().debug("NiFi Device Registry still unreachable, spool replay paused: {}", new Object[]{ex.getMessage()});
+                        }
+                        return;
+                    }
+                    getLogger().warn("NiFi Device Registry rejected spooled payload for {}, discarding it: {}", new Object[]{record.getUrl(), ex.getMessage()});
                 }
-            }
 
-            //Closes the BufferedReader
-            br.close();
+                currentSpool.commit();
+            }
+        } catch (IOException e) {
+            getLogger().error("Error replaying NiFi Device Registry spool: {}", new Object[]{e.getMessage()}, e);
+        }
+    }
 
-        } catch (Exception ex) {
-            getLogger().error("Error POSTing Workflow pressured connections to NiFi Device Registry {}:{}", new Object[]{host, port}, ex);
+    /**
+     * Connection failures and server side errors are worth retrying later, a client error means the registry will
+     * never accept the payload.
+     */
+    private static boolean isRetryable(Exception ex) {
+        if (ex instanceof HttpResponseException) {
+            return ((HttpResponseException) ex).getStatusCode() >= 500;
         }
+        return ex instanceof IOException;
     }
 }
@@ -0,0 +1,59 @@
+package com.github.jdye64.reportingtasks;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Builds a 64-bit hash of the reported fields of a component so that two snapshots can be compared without
+ * keeping the previous snapshot around.
+ */
+public final class ComponentFingerprint {
+
+    private static final long SEED = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private long hash = SEED;
+
+    public ComponentFingerprint add(long value) {
+        hash = Long.rotateLeft(hash ^ mix(value), 31) * PRIME;
+        return this;
+    }
+
+    public ComponentFingerprint add(String value) {
+        return add(value == null ? 0L : value.hashCode());
+    }
+
+    public ComponentFingerprint add(Enum<?> value) {
+        return add(value == null ? -1L : value.ordinal());
+    }
+
+    public long get() {
+        return mix(hash);
+    }
+
+    //Murmur3 finalizer, spreads single bit changes across the whole word
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,135 @@
+package com.github.jdye64.reportingtasks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Remembers a fingerprint per component id between reporting runs and works out which components were added,
+ * changed or removed since the previous run. Only the fingerprints are retained, never the components themselves.
+ */
+public class DeltaTracker<T> {
+
+    public interface Fingerprinter<T> {
+
+        String getId(T component);
+
+        long fingerprint(T component);
+    }
+
+    /**
+     * Payload sent in Delta reporting mode. When full is true the added list holds every component and the receiver
+     * should replace whatever it currently has.
+     */
+    public static class DeltaReport<T> {
+
+        private final boolean full;
+        private final List<T> added;
+        private final List<T> changed;
+        private final List<String> removed;
+
+        public DeltaReport(boolean full, List<T> added, List<T> changed, List<String> removed) {
+            this.full = full;
+            this.added = added;
+            this.changed = changed;
+            this.removed = removed;
+        }
+
+        public boolean isFull() {
+            return full;
+        }
+
+        public List<T> getAdded() {
+            return added;
+        }
+
+        public List<T> getChanged() {
+            return changed;
+        }
+
+        public List<String> getRemoved() {
+            return removed;
+        }
+    }
+
+    private final Fingerprinter<T> fingerprinter;
+
+    private Map<String, Long> previous = new HashMap<>();
+    private Map<String, Long> scratch = new HashMap<>();
+
+    private boolean needsFull = true;
+    private long lastFullNanos;
+
+    public DeltaTracker(Fingerprinter<T> fingerprinter) {
+        this.fingerprinter = fingerprinter;
+    }
+
+    /**
+     * Compares the current components against the previous call. A full report is produced on the first call, after
+     * {@link #reset()} and whenever resyncIntervalNanos has elapsed since the last full report.
+     */
+    public synchronized DeltaReport<T> compute(Collection<T> current, long resyncIntervalNanos) {
+        final long now = System.nanoTime();
+        final boolean full = needsFull || now - lastFullNanos >= resyncIntervalNanos;
+
+        List<T> added = new ArrayList<>();
+        List<T> changed = new ArrayList<>();
+
+        scratch.clear();
+        for (T component : current) {
+            String id = fingerprinter.getId(component);
+            long fingerprint = fingerprinter.fingerprint(component);
+            scratch.put(id, fingerprint);
+
+            Long old = previous.remove(id);
+            if (old == null) {
+                added.add(component);
+            } else if (old.longValue() != fingerprint) {
+                changed.add(component);
+            }
+        }
+
+        //Anything not seen this run has gone away
+        List<String> removed = new ArrayList<>(previous.keySet());
+
+        Map<String, Long> swap = previous;
+        previous = scratch;
+        scratch = swap;
+        scratch.clear();
+
+        if (full) {
+            needsFull = false;
+            lastFullNanos = now;
+            return new DeltaReport<>(true, new ArrayList<>(current), Collections.<T>emptyList(), Collections.<String>emptyList());
+        }
+
+        return new DeltaReport<>(false, added, changed, removed);
+    }
+
+    public synchronized void reset() {
+        previous.clear();
+        needsFull = true;
+    }
+}
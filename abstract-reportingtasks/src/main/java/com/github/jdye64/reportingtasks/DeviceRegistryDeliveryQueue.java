@@ -0,0 +1,413 @@
+package com.github.jdye64.reportingtasks;
+
+import java.io.Closeable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpEntity;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Bounded in-memory queue of pending Device Registry POSTs drained by a dedicated sender thread. One queue is shared
+ * by every reporting task posting to the same registry, see {@link #acquire(String, int, int, OverflowPolicy)}, so the
+ * capacity bounds everything waiting for that registry. Payloads are coalesced by reporting task and url so only the
+ * latest snapshot a task has for an endpoint is ever waiting to be sent.
+ */
+public class DeviceRegistryDeliveryQueue
+    implements Closeable {
+
+    public enum OverflowPolicy {
+        DROP_OLDEST,
+        DROP_NEWEST
+    }
+
+    public interface Sender {
+        void send(String url, HttpEntity entity) throws Exception;
+
+        /**
+         * Called, outside of the queue lock, for a payload that will never be sent because a newer payload for the
+         * same url replaced it, it was dropped on overflow or the queue was closed before it went out.
+         */
+        void discarded(String url, HttpEntity entity);
+    }
+
+    /**
+     * Where a queued payload goes. Payloads are coalesced by target, so two reporting tasks posting to the same url
+     * never replace each other's snapshots.
+     */
+    private static final class Target {
+
+        private final Sender sender;
+        private final String url;
+
+        private Target(Sender sender, String url) {
+            this.sender = sender;
+            this.url = url;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Target)) {
+                return false;
+            }
+            Target other = (Target) o;
+            return sender == other.sender && url.equals(other.url);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(sender) + url.hashCode();
+        }
+    }
+
+    //Queues shared between reporting tasks, keyed by registry host and port
+    private static final Map<String, DeviceRegistryDeliveryQueue> SHARED = new HashMap<>();
+
+    private final Object lock = new Object();
+
+    //Insertion ordered so the oldest pending target is always at the head
+    private final LinkedHashMap<Target, HttpEntity> pending = new LinkedHashMap<>();
+
+    //Batch taken off pending by the sender thread and not fully sent yet, only modified by the sender thread under lock
+    private final List<Map.Entry<Target, HttpEntity>> inFlight = new ArrayList<>();
+
+    private final String sharedKey;
+    private final Thread senderThread;
+
+    //Guarded by SHARED
+    private int owners;
+
+    private volatile int capacity;
+    private volatile int batchSize;
+    private volatile OverflowPolicy overflowPolicy;
+
+    private volatile boolean running = true;
+
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong totalSendNanos = new AtomicLong();
+    private volatile long lastSendNanos;
+
+    public DeviceRegistryDeliveryQueue(String name, int capacity, int batchSize, OverflowPolicy overflowPolicy) {
+        this(name, null, capacity, batchSize, overflowPolicy);
+    }
+
+    private DeviceRegistryDeliveryQueue(String name, String sharedKey, int capacity, int batchSize, OverflowPolicy overflowPolicy) {
+        this.sharedKey = sharedKey;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+
+        senderThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, name);
+        senderThread.setDaemon(true);
+        senderThread.start();
+    }
+
+    /**
+     * Returns the queue shared by every reporting task posting to the registry, creating it if needed. The capacity,
+     * batch size and overflow policy are set to the given values, so the task started last decides them. Every call
+     * must be matched by a call to {@link #release(Sender)}.
+     */
+    public static DeviceRegistryDeliveryQueue acquire(String registry, int capacity, int batchSize, OverflowPolicy overflowPolicy) {
+        synchronized (SHARED) {
+            DeviceRegistryDeliveryQueue queue = SHARED.get(registry);
+            if (queue == null) {
+                queue = new DeviceRegistryDeliveryQueue("DeviceRegistrySender-" + registry, registry, capacity, batchSize, overflowPolicy);
+                SHARED.put(registry, queue);
+            } else {
+                queue.capacity = capacity;
+                queue.batchSize = batchSize;
+                queue.overflowPolicy = overflowPolicy;
+            }
+            queue.owners++;
+            return queue;
+        }
+    }
+
+    /**
+     * Gives back a queue obtained from {@link #acquire(String, int, int, OverflowPolicy)}. The payloads of the sender
+     * that are still queued get a few seconds to go out and are discarded afterwards. Releasing the last reference
+     * closes the queue.
+     */
+    public void release(Sender sender) {
+        try {
+            release(sender, 5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    void release(Sender sender, long timeout, TimeUnit unit) throws InterruptedException {
+        final boolean last;
+        synchronized (SHARED) {
+            last = --owners == 0;
+            if (last) {
+                SHARED.remove(sharedKey);
+            }
+        }
+
+        if (last) {
+            close(timeout, unit);
+        } else {
+            flush(sender, timeout, unit);
+        }
+    }
+
+    /**
+     * Queues the entity for delivery by the sender without blocking. Returns false if the entity was rejected because
+     * the queue is full and the overflow policy is {@link OverflowPolicy#DROP_NEWEST} or the queue has been closed.
+     */
+    public boolean offer(Sender sender, String url, HttpEntity entity) {
+        final Target target = new Target(sender, url);
+        Target discardedTarget = null;
+        HttpEntity discardedEntity = null;
+        boolean accepted = true;
+
+        synchronized (lock) {
+            if (!running) {
+                dropped.incrementAndGet();
+                discardedTarget = target;
+                discardedEntity = entity;
+                accepted = false;
+            } else if (pending.containsKey(target)) {
+                //Replace the stale snapshot but keep its place in line
+                discardedTarget = target;
+                discardedEntity = pending.put(target, entity);
+                coalesced.incrementAndGet();
+            } else {
+                if (pending.size() >= capacity) {
+                    if (overflowPolicy == OverflowPolicy.DROP_NEWEST) {
+                        dropped.incrementAndGet();
+                        discardedTarget = target;
+                        discardedEntity = entity;
+                        accepted = false;
+                    } else {
+                        Iterator<Map.Entry<Target, HttpEntity>> itr = pending.entrySet().iterator();
+                        Map.Entry<Target, HttpEntity> oldest = itr.next();
+                        discardedTarget = oldest.getKey();
+                        discardedEntity = oldest.getValue();
+                        itr.remove();
+                        dropped.incrementAndGet();
+                    }
+                }
+
+                if (accepted) {
+                    pending.put(target, entity);
+                    lock.notifyAll();
+                }
+            }
+        }
+
+        if (discardedEntity != null) {
+            discardedTarget.sender.discarded(discardedTarget.url, discardedEntity);
+        }
+        return accepted;
+    }
+
+    private void drain() {
+        while (true) {
+            synchronized (lock) {
+                while (running && pending.isEmpty()) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+
+                if (pending.isEmpty()) {
+                    //Closed and fully drained
+                    return;
+                }
+
+                final int limit = batchSize;
+                Iterator<Map.Entry<Target, HttpEntity>> itr = pending.entrySet().iterator();
+                while (itr.hasNext() && inFlight.size() < limit) {
+                    Map.Entry<Target, HttpEntity> entry = itr.next();
+                    inFlight.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+                    itr.remove();
+                }
+            }
+
+            for (int i = 0; i < inFlight.size(); i++) {
+                Map.Entry<Target, HttpEntity> entry = inFlight.get(i);
+                long start = System.nanoTime();
+                try {
+                    entry.getKey().sender.send(entry.getKey().url, entry.getValue());
+                    sent.incrementAndGet();
+                } catch (InterruptedException e) {
+                    failed.incrementAndGet();
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    failed.incrementAndGet();
+                } finally {
+                    lastSendNanos = System.nanoTime() - start;
+                    totalSendNanos.addAndGet(lastSendNanos);
+                }
+
+                if (Thread.currentThread().isInterrupted()) {
+                    //Interrupted by close, the rest of the batch will not go out
+                    for (Map.Entry<Target, HttpEntity> unsent : inFlight.subList(i + 1, inFlight.size())) {
+                        dropped.incrementAndGet();
+                        unsent.getKey().sender.discarded(unsent.getKey().url, unsent.getValue());
+                    }
+                    synchronized (lock) {
+                        inFlight.clear();
+                    }
+                    return;
+                }
+            }
+
+            synchronized (lock) {
+                inFlight.clear();
+                //Wakes up a release waiting for the payloads of its task to go out
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits up to the timeout for every payload of the sender to be sent, then discards the ones still queued.
+     */
+    private void flush(Sender sender, long timeout, TimeUnit unit) throws InterruptedException {
+        final List<Map.Entry<Target, HttpEntity>> left = new ArrayList<>();
+        synchronized (lock) {
+            final long deadline = System.nanoTime() + unit.toNanos(timeout);
+            long remaining = unit.toNanos(timeout);
+            while (isQueued(sender) && remaining > 0) {
+                TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                remaining = deadline - System.nanoTime();
+            }
+
+            Iterator<Map.Entry<Target, HttpEntity>> itr = pending.entrySet().iterator();
+            while (itr.hasNext()) {
+                Map.Entry<Target, HttpEntity> entry = itr.next();
+                if (entry.getKey().sender == sender) {
+                    left.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+                    itr.remove();
+                }
+            }
+        }
+
+        dropped.addAndGet(left.size());
+        for (Map.Entry<Target, HttpEntity> entry : left) {
+            sender.discarded(entry.getKey().url, entry.getValue());
+        }
+    }
+
+    private boolean isQueued(Sender sender) {
+        for (Target target : pending.keySet()) {
+            if (target.sender == sender) {
+                return true;
+            }
+        }
+        for (Map.Entry<Target, HttpEntity> entry : inFlight) {
+            if (entry.getKey().sender == sender) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getQueueDepth() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getLastSendLatencyMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(lastSendNanos);
+    }
+
+    public long getAverageSendLatencyMillis() {
+        long attempts = sent.get() + failed.get();
+        return attempts == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalSendNanos.get() / attempts);
+    }
+
+    /**
+     * Stops accepting new payloads and gives the sender thread up to the timeout to deliver what is already queued.
+     */
+    public void close(long timeout, TimeUnit unit) throws InterruptedException {
+        synchronized (lock) {
+            running = false;
+            lock.notifyAll();
+        }
+
+        senderThread.join(unit.toMillis(timeout));
+        if (senderThread.isAlive()) {
+            senderThread.interrupt();
+        }
+
+        final List<Map.Entry<Target, HttpEntity>> left;
+        synchronized (lock) {
+            dropped.addAndGet(pending.size());
+            left = new ArrayList<>(pending.size());
+            for (Map.Entry<Target, HttpEntity> entry : pending.entrySet()) {
+                left.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+            }
+            pending.clear();
+        }
+
+        for (Map.Entry<Target, HttpEntity> entry : left) {
+            entry.getKey().sender.discarded(entry.getKey().url, entry.getValue());
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            close(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
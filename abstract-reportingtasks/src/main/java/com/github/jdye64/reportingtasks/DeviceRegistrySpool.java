@@ -0,0 +1,424 @@
+package com.github.jdye64.reportingtasks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Append-only, segment based spool of Device Registry payloads that could not be delivered. Each segment is a
+ * fixed size memory-mapped file holding records of the form {@code [length][crc32][payload]}. Unwritten space in a
+ * segment is zero filled so a zero length marks the end of the written records. The read position is persisted to
+ * a small cursor file so replay resumes where it left off after a restart. Once the configured number of segments
+ * is exceeded the oldest segment is evicted, whether or not it has been replayed. Only the segments being written
+ * and read are mapped, and a segment's mapping is released before its file is deleted or the spool is closed. The
+ * spool must not be used after {@link #close()}.
+ */
+public class DeviceRegistrySpool
+    implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".segment";
+    private static final String CURSOR_FILE = "cursor";
+    private static final int RECORD_HEADER_SIZE = 8;
+
+    //Unsafe.invokeCleaner on Java 9 and later, null on Java 8 where the buffer's own cleaner is used instead
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+        } catch (Exception e) {
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    public static class SpoolRecord {
+
+        private final String url;
+        private final String contentType;
+        private final String contentEncoding;
+        private final byte[] body;
+
+        public SpoolRecord(String url, String contentType, String contentEncoding, byte[] body) {
+            this.url = url;
+            this.contentType = contentType;
+            this.contentEncoding = contentEncoding;
+            this.body = body;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getContentEncoding() {
+            return contentEncoding;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+
+    private long readSegment;
+    private ByteBuffer readBuffer;
+    //Mapping of the read segment, null while the reader shares the mapping of the write segment
+    private MappedByteBuffer readMapping;
+    private int readOffset;
+    private int peekedLength = -1;
+
+    private long evictedSegments;
+
+    public DeviceRegistrySpool(Path directory, int segmentSize, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = (int) Math.max(2, maxBytes / segmentSize);
+
+        Files.createDirectories(directory);
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                segments.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), path);
+            }
+        }
+
+        if (segments.isEmpty()) {
+            segments.put(0L, segmentPath(0L));
+        }
+
+        writeSegment = segments.lastKey();
+        writeBuffer = map(segments.get(writeSegment));
+        writeBuffer.position(scanWritePosition(writeBuffer));
+
+        restoreCursor();
+    }
+
+    /**
+     * Appends the record to the tail of the spool, rolling to a new segment and evicting the oldest one if needed.
+     */
+    public synchronized void append(SpoolRecord record) throws IOException {
+        byte[] payload = encode(record);
+        int needed = RECORD_HEADER_SIZE + payload.length;
+        if (needed > segmentSize) {
+            throw new IOException("Payload of " + payload.length + " bytes does not fit in a spool segment of " + segmentSize + " bytes");
+        }
+
+        if (writeBuffer.position() + needed > segmentSize) {
+            roll();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+
+        int start = writeBuffer.position();
+        writeBuffer.position(start + RECORD_HEADER_SIZE);
+        writeBuffer.put(payload);
+        writeBuffer.putInt(start + 4, (int) crc.getValue());
+        //Length goes in last so a reader never sees a record whose payload has not been written yet
+        writeBuffer.putInt(start, payload.length);
+    }
+
+    /**
+     * Returns the oldest record that has not been committed yet or null if the spool has been fully replayed.
+     * Repeated calls return the same record until {@link #commit()} is called.
+     */
+    public synchronized SpoolRecord peek() throws IOException {
+        while (true) {
+            int limit = readSegment == writeSegment ? writeBuffer.position() : segmentSize;
+
+            if (readOffset + RECORD_HEADER_SIZE <= limit) {
+                int length = readBuffer.getInt(readOffset);
+                if (length > 0 && readOffset + RECORD_HEADER_SIZE + length <= limit) {
+                    byte[] payload = new byte[length];
+                    ByteBuffer slice = readBuffer.duplicate();
+                    slice.position(readOffset + RECORD_HEADER_SIZE);
+                    slice.get(payload);
+
+                    CRC32 crc = new CRC32();
+                    crc.update(payload, 0, length);
+                    if ((int) crc.getValue() == readBuffer.getInt(readOffset + 4)) {
+                        peekedLength = length;
+                        return decode(payload);
+                    }
+                }
+            }
+
+            //End of the written records in this segment, or a torn record left behind by a crash
+            if (readSegment == writeSegment) {
+                readOffset = limit;
+                return null;
+            }
+
+            Long next = segments.higherKey(readSegment);
+            releaseReadMapping();
+            deleteSegment(readSegment);
+            moveReadTo(next, 0);
+        }
+    }
+
+    /**
+     * Marks the record last returned by {@link #peek()} as replayed and persists the new read position.
+     */
+    public synchronized void commit() throws IOException {
+        if (peekedLength < 0) {
+            return;
+        }
+        readOffset += RECORD_HEADER_SIZE + peekedLength;
+        peekedLength = -1;
+        persistCursor();
+    }
+
+    /**
+     * Returns true if every appended record has been committed, or if the spool has been closed.
+     */
+    public synchronized boolean isEmpty() {
+        return writeBuffer == null || (readSegment == writeSegment && readOffset >= writeBuffer.position());
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    public synchronized long getEvictedSegmentCount() {
+        return evictedSegments;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (writeBuffer == null) {
+            return;
+        }
+
+        try {
+            writeBuffer.force();
+            persistCursor();
+        } finally {
+            //Release the mappings now so they do not pile up across stop/start cycles or keep the files locked
+            if (readMapping != null && readMapping != writeBuffer) {
+                unmap(readMapping);
+            }
+            unmap(writeBuffer);
+            readMapping = null;
+            readBuffer = null;
+            writeBuffer = null;
+        }
+    }
+
+    private void roll() throws IOException {
+        writeBuffer.force();
+
+        //The reader keeps the mapping of the full segment if it is still replaying it
+        if (readSegment == writeSegment) {
+            readMapping = writeBuffer;
+        } else {
+            unmap(writeBuffer);
+        }
+
+        writeSegment = writeSegment + 1;
+        Path path = segmentPath(writeSegment);
+        segments.put(writeSegment, path);
+        writeBuffer = map(path);
+
+        while (segments.size() > maxSegments) {
+            long oldest = segments.firstKey();
+            if (oldest == readSegment) {
+                moveReadTo(segments.higherKey(oldest), 0);
+            }
+            deleteSegment(oldest);
+            evictedSegments++;
+        }
+    }
+
+    private void moveReadTo(long segment, int offset) throws IOException {
+        releaseReadMapping();
+        readSegment = segment;
+        readOffset = offset;
+        peekedLength = -1;
+        if (segment == writeSegment) {
+            readBuffer = writeBuffer.duplicate();
+        } else {
+            readMapping = map(segments.get(segment));
+            readBuffer = readMapping;
+        }
+        persistCursor();
+    }
+
+    private void releaseReadMapping() {
+        readBuffer = null;
+        if (readMapping != null) {
+            unmap(readMapping);
+            readMapping = null;
+        }
+    }
+
+    private void deleteSegment(long segment) throws IOException {
+        Path path = segments.remove(segment);
+        if (path != null) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private void restoreCursor() throws IOException {
+        long segment = segments.firstKey();
+        int offset = 0;
+
+        Path cursor = directory.resolve(CURSOR_FILE);
+        if (Files.exists(cursor)) {
+            List<String> lines = Files.readAllLines(cursor, StandardCharsets.UTF_8);
+            if (!lines.isEmpty()) {
+                String[] parts = lines.get(0).trim().split(":");
+                long savedSegment = Long.parseLong(parts[0]);
+                if (segments.containsKey(savedSegment)) {
+                    segment = savedSegment;
+                    offset = Integer.parseInt(parts[1]);
+                }
+            }
+        }
+
+        moveReadTo(segment, offset);
+    }
+
+    private void persistCursor() throws IOException {
+        Path tmp = directory.resolve(CURSOR_FILE + ".tmp");
+        Files.write(tmp, (readSegment + ":" + readOffset).getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, directory.resolve(CURSOR_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%020d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Releases the mapping right away instead of when the buffer is garbage collected, so the file can be deleted on
+     * every platform. The buffer must not be used afterwards.
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } else {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+        } catch (Exception e) {
+            //Left to the garbage collector
+        }
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    /**
+     * Walks the records of a segment and returns the offset just past the last intact one.
+     */
+    private int scanWritePosition(ByteBuffer buffer) {
+        int offset = 0;
+        while (offset + RECORD_HEADER_SIZE <= segmentSize) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + RECORD_HEADER_SIZE + length > segmentSize) {
+                break;
+            }
+
+            byte[] payload = new byte[length];
+            ByteBuffer slice = buffer.duplicate();
+            slice.position(offset + RECORD_HEADER_SIZE);
+            slice.get(payload);
+
+            CRC32 crc = new CRC32();
+            crc.update(payload, 0, length);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                break;
+            }
+            offset += RECORD_HEADER_SIZE + length;
+        }
+        return offset;
+    }
+
+    private static byte[] encode(SpoolRecord record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(record.getBody().length + 128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(record.getUrl());
+        out.writeUTF(record.getContentType() == null ? "" : record.getContentType());
+        out.writeUTF(record.getContentEncoding() == null ? "" : record.getContentEncoding());
+        out.write(record.getBody());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static SpoolRecord decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        String url = in.readUTF();
+        String contentType = in.readUTF();
+        String contentEncoding = in.readUTF();
+        byte[] body = new byte[in.available()];
+        in.readFully(body);
+        return new SpoolRecord(url,
+                contentType.isEmpty() ? null : contentType,
+                contentEncoding.isEmpty() ? null : contentEncoding,
+                body);
+    }
+}
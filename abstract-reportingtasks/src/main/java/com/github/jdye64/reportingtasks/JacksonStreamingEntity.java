@@ -0,0 +1,153 @@
+package com.github.jdye64.reportingtasks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.http.entity.AbstractHttpEntity;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Request entity that serializes its value with Jackson directly into the request body as it is being sent,
+ * optionally through gzip, instead of materializing the whole payload as a String first.
+ */
+public class JacksonStreamingEntity
+    extends AbstractHttpEntity {
+
+    public enum PayloadFormat {
+        JSON("application/json"),
+        SMILE("application/x-jackson-smile"),
+        CBOR("application/cbor");
+
+        private final String contentType;
+
+        PayloadFormat(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * Builds a writer for this format. Writers are thread safe and expensive to create so callers should keep
+         * the returned instance around.
+         */
+        public ObjectWriter createWriter() {
+            ObjectMapper mapper;
+            switch (this) {
+                case SMILE:
+                    mapper = new ObjectMapper(new SmileFactory());
+                    break;
+                case CBOR:
+                    mapper = new ObjectMapper(new CBORFactory());
+                    break;
+                default:
+                    mapper = new ObjectMapper();
+            }
+            //The entity's caller owns the target stream, it must be left open once the payload has been written
+            mapper.getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            return mapper.writer();
+        }
+    }
+
+    private final ObjectWriter writer;
+    private final Object value;
+    private final boolean gzip;
+
+    public JacksonStreamingEntity(ObjectWriter writer, PayloadFormat format, boolean gzip, Object value) {
+        this.writer = writer;
+        this.value = value;
+        this.gzip = gzip;
+
+        setContentType(format.getContentType());
+        if (gzip) {
+            setContentEncoding("gzip");
+        }
+        setChunked(true);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTo(out);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException {
+        if (gzip) {
+            //Closing the gzip stream releases its native Deflater, the wrapper keeps outstream itself open
+            try (GZIPOutputStream gzipStream = new GZIPOutputStream(new NonClosingOutputStream(outstream), 8192)) {
+                writer.writeValue(gzipStream, value);
+            }
+        } else {
+            writer.writeValue(outstream, value);
+        }
+        outstream.flush();
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    /**
+     * Passes writes through to the target stream but only flushes it when closed.
+     */
+    private static final class NonClosingOutputStream
+        extends FilterOutputStream {
+
+        private NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.jdye64.reportingtasks;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * A single reportable field of a component status, written straight to a JsonGenerator without going through
+ * Jackson's reflective bean serializer. Implemented by an enum per status type.
+ */
+public interface StatusField<T> {
+
+    /**
+     * Name of the field in the payload, matching the name the reflective serializer would have used.
+     */
+    String getFieldName();
+
+    void write(JsonGenerator generator, T status) throws IOException;
+}
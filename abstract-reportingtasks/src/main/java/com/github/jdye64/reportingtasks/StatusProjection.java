@@ -0,0 +1,121 @@
+package com.github.jdye64.reportingtasks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * A selection of fields to report for one kind of component status. Statuses are wrapped in lightweight
+ * {@link ProjectedStatus} views rather than copied; each view writes only the selected fields when serialized, which
+ * keeps both log lines and Device Registry payloads down to the columns that are actually used.
+ */
+public class StatusProjection<T> {
+
+    private final List<StatusField<T>> fields;
+
+    private StatusProjection(List<StatusField<T>> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Selects the named fields, in the order given, from the fields available for the status type.
+     *
+     * @throws IllegalArgumentException if a name does not match any available field
+     */
+    public static <T> StatusProjection<T> select(StatusField<T>[] available, Collection<String> names) {
+        List<StatusField<T>> selected = new ArrayList<>(names.size());
+        for (String name : names) {
+            StatusField<T> field = find(available, name);
+            if (field == null) {
+                throw new IllegalArgumentException("Unknown field '" + name + "'");
+            }
+            selected.add(field);
+        }
+        return new StatusProjection<>(selected);
+    }
+
+    public static boolean isAvailable(StatusField<?>[] available, String name) {
+        for (StatusField<?> field : available) {
+            if (field.getFieldName().equalsIgnoreCase(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> StatusField<T> find(StatusField<T>[] available, String name) {
+        for (StatusField<T> field : available) {
+            if (field.getFieldName().equalsIgnoreCase(name)) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    public List<ProjectedStatus<T>> project(List<T> statuses) {
+        List<ProjectedStatus<T>> projected = new ArrayList<>(statuses.size());
+        for (T status : statuses) {
+            projected.add(new ProjectedStatus<>(this, status));
+        }
+        return projected;
+    }
+
+    void write(JsonGenerator generator, T status) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < fields.size(); i++) {
+            fields.get(i).write(generator, status);
+        }
+        generator.writeEndObject();
+    }
+
+    public static class ProjectedStatus<T>
+        implements JsonSerializable {
+
+        private final StatusProjection<T> projection;
+        private final T status;
+
+        ProjectedStatus(StatusProjection<T> projection, T status) {
+            this.projection = projection;
+            this.status = status;
+        }
+
+        public T getStatus() {
+            return status;
+        }
+
+        @Override
+        public void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+            projection.write(generator, status);
+        }
+
+        @Override
+        public void serializeWithType(JsonGenerator generator, SerializerProvider serializers, TypeSerializer typeSer) throws IOException {
+            serialize(generator, serializers);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.github.jdye64.reportingtasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.reporting.ReportingContext;
+import org.apache.nifi.util.MockConfigurationContext;
+import org.apache.nifi.util.MockReportingInitializationContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestAbstractDeviceRegistryReportingTask {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private RecordingReportingTask task;
+
+    /**
+     * Records the bodies it POSTs instead of sending them and fails every POST while the registry is down.
+     */
+    private static class RecordingReportingTask
+        extends AbstractDeviceRegistryReportingTask {
+
+        private final List<String> posted = new CopyOnWriteArrayList<>();
+        private volatile boolean registryUp;
+
+        @Override
+        public void onTrigger(ReportingContext reportingContext) {
+        }
+
+        @Override
+        String post(String url, HttpEntity entity) throws IOException {
+            if (!registryUp) {
+                throw new ConnectException("Connection refused");
+            }
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            entity.writeTo(body);
+            posted.add(new String(body.toByteArray(), StandardCharsets.UTF_8));
+            return "";
+        }
+    }
+
+    @Before
+    public void init() throws Exception {
+        task = new RecordingReportingTask();
+        task.initialize(new MockReportingInitializationContext());
+
+        Map<PropertyDescriptor, String> properties = new HashMap<>();
+        properties.put(AbstractDeviceRegistryReportingTask.DELIVERY_MODE, AbstractDeviceRegistryReportingTask.DELIVERY_SYNCHRONOUS.getValue());
+        properties.put(AbstractDeviceRegistryReportingTask.SPOOL_DIRECTORY, folder.getRoot().getAbsolutePath());
+        task.onScheduled(new MockConfigurationContext(properties, null));
+    }
+
+    @After
+    public void cleanup() {
+        task.onStopped();
+    }
+
+    @Test
+    public void testDeliveredDirectlyWhenSpoolEmpty() throws Exception {
+        task.registryUp = true;
+        task.deliver("http://registry/api/v1/processors", entity("first"));
+        task.deliver("http://registry/api/v1/processors", entity("second"));
+
+        assertEquals(Arrays.asList("first", "second"), task.posted);
+    }
+
+    @Test
+    public void testOrderKeptAcrossOutage() throws Exception {
+        try {
+            task.deliver("http://registry/api/v1/processors", entity("first"));
+            fail("POST succeeded while the registry was down");
+        } catch (ConnectException e) {
+            //Spooled for replay
+        }
+        //Queued behind the spooled payload without another attempt to reach the registry
+        task.deliver("http://registry/api/v1/processors", entity("second"));
+
+        task.registryUp = true;
+        //Still behind the spooled payloads even though the registry is reachable again
+        task.deliver("http://registry/api/v1/processors", entity("third"));
+        awaitPosted(3);
+
+        //Spool has been replayed, new payloads go straight out again
+        task.deliver("http://registry/api/v1/processors", entity("fourth"));
+        assertEquals(Arrays.asList("first", "second", "third", "fourth"), task.posted);
+    }
+
+    private void awaitPosted(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (task.posted.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(count, task.posted.size());
+    }
+
+    private static HttpEntity entity(String body) {
+        return new StringEntity(body, ContentType.APPLICATION_JSON);
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.jdye64.reportingtasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestDeltaTracker {
+
+    private static final long NEVER = Long.MAX_VALUE;
+
+    //Components are "id:state" strings
+    private static final DeltaTracker.Fingerprinter<String> FINGERPRINTER = new DeltaTracker.Fingerprinter<String>() {
+        @Override
+        public String getId(String component) {
+            return component.substring(0, component.indexOf(':'));
+        }
+
+        @Override
+        public long fingerprint(String component) {
+            return new ComponentFingerprint().add(component).get();
+        }
+    };
+
+    @Test
+    public void testOnlyChangesReportedAfterFirstRun() {
+        DeltaTracker<String> tracker = new DeltaTracker<>(FINGERPRINTER);
+
+        DeltaTracker.DeltaReport<String> report = tracker.compute(Arrays.asList("a:RUNNING", "b:RUNNING"), NEVER);
+        assertTrue(report.isFull());
+        assertEquals(2, report.getAdded().size());
+
+        report = tracker.compute(Arrays.asList("a:STOPPED", "c:RUNNING"), NEVER);
+        assertFalse(report.isFull());
+        assertEquals(Collections.singletonList("c:RUNNING"), report.getAdded());
+        assertEquals(Collections.singletonList("a:STOPPED"), report.getChanged());
+        assertEquals(Collections.singletonList("b"), report.getRemoved());
+    }
+
+    @Test
+    public void testResetAfterLostDeltaForcesFullReport() {
+        DeltaTracker<String> tracker = new DeltaTracker<>(FINGERPRINTER);
+        tracker.compute(Arrays.asList("a:RUNNING", "b:RUNNING"), NEVER);
+
+        //This delta is never delivered, so the receiver still thinks a is running
+        tracker.compute(Arrays.asList("a:STOPPED", "b:RUNNING"), NEVER);
+        tracker.reset();
+
+        DeltaTracker.DeltaReport<String> report = tracker.compute(Arrays.asList("a:STOPPED", "b:RUNNING"), NEVER);
+        assertTrue(report.isFull());
+        assertEquals(Arrays.asList("a:STOPPED", "b:RUNNING"), report.getAdded());
+
+        assertFalse(tracker.compute(Arrays.asList("a:STOPPED", "b:RUNNING"), NEVER).isFull());
+    }
+}
@@ -0,0 +1,179 @@
+package com.github.jdye64.reportingtasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestDeviceRegistryDeliveryQueue {
+
+    private final CountDownLatch sending = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<HttpEntity> discarded = new CopyOnWriteArrayList<>();
+
+    private DeviceRegistryDeliveryQueue.Sender sender;
+
+    @Before
+    public void init() {
+        //Holds the sender thread on the first payload so the following ones stay queued
+        sender = new DeviceRegistryDeliveryQueue.Sender() {
+            @Override
+            public void send(String url, HttpEntity entity) throws Exception {
+                sending.countDown();
+                release.await();
+            }
+
+            @Override
+            public void discarded(String url, HttpEntity entity) {
+                discarded.add(entity);
+            }
+        };
+    }
+
+    @Test
+    public void testCoalescedPayloadDiscarded() throws Exception {
+        DeviceRegistryDeliveryQueue queue = new DeviceRegistryDeliveryQueue("test", 10, 1,
+                DeviceRegistryDeliveryQueue.OverflowPolicy.DROP_OLDEST);
+        HttpEntity stale = entity();
+        HttpEntity latest = entity();
+
+        queue.offer(sender, "http://registry/first", entity());
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        assertTrue(queue.offer(sender, "http://registry/second", stale));
+        assertTrue(queue.offer(sender, "http://registry/second", latest));
+
+        assertEquals(1, discarded.size());
+        assertSame(stale, discarded.get(0));
+        assertEquals(1, queue.getCoalescedCount());
+
+        release.countDown();
+        queue.close();
+        assertEquals(1, discarded.size());
+    }
+
+    @Test
+    public void testDroppedAndUnsentPayloadsDiscarded() throws Exception {
+        DeviceRegistryDeliveryQueue queue = new DeviceRegistryDeliveryQueue("test", 1, 1,
+                DeviceRegistryDeliveryQueue.OverflowPolicy.DROP_NEWEST);
+        HttpEntity queued = entity();
+        HttpEntity rejected = entity();
+
+        queue.offer(sender, "http://registry/first", entity());
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        assertTrue(queue.offer(sender, "http://registry/second", queued));
+        assertFalse(queue.offer(sender, "http://registry/third", rejected));
+        assertEquals(1, discarded.size());
+        assertSame(rejected, discarded.get(0));
+
+        //The sender never gets to the queued payload before the queue is closed
+        queue.close(10, TimeUnit.MILLISECONDS);
+        assertEquals(2, discarded.size());
+        assertSame(queued, discarded.get(1));
+        assertEquals(2, queue.getDroppedCount());
+    }
+
+    @Test
+    public void testQueueSharedPerRegistry() throws Exception {
+        DeviceRegistryDeliveryQueue first = DeviceRegistryDeliveryQueue.acquire("registry-a:8888", 10, 1,
+                DeviceRegistryDeliveryQueue.OverflowPolicy.DROP_OLDEST);
+        DeviceRegistryDeliveryQueue second = DeviceRegistryDeliveryQueue.acquire("registry-a:8888", 10, 1,
+                DeviceRegistryDeliveryQueue.OverflowPolicy.DROP_OLDEST);
+        DeviceRegistryDeliveryQueue other = DeviceRegistryDeliveryQueue.acquire("registry-b:8888", 10, 1,
+                DeviceRegistryDeliveryQueue.OverflowPolicy.DROP_OLDEST);
+        assertSame(first, second);
+        assertNotSame(first, other);
+
+        first.release(sender);
+        other.release(sender);
+        //Still referenced once, so the same queue is handed out again
+        assertSame(first, DeviceRegistryDeliveryQueue.acquire("registry-a:8888", 10, 1,
+                DeviceRegistryDeliveryQueue.OverflowPolicy.DROP_OLDEST));
+        first.release(sender);
+        first.release(sender);
+
+        DeviceRegistryDeliveryQueue reopened = DeviceRegistryDeliveryQueue.acquire("registry-a:8888", 10, 1,
+                DeviceRegistryDeliveryQueue.OverflowPolicy.DROP_OLDEST);
+        assertNotSame(first, reopened);
+        reopened.release(sender);
+    }
+
+    @Test
+    public void testCapacitySharedBetweenTasks() throws Exception {
+        final List<HttpEntity> otherDiscarded = new CopyOnWriteArrayList<>();
+        DeviceRegistryDeliveryQueue.Sender other = new DeviceRegistryDeliveryQueue.Sender() {
+            @Override
+            public void send(String url, HttpEntity entity) throws Exception {
+            }
+
+            @Override
+            public void discarded(String url, HttpEntity entity) {
+                otherDiscarded.add(entity);
+            }
+        };
+
+        DeviceRegistryDeliveryQueue queue = DeviceRegistryDeliveryQueue.acquire("registry-c:8888", 2, 1,
+                DeviceRegistryDeliveryQueue.OverflowPolicy.DROP_NEWEST);
+        assertSame(queue, DeviceRegistryDeliveryQueue.acquire("registry-c:8888", 2, 1,
+                DeviceRegistryDeliveryQueue.OverflowPolicy.DROP_NEWEST));
+        HttpEntity ownPayload = entity();
+        HttpEntity otherPayload = entity();
+
+        queue.offer(sender, "http://registry/first", entity());
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        //Same url from two tasks, neither replaces the other
+        assertTrue(queue.offer(sender, "http://registry/second", ownPayload));
+        assertTrue(queue.offer(other, "http://registry/second", otherPayload));
+        assertEquals(0, queue.getCoalescedCount());
+        //The capacity covers the payloads of both tasks
+        assertFalse(queue.offer(other, "http://registry/third", entity()));
+        assertEquals(2, queue.getQueueDepth());
+        assertEquals(1, queue.getDroppedCount());
+
+        //Stopping one task only discards its own payloads
+        queue.release(other, 10, TimeUnit.MILLISECONDS);
+        assertEquals(2, otherDiscarded.size());
+        assertSame(otherPayload, otherDiscarded.get(1));
+        assertEquals(1, queue.getQueueDepth());
+
+        release.countDown();
+        queue.release(sender, 5, TimeUnit.SECONDS);
+        assertTrue(discarded.isEmpty());
+        assertEquals(2, queue.getSentCount());
+    }
+
+    private static HttpEntity entity() {
+        return new ByteArrayEntity(new byte[0]);
+    }
+}
@@ -0,0 +1,199 @@
+package com.github.jdye64.reportingtasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestDeviceRegistrySpool {
+
+    //Every record takes a little over 100 bytes of a segment, two fit in one segment
+    private static final int SEGMENT_SIZE = 256;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static DeviceRegistrySpool.SpoolRecord record(int i) {
+        StringBuilder body = new StringBuilder(String.format("%05d", i));
+        while (body.length() < 50) {
+            body.append('.');
+        }
+        return new DeviceRegistrySpool.SpoolRecord("http://registry/api/v1/" + i, "application/json", null,
+                body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int replayed(DeviceRegistrySpool.SpoolRecord record) {
+        return Integer.parseInt(new String(record.getBody(), 0, 5, StandardCharsets.UTF_8));
+    }
+
+    private static int segmentFiles(Path directory) {
+        return directory.toFile().list(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".segment");
+            }
+        }).length;
+    }
+
+    @Test
+    public void testReplayInAppendOrder() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        try (DeviceRegistrySpool spool = new DeviceRegistrySpool(directory, SEGMENT_SIZE, 100 * SEGMENT_SIZE)) {
+            for (int i = 0; i < 5; i++) {
+                spool.append(record(i));
+            }
+
+            for (int i = 0; i < 5; i++) {
+                DeviceRegistrySpool.SpoolRecord record = spool.peek();
+                assertEquals(i, replayed(record));
+                assertEquals("http://registry/api/v1/" + i, record.getUrl());
+                assertEquals("application/json", record.getContentType());
+                assertNull(record.getContentEncoding());
+                //Not committed yet, the same record is returned again
+                assertEquals(i, replayed(spool.peek()));
+                spool.commit();
+            }
+            assertNull(spool.peek());
+        }
+    }
+
+    @Test
+    public void testReplayResumesAfterReopen() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        try (DeviceRegistrySpool spool = new DeviceRegistrySpool(directory, SEGMENT_SIZE, 100 * SEGMENT_SIZE)) {
+            for (int i = 0; i < 5; i++) {
+                spool.append(record(i));
+            }
+            for (int i = 0; i < 3; i++) {
+                spool.peek();
+                spool.commit();
+            }
+        }
+
+        try (DeviceRegistrySpool spool = new DeviceRegistrySpool(directory, SEGMENT_SIZE, 100 * SEGMENT_SIZE)) {
+            spool.append(record(5));
+            for (int i = 3; i < 6; i++) {
+                assertEquals(i, replayed(spool.peek()));
+                spool.commit();
+            }
+            assertNull(spool.peek());
+        }
+    }
+
+    @Test
+    public void testSegmentRollover() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        try (DeviceRegistrySpool spool = new DeviceRegistrySpool(directory, SEGMENT_SIZE, 100 * SEGMENT_SIZE)) {
+            for (int i = 0; i < 7; i++) {
+                spool.append(record(i));
+            }
+            assertEquals(4, spool.getSegmentCount());
+            assertEquals(4, segmentFiles(directory));
+
+            //Segments are deleted once replay moves past them
+            for (int i = 0; i < 7; i++) {
+                assertEquals(i, replayed(spool.peek()));
+                spool.commit();
+            }
+            assertNull(spool.peek());
+            assertEquals(1, spool.getSegmentCount());
+            assertEquals(1, segmentFiles(directory));
+            assertEquals(0, spool.getEvictedSegmentCount());
+        }
+    }
+
+    @Test
+    public void testSizeCapEvictsOldestSegments() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        try (DeviceRegistrySpool spool = new DeviceRegistrySpool(directory, SEGMENT_SIZE, 3 * SEGMENT_SIZE)) {
+            //Start replaying the first segment so its read mapping is released when it is evicted
+            spool.append(record(0));
+            assertEquals(0, replayed(spool.peek()));
+
+            for (int i = 1; i < 10; i++) {
+                spool.append(record(i));
+            }
+            assertEquals(3, spool.getSegmentCount());
+            assertEquals(3, segmentFiles(directory));
+            assertEquals(2, spool.getEvictedSegmentCount());
+
+            //Replay continues with the oldest record still spooled
+            for (int i = 4; i < 10; i++) {
+                assertEquals(i, replayed(spool.peek()));
+                spool.commit();
+            }
+            assertNull(spool.peek());
+        }
+    }
+
+    @Test
+    public void testCloseReleasesMappings() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        for (int cycle = 0; cycle < 3; cycle++) {
+            DeviceRegistrySpool spool = new DeviceRegistrySpool(directory, SEGMENT_SIZE, 100 * SEGMENT_SIZE);
+            spool.append(record(2 * cycle));
+            spool.append(record(2 * cycle + 1));
+            //Leave the reader on an older segment than the writer so both mappings are open
+            spool.peek();
+            spool.close();
+            spool.close();
+        }
+
+        try (DeviceRegistrySpool spool = new DeviceRegistrySpool(directory, SEGMENT_SIZE, 100 * SEGMENT_SIZE)) {
+            for (int i = 0; i < 6; i++) {
+                assertEquals(i, replayed(spool.peek()));
+                spool.commit();
+            }
+            assertNull(spool.peek());
+        }
+
+        //Nothing is mapped any more, so every file can be removed
+        for (File file : directory.toFile().listFiles()) {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testOversizedRecordRejected() throws Exception {
+        try (DeviceRegistrySpool spool = new DeviceRegistrySpool(folder.getRoot().toPath(), SEGMENT_SIZE, 100 * SEGMENT_SIZE)) {
+            try {
+                spool.append(new DeviceRegistrySpool.SpoolRecord("http://registry/api/v1", null, null, new byte[SEGMENT_SIZE]));
+                fail("Record larger than a segment was spooled");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("does not fit"));
+            }
+            assertNull(spool.peek());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.jdye64.reportingtasks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.Test;
+
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestJacksonStreamingEntity {
+
+    /**
+     * Remembers whether the entity closed the stream it was asked to write to.
+     */
+    private static class TrackingOutputStream
+        extends ByteArrayOutputStream {
+
+        private boolean closed;
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+            super.close();
+        }
+    }
+
+    @Test
+    public void testPlainPayloadWritten() throws Exception {
+        JacksonStreamingEntity entity = new JacksonStreamingEntity(JacksonStreamingEntity.PayloadFormat.JSON.createWriter(),
+                JacksonStreamingEntity.PayloadFormat.JSON, false, Collections.singletonMap("id", "1"));
+
+        TrackingOutputStream out = new TrackingOutputStream();
+        entity.writeTo(out);
+
+        assertEquals("{\"id\":\"1\"}", new String(out.toByteArray(), StandardCharsets.UTF_8));
+        assertFalse(out.closed);
+    }
+
+    @Test
+    public void testGzipPayloadCompleteAndTargetLeftOpen() throws Exception {
+        JacksonStreamingEntity entity = new JacksonStreamingEntity(JacksonStreamingEntity.PayloadFormat.JSON.createWriter(),
+                JacksonStreamingEntity.PayloadFormat.JSON, true, Collections.singletonMap("id", "1"));
+
+        //Written twice to the same stream, each payload must be a complete gzip member
+        TrackingOutputStream out = new TrackingOutputStream();
+        entity.writeTo(out);
+        entity.writeTo(out);
+        assertFalse(out.closed);
+
+        assertEquals("{\"id\":\"1\"}{\"id\":\"1\"}", gunzip(out.toByteArray()));
+        assertEquals("{\"id\":\"1\"}", gunzip(toBytes(entity)));
+    }
+
+    private static byte[] toBytes(JacksonStreamingEntity entity) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        try (InputStream in = entity.getContent()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static String gunzip(byte[] compressed) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
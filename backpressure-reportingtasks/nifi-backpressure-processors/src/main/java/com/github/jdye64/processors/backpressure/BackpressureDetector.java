@@ -0,0 +1,129 @@
+package com.github.jdye64.processors.backpressure;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.nifi.controller.status.ConnectionStatus;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Classifies connections by how close their queue is to its back pressure thresholds. Utilization is the larger of
+ * queuedCount / backPressureObjectThreshold and queuedBytes / backPressureBytesThreshold, ignoring a threshold that is
+ * not set. A connection enters a level once its utilization reaches that level's percentage but only leaves it once
+ * utilization drops below the percentage minus the hysteresis, so a queue hovering around a boundary does not flap in
+ * and out of the report.
+ * <p>
+ * Only connections above NORMAL are remembered. Connections that are not evaluated during a run, because they were
+ * removed from the flow, are forgotten at the end of that run. Evaluation is thread safe.
+ */
+public class BackpressureDetector {
+
+    public enum Level {
+        NORMAL,
+        WARNING,
+        CRITICAL
+    }
+
+    private static final class State {
+
+        private final Level level;
+        private final long run;
+
+        private State(Level level, long run) {
+            this.level = level;
+            this.run = run;
+        }
+    }
+
+    private final double warningPercent;
+    private final double criticalPercent;
+    private final double hysteresisPercent;
+
+    private final Map<String, State> states = new ConcurrentHashMap<>();
+
+    private volatile long run;
+
+    public BackpressureDetector(double warningPercent, double criticalPercent, double hysteresisPercent) {
+        this.warningPercent = warningPercent;
+        this.criticalPercent = criticalPercent;
+        this.hysteresisPercent = hysteresisPercent;
+    }
+
+    /**
+     * Returns the utilization of the connection as a percentage of its nearest back pressure threshold.
+     */
+    public static double utilizationPercent(ConnectionStatus cs) {
+        double utilization = 0;
+        if (cs.getBackPressureObjectThreshold() > 0) {
+            utilization = (double) cs.getQueuedCount() / cs.getBackPressureObjectThreshold();
+        }
+        if (cs.getBackPressureBytesThreshold() > 0) {
+            utilization = Math.max(utilization, (double) cs.getQueuedBytes() / cs.getBackPressureBytesThreshold());
+        }
+        return utilization * 100;
+    }
+
+    public void beginRun() {
+        run++;
+    }
+
+    /**
+     * Drops the state of every connection that was not evaluated since {@link #beginRun()}.
+     */
+    public void endRun() {
+        final long current = run;
+        Iterator<State> itr = states.values().iterator();
+        while (itr.hasNext()) {
+            if (itr.next().run != current) {
+                itr.remove();
+            }
+        }
+    }
+
+    public Level getLevel(String connectionId) {
+        State state = states.get(connectionId);
+        return state == null ? Level.NORMAL : state.level;
+    }
+
+    public Level evaluate(ConnectionStatus cs) {
+        final Level previous = getLevel(cs.getId());
+        final double utilization = utilizationPercent(cs);
+
+        final Level level;
+        if (utilization >= criticalPercent
+                || (previous == Level.CRITICAL && utilization >= criticalPercent - hysteresisPercent)) {
+            level = Level.CRITICAL;
+        } else if (utilization >= warningPercent
+                || (previous != Level.NORMAL && utilization >= warningPercent - hysteresisPercent)) {
+            level = Level.WARNING;
+        } else {
+            level = Level.NORMAL;
+        }
+
+        if (level == Level.NORMAL) {
+            states.remove(cs.getId());
+        } else {
+            states.put(cs.getId(), new State(level, run));
+        }
+        return level;
+    }
+}
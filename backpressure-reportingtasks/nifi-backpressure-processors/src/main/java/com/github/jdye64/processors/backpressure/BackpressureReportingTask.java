@@ -17,85 +17,294 @@
 package com.github.jdye64.processors.backpressure;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnScheduled;
 import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.components.ValidationContext;
+import org.apache.nifi.components.ValidationResult;
+import org.apache.nifi.controller.ConfigurationContext;
 import org.apache.nifi.controller.status.ConnectionStatus;
-import org.apache.nifi.controller.status.ProcessGroupStatus;
 import org.apache.nifi.processor.util.StandardValidators;
 import org.apache.nifi.reporting.ReportingContext;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.github.jdye64.reportingtasks.AbstractDeviceRegistryReportingTask;
+import com.github.jdye64.reportingtasks.ComponentFingerprint;
+import com.github.jdye64.reportingtasks.DeltaTracker;
+import com.github.jdye64.reportingtasks.StatusField;
+import com.github.jdye64.services.flowstatus.FlowStatusSnapshot;
 
 
 @Tags({"backpressure", "reportingtask"})
-@CapabilityDescription("Provide a description")
+@CapabilityDescription("Reports the connections whose queues are approaching their back pressure thresholds. Utilization is the" +
+        " larger of the queued object count and queued bytes as a fraction of the connection's object and data size thresholds")
 public class BackpressureReportingTask
         extends AbstractDeviceRegistryReportingTask {
 
     private static final PropertyDescriptor BACKPRESSURE_OBJECT_SIZE_THRESHOLD = new PropertyDescriptor.Builder()
             .name("Backpressure Object Size Threshold")
-            .description("Number of objects that if the connection contains more objects than this will be reported")
+            .description("Only connections whose configured back pressure object threshold is greater than this are reported. Before" +
+                    " utilization was used this was the only check, connections are now also required to reach the Warning Utilization" +
+                    " Percentage. Set it to 0 to report every connection by utilization alone")
             .required(true)
             .expressionLanguageSupported(true)
             .defaultValue("1000")
-            .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
+            .addValidator(StandardValidators.INTEGER_VALIDATOR)
             .build();
 
+    private static final PropertyDescriptor MIN_QUEUED_OBJECTS = new PropertyDescriptor.Builder()
+            .name("Minimum Queued Objects")
+            .description("Connections queuing this many objects or fewer are never reported, whatever their utilization")
+            .required(true)
+            .expressionLanguageSupported(true)
+            .defaultValue("0")
+            .addValidator(StandardValidators.NON_NEGATIVE_INTEGER_VALIDATOR)
+            .build();
+
+    private static final PropertyDescriptor WARNING_UTILIZATION = new PropertyDescriptor.Builder()
+            .name("Warning Utilization Percentage")
+            .description("Utilization, as a percentage of the back pressure threshold, at which a connection is reported")
+            .required(true)
+            .defaultValue("80")
+            .addValidator(StandardValidators.createLongValidator(1, 100, true))
+            .build();
+
+    private static final PropertyDescriptor CRITICAL_UTILIZATION = new PropertyDescriptor.Builder()
+            .name("Critical Utilization Percentage")
+            .description("Utilization, as a percentage of the back pressure threshold, at which a connection is logged as critical")
+            .required(true)
+            .defaultValue("95")
+            .addValidator(StandardValidators.createLongValidator(1, 100, true))
+            .build();
+
+    private static final PropertyDescriptor UTILIZATION_HYSTERESIS = new PropertyDescriptor.Builder()
+            .name("Utilization Hysteresis Percentage")
+            .description("How many percentage points below the warning or critical level utilization has to drop before a connection" +
+                    " leaves that level")
+            .required(true)
+            .defaultValue("5")
+            .addValidator(StandardValidators.createLongValidator(0, 100, true))
+            .build();
+
+    private static final PropertyDescriptor PREDICTION_HORIZON = new PropertyDescriptor.Builder()
+            .name("Backpressure Prediction Horizon")
+            .description("Connections whose queue is predicted to reach a back pressure threshold within this time are reported" +
+                    " to the predicted endpoint before back pressure is actually applied")
+            .required(true)
+            .defaultValue("5 mins")
+            .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
+            .build();
+
+    private static final PropertyDescriptor HISTORY_SIZE = new PropertyDescriptor.Builder()
+            .name("Connection History Size")
+            .description("Number of samples, one per run, kept for every connection to predict its queue growth. Each sample takes 40 bytes")
+            .required(true)
+            .defaultValue("20")
+            .addValidator(StandardValidators.createLongValidator(2, 1000, true))
+            .build();
+
+    private static final PropertyDescriptor MAX_TRACKED_CONNECTIONS = new PropertyDescriptor.Builder()
+            .name("Max Tracked Connections")
+            .description("Upper bound on the number of connections whose history is kept, which caps the memory used for predictions" +
+                    " at about Max Tracked Connections x Connection History Size x 40 bytes. Connections beyond this are not predicted")
+            .required(true)
+            .defaultValue("50000")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
+    //Weight of the newest sample in the smoothed queue growth rate
+    private static final double GROWTH_SMOOTHING = 0.3;
+
+    private static final Comparator<ConnectionPrediction> SOONEST_FIRST = new Comparator<ConnectionPrediction>() {
+        @Override
+        public int compare(ConnectionPrediction p1, ConnectionPrediction p2) {
+            int result = Long.compare(p1.getSecondsToBackpressure(), p2.getSecondsToBackpressure());
+            return result != 0 ? result : p1.getId().compareTo(p2.getId());
+        }
+    };
+
+    private static final DeltaTracker.Fingerprinter<ConnectionPrediction> PREDICTION_FINGERPRINTER = new DeltaTracker.Fingerprinter<ConnectionPrediction>() {
+        @Override
+        public String getId(ConnectionPrediction prediction) {
+            return prediction.getId();
+        }
+
+        @Override
+        public long fingerprint(ConnectionPrediction prediction) {
+            return new ComponentFingerprint()
+                    .add(prediction.getQueuedCount())
+                    .add(prediction.getQueuedBytes())
+                    .add(prediction.getSecondsToObjectThreshold())
+                    .add(prediction.getSecondsToBytesThreshold())
+                    .get();
+        }
+    };
+
+    private static final DeltaTracker.Fingerprinter<ConnectionStatus> CONNECTION_FINGERPRINTER = new DeltaTracker.Fingerprinter<ConnectionStatus>() {
+        @Override
+        public String getId(ConnectionStatus cs) {
+            return cs.getId();
+        }
+
+        @Override
+        public long fingerprint(ConnectionStatus cs) {
+            return new ComponentFingerprint()
+                    .add(cs.getGroupId())
+                    .add(cs.getName())
+                    .add(cs.getSourceId())
+                    .add(cs.getDestinationId())
+                    .add(cs.getBackPressureBytesThreshold())
+                    .add(cs.getBackPressureObjectThreshold())
+                    .add(cs.getInputCount())
+                    .add(cs.getInputBytes())
+                    .add(cs.getQueuedCount())
+                    .add(cs.getQueuedBytes())
+                    .add(cs.getOutputCount())
+                    .add(cs.getOutputBytes())
+                    .add(cs.getMaxQueuedCount())
+                    .add(cs.getMaxQueuedBytes())
+                    .get();
+        }
+    };
+
+    //Size of the previous result, used to pre-size the next one
+    private volatile int lastPressuredCount;
+
+    //Number of predictions in the previous report, an empty list is only posted once to clear the earlier ones
+    private volatile int lastPredictedCount;
+
+    private volatile BackpressureDetector detector = new BackpressureDetector(80, 95, 5);
+
+    private volatile ConnectionHistory history = new ConnectionHistory(20, 50000, GROWTH_SMOOTHING);
+
     @Override
     protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
         final List<PropertyDescriptor> properties = super.getSupportedPropertyDescriptors();
         properties.add(BACKPRESSURE_OBJECT_SIZE_THRESHOLD);
+        properties.add(MIN_QUEUED_OBJECTS);
+        properties.add(WARNING_UTILIZATION);
+        properties.add(CRITICAL_UTILIZATION);
+        properties.add(UTILIZATION_HYSTERESIS);
+        properties.add(PREDICTION_HORIZON);
+        properties.add(HISTORY_SIZE);
+        properties.add(MAX_TRACKED_CONNECTIONS);
         return properties;
     }
 
-    private List<ConnectionStatus> recursiveConnectionStatusAdd(ProcessGroupStatus status, Integer bpCount) {
+    @Override
+    protected StatusField<?>[] getReportableFields() {
+        return ConnectionStatusField.values();
+    }
 
-        List<ConnectionStatus> pressuredConnections = new ArrayList<>();
+    @Override
+    protected Collection<ValidationResult> customValidate(final ValidationContext validationContext) {
+        final Collection<ValidationResult> results = super.customValidate(validationContext);
 
-        Iterator<ConnectionStatus> itr = status.getConnectionStatus().iterator();
-        while (itr.hasNext()) {
-            ConnectionStatus cs = itr.next();
-            if (cs.getBackPressureObjectThreshold() > bpCount.intValue()) {
-                pressuredConnections.add(cs);
+        try {
+            final long warning = validationContext.getProperty(WARNING_UTILIZATION).asLong();
+            final long critical = validationContext.getProperty(CRITICAL_UTILIZATION).asLong();
+            if (critical < warning) {
+                results.add(new ValidationResult.Builder()
+                        .subject(CRITICAL_UTILIZATION.getName())
+                        .input(String.valueOf(critical))
+                        .valid(false)
+                        .explanation("must not be lower than " + WARNING_UTILIZATION.getName())
+                        .build());
             }
+        } catch (NumberFormatException e) {
+            //Already reported by the property validators
         }
+        return results;
+    }
 
-        //Loop through all of the process groups and add their connection status
-        Iterator<ProcessGroupStatus> pgitr = status.getProcessGroupStatus().iterator();
-        while (pgitr.hasNext()) {
-            ProcessGroupStatus pgs = pgitr.next();
+    @OnScheduled
+    public void setupDetector(final ConfigurationContext context) {
+        //Start every schedule without remembered levels or history
+        detector = new BackpressureDetector(
+                context.getProperty(WARNING_UTILIZATION).asLong(),
+                context.getProperty(CRITICAL_UTILIZATION).asLong(),
+                context.getProperty(UTILIZATION_HYSTERESIS).asLong());
+        history = new ConnectionHistory(
+                context.getProperty(HISTORY_SIZE).asInteger(),
+                context.getProperty(MAX_TRACKED_CONNECTIONS).asInteger(),
+                GROWTH_SMOOTHING);
+    }
 
-            //recursive call
-            pressuredConnections.addAll(recursiveConnectionStatusAdd(pgs, bpCount));
-        }
+    private boolean isPressured(BackpressureDetector detector, ConnectionStatus cs, int minObjectThreshold, int minQueued) {
+        final BackpressureDetector.Level previous = detector.getLevel(cs.getId());
+        final BackpressureDetector.Level level = detector.evaluate(cs);
 
-        return pressuredConnections;
+        if (level != previous && (level == BackpressureDetector.Level.CRITICAL || previous == BackpressureDetector.Level.CRITICAL)) {
+            getLogger().warn("Connection {} ({}) went from {} to {} back pressure utilization at {}%",
+                    new Object[]{cs.getName(), cs.getId(), previous, level, String.format("%.1f", BackpressureDetector.utilizationPercent(cs))});
+        }
+        return level != BackpressureDetector.Level.NORMAL && cs.getQueuedCount() > minQueued
+                && cs.getBackPressureObjectThreshold() > minObjectThreshold;
     }
 
     public void onTrigger(ReportingContext reportingContext) {
 
         List<ConnectionStatus> pressuredConnections = new ArrayList<>();
 
-        Integer bpCount = new Integer(reportingContext.getProperty(BACKPRESSURE_OBJECT_SIZE_THRESHOLD).evaluateAttributeExpressions().getValue());
+        final int minObjectThreshold = reportingContext.getProperty(BACKPRESSURE_OBJECT_SIZE_THRESHOLD).evaluateAttributeExpressions().asInteger();
+        final int minQueued = reportingContext.getProperty(MIN_QUEUED_OBJECTS).evaluateAttributeExpressions().asInteger();
+        final long horizonSeconds = reportingContext.getProperty(PREDICTION_HORIZON).asTimePeriod(TimeUnit.SECONDS);
+        final BackpressureDetector currentDetector = detector;
+        final ConnectionHistory currentHistory = history;
 
-        //Recursively adds all process group pressured nested connections
-        pressuredConnections.addAll(recursiveConnectionStatusAdd(reportingContext.getEventAccess().getControllerStatus(), bpCount));
+        //Every connection of this run is sampled at the same instant. A snapshot served from the shared cache keeps the
+        //time it was taken, so the history does not record the same status twice under different timestamps
+        final FlowStatusSnapshot snapshot = getFlowStatusSnapshot(reportingContext);
+        final long now = snapshot != null ? snapshot.getCreatedMillis() : System.currentTimeMillis();
+        final List<ConnectionPrediction> predicted = Collections.synchronizedList(new ArrayList<ConnectionPrediction>());
 
-        try {
-            getLogger().info("{}", new Object[]{mapper.writeValueAsString(pressuredConnections)});
+        currentDetector.beginRun();
+        currentHistory.beginRun();
+
+        Predicate<ConnectionStatus> evaluator = new Predicate<ConnectionStatus>() {
+            @Override
+            public boolean test(ConnectionStatus cs) {
+                ConnectionPrediction prediction = currentHistory.record(cs, now);
+                if (prediction != null && prediction.getSecondsToBackpressure() > 0
+                        && prediction.getSecondsToBackpressure() <= horizonSeconds) {
+                    predicted.add(prediction);
+                }
+                return isPressured(currentDetector, cs, minObjectThreshold, minQueued);
+            }
+        };
 
-            if (reportingContext.getProperty(REST_POSTING_ENABLED).asBoolean()) {
-                reportToDeviceRegistry(reportingContext, "/api/v1/connection/pressured", mapper.writeValueAsString(pressuredConnections));
+        if (snapshot != null) {
+            //Connections are already indexed by the shared snapshot, no need to walk the process groups
+            for (ConnectionStatus cs : snapshot.getConnections()) {
+                if (evaluator.test(cs)) {
+                    pressuredConnections.add(cs);
+                }
             }
+        } else {
+            //Walks all nested process groups, every connection is evaluated so hysteresis sees the ones leaving a level
+            pressuredConnections = getStatusTreeTraversal().collectConnections(reportingContext.getEventAccess().getControllerStatus(),
+                    evaluator, lastPressuredCount);
+        }
+        currentDetector.endRun();
+        currentHistory.endRun();
+        lastPressuredCount = pressuredConnections.size();
+
+        reportComponents(reportingContext, "/api/v1/connection/pressured", pressuredConnections, CONNECTION_FINGERPRINTER, ConnectionStatusField.values());
 
-        } catch (JsonProcessingException e) {
-            getLogger().error("Error Processing pressured connections JSON: {}", new Object[]{e.getMessage()}, e);
+        //Predictions may have been added from several traversal threads, soonest to saturate first
+        List<ConnectionPrediction> predictions = new ArrayList<>(predicted);
+        Collections.sort(predictions, SOONEST_FIRST);
+        if (!predictions.isEmpty() || lastPredictedCount > 0) {
+            reportComponents(reportingContext, "/api/v1/connection/predicted", predictions, PREDICTION_FINGERPRINTER, null);
         }
+        lastPredictedCount = predictions.size();
     }
 
 }
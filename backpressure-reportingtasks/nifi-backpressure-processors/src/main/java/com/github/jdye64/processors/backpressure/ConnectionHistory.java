@@ -0,0 +1,217 @@
+package com.github.jdye64.processors.backpressure;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.nifi.controller.status.ConnectionStatus;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Rolling history of the queue of every connection, kept in fixed-size ring buffers of primitive longs. The buffers
+ * of all connections share a handful of flat arrays, one slot of historySize entries per connection, so the only
+ * per-connection objects are the id and its slot number. The arrays grow on demand up to maxConnections slots; once
+ * that many connections are tracked new ones are ignored until a slot is freed by a connection leaving the flow.
+ * <p>
+ * Queue growth is smoothed with an exponentially weighted moving average of the per-second change between samples,
+ * which is used to estimate how long the queue will take to reach its back pressure thresholds. A status taken no
+ * later than the newest sample of its connection, such as a cached snapshot served again, is not recorded as a new
+ * sample so it cannot drag the growth rate towards zero.
+ */
+public class ConnectionHistory {
+
+    private static final int INITIAL_SLOTS = 64;
+
+    private final int historySize;
+    private final int maxConnections;
+    private final double alpha;
+
+    private final Map<String, Integer> slots = new HashMap<>();
+
+    private int[] freeSlots = new int[0];
+    private int freeCount;
+    private int usedSlots;
+
+    //Ring buffers, the samples of slot s live at [s * historySize, (s + 1) * historySize)
+    private long[] timestamps = new long[0];
+    private long[] queuedCounts = new long[0];
+    private long[] queuedBytes = new long[0];
+    private long[] inputCounts = new long[0];
+    private long[] outputCounts = new long[0];
+
+    //Per slot state
+    private int[] heads = new int[0];
+    private int[] sizes = new int[0];
+    private long[] lastSeenRun = new long[0];
+    private double[] countRates = new double[0];
+    private double[] bytesRates = new double[0];
+
+    private long run;
+
+    /**
+     * @param alpha weight of the newest growth sample in the moving average, between 0 and 1
+     */
+    public ConnectionHistory(int historySize, int maxConnections, double alpha) {
+        this.historySize = Math.max(2, historySize);
+        this.maxConnections = maxConnections;
+        this.alpha = alpha;
+    }
+
+    public synchronized void beginRun() {
+        run++;
+    }
+
+    /**
+     * Frees the history of every connection that was not recorded since {@link #beginRun()}.
+     */
+    public synchronized void endRun() {
+        Iterator<Map.Entry<String, Integer>> itr = slots.entrySet().iterator();
+        while (itr.hasNext()) {
+            int slot = itr.next().getValue();
+            if (lastSeenRun[slot] != run) {
+                itr.remove();
+                freeSlots[freeCount++] = slot;
+            }
+        }
+    }
+
+    public synchronized int getTrackedCount() {
+        return slots.size();
+    }
+
+    /**
+     * Records the current queue of the connection and returns the updated prediction, or null if the connection has
+     * fewer than two samples or cannot be tracked because maxConnections are already tracked.
+     *
+     * @param timestampMillis when the status was taken, a status not newer than the last one recorded keeps the
+     *                        connection tracked but adds no sample
+     */
+    public synchronized ConnectionPrediction record(ConnectionStatus cs, long timestampMillis) {
+        Integer slot = slots.get(cs.getId());
+        if (slot == null) {
+            slot = allocate();
+            if (slot < 0) {
+                return null;
+            }
+            slots.put(cs.getId(), slot);
+        }
+        final int s = slot;
+        lastSeenRun[s] = run;
+
+        final int base = s * historySize;
+        final int previous = base + (heads[s] + historySize - 1) % historySize;
+        final int current = base + heads[s];
+
+        if (sizes[s] > 0 && timestampMillis <= timestamps[previous]) {
+            return sizes[s] < 2 ? null : predict(cs, s);
+        }
+
+        timestamps[current] = timestampMillis;
+        queuedCounts[current] = cs.getQueuedCount();
+        queuedBytes[current] = cs.getQueuedBytes();
+        inputCounts[current] = cs.getInputCount();
+        outputCounts[current] = cs.getOutputCount();
+
+        heads[s] = (heads[s] + 1) % historySize;
+        sizes[s] = Math.min(sizes[s] + 1, historySize);
+
+        if (sizes[s] < 2) {
+            return null;
+        }
+
+        final double seconds = (timestamps[current] - timestamps[previous]) / 1000.0;
+        final double countRate = (queuedCounts[current] - queuedCounts[previous]) / seconds;
+        final double bytesRate = (queuedBytes[current] - queuedBytes[previous]) / seconds;
+        if (sizes[s] == 2) {
+            countRates[s] = countRate;
+            bytesRates[s] = bytesRate;
+        } else {
+            countRates[s] = alpha * countRate + (1 - alpha) * countRates[s];
+            bytesRates[s] = alpha * bytesRate + (1 - alpha) * bytesRates[s];
+        }
+        return predict(cs, s);
+    }
+
+    private ConnectionPrediction predict(ConnectionStatus cs, int s) {
+        final int base = s * historySize;
+        long inputTotal = 0;
+        long outputTotal = 0;
+        for (int i = 0; i < sizes[s]; i++) {
+            inputTotal += inputCounts[base + i];
+            outputTotal += outputCounts[base + i];
+        }
+
+        return new ConnectionPrediction(cs.getId(), cs.getGroupId(), cs.getName(), cs.getQueuedCount(), cs.getQueuedBytes(),
+                countRates[s], bytesRates[s], (double) inputTotal / sizes[s], (double) outputTotal / sizes[s],
+                secondsToThreshold(cs.getQueuedCount(), cs.getBackPressureObjectThreshold(), countRates[s]),
+                secondsToThreshold(cs.getQueuedBytes(), cs.getBackPressureBytesThreshold(), bytesRates[s]));
+    }
+
+    private static long secondsToThreshold(long queued, long threshold, double ratePerSecond) {
+        if (threshold <= 0) {
+            return -1;
+        }
+        if (queued >= threshold) {
+            return 0;
+        }
+        if (ratePerSecond <= 0) {
+            return -1;
+        }
+        return (long) Math.ceil((threshold - queued) / ratePerSecond);
+    }
+
+    private int allocate() {
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else if (usedSlots < maxConnections) {
+            if (usedSlots == heads.length) {
+                grow((int) Math.min(maxConnections, Math.max(INITIAL_SLOTS, heads.length * 2L)));
+            }
+            slot = usedSlots++;
+        } else {
+            return -1;
+        }
+
+        heads[slot] = 0;
+        sizes[slot] = 0;
+        countRates[slot] = 0;
+        bytesRates[slot] = 0;
+        return slot;
+    }
+
+    private void grow(int slotCapacity) {
+        final int samples = slotCapacity * historySize;
+        timestamps = Arrays.copyOf(timestamps, samples);
+        queuedCounts = Arrays.copyOf(queuedCounts, samples);
+        queuedBytes = Arrays.copyOf(queuedBytes, samples);
+        inputCounts = Arrays.copyOf(inputCounts, samples);
+        outputCounts = Arrays.copyOf(outputCounts, samples);
+
+        heads = Arrays.copyOf(heads, slotCapacity);
+        sizes = Arrays.copyOf(sizes, slotCapacity);
+        lastSeenRun = Arrays.copyOf(lastSeenRun, slotCapacity);
+        countRates = Arrays.copyOf(countRates, slotCapacity);
+        bytesRates = Arrays.copyOf(bytesRates, slotCapacity);
+        freeSlots = Arrays.copyOf(freeSlots, slotCapacity);
+    }
+}
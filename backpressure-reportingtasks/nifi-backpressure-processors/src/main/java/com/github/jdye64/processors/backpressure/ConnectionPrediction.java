@@ -0,0 +1,113 @@
+package com.github.jdye64.processors.backpressure;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Estimate of when a connection will reach its back pressure thresholds, based on the smoothed growth of its queue.
+ * A time of -1 means the queue is not growing towards that threshold or the threshold is not set.
+ */
+public class ConnectionPrediction {
+
+    private final String id;
+    private final String groupId;
+    private final String name;
+    private final long queuedCount;
+    private final long queuedBytes;
+    private final double queuedCountGrowthPerSecond;
+    private final double queuedBytesGrowthPerSecond;
+    private final double averageInputCount;
+    private final double averageOutputCount;
+    private final long secondsToObjectThreshold;
+    private final long secondsToBytesThreshold;
+
+    public ConnectionPrediction(String id, String groupId, String name, long queuedCount, long queuedBytes,
+                                double queuedCountGrowthPerSecond, double queuedBytesGrowthPerSecond,
+                                double averageInputCount, double averageOutputCount,
+                                long secondsToObjectThreshold, long secondsToBytesThreshold) {
+        this.id = id;
+        this.groupId = groupId;
+        this.name = name;
+        this.queuedCount = queuedCount;
+        this.queuedBytes = queuedBytes;
+        this.queuedCountGrowthPerSecond = queuedCountGrowthPerSecond;
+        this.queuedBytesGrowthPerSecond = queuedBytesGrowthPerSecond;
+        this.averageInputCount = averageInputCount;
+        this.averageOutputCount = averageOutputCount;
+        this.secondsToObjectThreshold = secondsToObjectThreshold;
+        this.secondsToBytesThreshold = secondsToBytesThreshold;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getQueuedCount() {
+        return queuedCount;
+    }
+
+    public long getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    public double getQueuedCountGrowthPerSecond() {
+        return queuedCountGrowthPerSecond;
+    }
+
+    public double getQueuedBytesGrowthPerSecond() {
+        return queuedBytesGrowthPerSecond;
+    }
+
+    public double getAverageInputCount() {
+        return averageInputCount;
+    }
+
+    public double getAverageOutputCount() {
+        return averageOutputCount;
+    }
+
+    public long getSecondsToObjectThreshold() {
+        return secondsToObjectThreshold;
+    }
+
+    public long getSecondsToBytesThreshold() {
+        return secondsToBytesThreshold;
+    }
+
+    /**
+     * Seconds until the first of the two thresholds is reached, or -1 if neither is expected to be reached.
+     */
+    public long getSecondsToBackpressure() {
+        if (secondsToObjectThreshold < 0) {
+            return secondsToBytesThreshold;
+        }
+        if (secondsToBytesThreshold < 0) {
+            return secondsToObjectThreshold;
+        }
+        return Math.min(secondsToObjectThreshold, secondsToBytesThreshold);
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.jdye64.processors.backpressure;
+
+import java.io.IOException;
+
+import org.apache.nifi.controller.status.ConnectionStatus;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.jdye64.reportingtasks.StatusField;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Fields of a ConnectionStatus that can be selected through the Reported Fields property.
+ */
+public enum ConnectionStatusField
+    implements StatusField<ConnectionStatus> {
+
+    ID("id"),
+    GROUP_ID("groupId"),
+    NAME("name"),
+    SOURCE_ID("sourceId"),
+    SOURCE_NAME("sourceName"),
+    DESTINATION_ID("destinationId"),
+    DESTINATION_NAME("destinationName"),
+    BACK_PRESSURE_DATA_SIZE_THRESHOLD("backPressureDataSizeThreshold"),
+    BACK_PRESSURE_BYTES_THRESHOLD("backPressureBytesThreshold"),
+    BACK_PRESSURE_OBJECT_THRESHOLD("backPressureObjectThreshold"),
+    INPUT_COUNT("inputCount"),
+    INPUT_BYTES("inputBytes"),
+    QUEUED_COUNT("queuedCount"),
+    QUEUED_BYTES("queuedBytes"),
+    OUTPUT_COUNT("outputCount"),
+    OUTPUT_BYTES("outputBytes"),
+    MAX_QUEUED_COUNT("maxQueuedCount"),
+    MAX_QUEUED_BYTES("maxQueuedBytes"),
+    UTILIZATION_PERCENT("utilizationPercent");
+
+    private final String fieldName;
+
+    ConnectionStatusField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    @Override
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    @Override
+    public void write(JsonGenerator generator, ConnectionStatus cs) throws IOException {
+        generator.writeFieldName(fieldName);
+        switch (this) {
+            case ID:
+                generator.writeString(cs.getId());
+                break;
+            case GROUP_ID:
+                generator.writeString(cs.getGroupId());
+                break;
+            case NAME:
+                generator.writeString(cs.getName());
+                break;
+            case SOURCE_ID:
+                generator.writeString(cs.getSourceId());
+                break;
+            case SOURCE_NAME:
+                generator.writeString(cs.getSourceName());
+                break;
+            case DESTINATION_ID:
+                generator.writeString(cs.getDestinationId());
+                break;
+            case DESTINATION_NAME:
+                generator.writeString(cs.getDestinationName());
+                break;
+            case BACK_PRESSURE_DATA_SIZE_THRESHOLD:
+                generator.writeString(cs.getBackPressureDataSizeThreshold());
+                break;
+            case BACK_PRESSURE_BYTES_THRESHOLD:
+                generator.writeNumber(cs.getBackPressureBytesThreshold());
+                break;
+            case BACK_PRESSURE_OBJECT_THRESHOLD:
+                generator.writeNumber(cs.getBackPressureObjectThreshold());
+                break;
+            case INPUT_COUNT:
+                generator.writeNumber(cs.getInputCount());
+                break;
+            case INPUT_BYTES:
+                generator.writeNumber(cs.getInputBytes());
+                break;
+            case QUEUED_COUNT:
+                generator.writeNumber(cs.getQueuedCount());
+                break;
+            case QUEUED_BYTES:
+                generator.writeNumber(cs.getQueuedBytes());
+                break;
+            case OUTPUT_COUNT:
+                generator.writeNumber(cs.getOutputCount());
+                break;
+            case OUTPUT_BYTES:
+                generator.writeNumber(cs.getOutputBytes());
+                break;
+            case MAX_QUEUED_COUNT:
+                generator.writeNumber(cs.getMaxQueuedCount());
+                break;
+            case MAX_QUEUED_BYTES:
+                generator.writeNumber(cs.getMaxQueuedBytes());
+                break;
+            case UTILIZATION_PERCENT:
+                generator.writeNumber(BackpressureDetector.utilizationPercent(cs));
+                break;
+            default:
+                generator.writeNull();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.github.jdye64.processors.backpressure;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.apache.nifi.controller.status.ConnectionStatus;
+import org.junit.Test;
+
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestConnectionHistory {
+
+    private static final double DELTA = 0.0001;
+
+    private static ConnectionStatus status(int queuedCount, long queuedBytes) {
+        ConnectionStatus cs = new ConnectionStatus();
+        cs.setId("connection");
+        cs.setGroupId("group");
+        cs.setName("queue");
+        cs.setQueuedCount(queuedCount);
+        cs.setQueuedBytes(queuedBytes);
+        cs.setBackPressureObjectThreshold(1000);
+        cs.setBackPressureBytesThreshold(1000000);
+        return cs;
+    }
+
+    @Test
+    public void testGrowthRateIsMovingAverage() {
+        ConnectionHistory history = new ConnectionHistory(5, 10, 0.5);
+
+        assertNull(history.record(status(0, 0), 0));
+
+        //The first rate seeds the average
+        ConnectionPrediction prediction = history.record(status(10, 1000), 1000);
+        assertEquals(10, prediction.getQueuedCountGrowthPerSecond(), DELTA);
+        assertEquals(1000, prediction.getQueuedBytesGrowthPerSecond(), DELTA);
+
+        //30/s over the last two seconds, averaged with the previous 10/s
+        prediction = history.record(status(70, 2000), 3000);
+        assertEquals(20, prediction.getQueuedCountGrowthPerSecond(), DELTA);
+        assertEquals(750, prediction.getQueuedBytesGrowthPerSecond(), DELTA);
+    }
+
+    @Test
+    public void testSecondsToThreshold() {
+        ConnectionHistory history = new ConnectionHistory(5, 10, 0.5);
+        history.record(status(0, 0), 0);
+
+        ConnectionPrediction prediction = history.record(status(100, 1000), 1000);
+        assertEquals(9, prediction.getSecondsToObjectThreshold());
+        assertEquals(999, prediction.getSecondsToBytesThreshold());
+        assertEquals(9, prediction.getSecondsToBackpressure());
+
+        //Already at the threshold
+        prediction = history.record(status(1000, 1000), 2000);
+        assertEquals(0, prediction.getSecondsToObjectThreshold());
+
+        //Growth averaged below zero never reaches it
+        history.record(status(0, 0), 3000);
+        prediction = history.record(status(0, 0), 4000);
+        assertEquals(-1, prediction.getSecondsToObjectThreshold());
+        assertEquals(-1, prediction.getSecondsToBytesThreshold());
+    }
+
+    @Test
+    public void testNoThresholdNoPrediction() {
+        ConnectionHistory history = new ConnectionHistory(5, 10, 0.5);
+        ConnectionStatus cs = status(0, 0);
+        cs.setBackPressureObjectThreshold(0);
+        history.record(cs, 0);
+
+        cs = status(100, 0);
+        cs.setBackPressureObjectThreshold(0);
+        assertEquals(-1, history.record(cs, 1000).getSecondsToObjectThreshold());
+    }
+
+    @Test
+    public void testSameSnapshotNotRecordedTwice() {
+        ConnectionHistory history = new ConnectionHistory(5, 10, 0.5);
+        history.record(status(0, 0), 0);
+        history.record(status(10, 0), 1000);
+
+        //A cached snapshot served to later runs keeps its timestamp and must not count as zero growth
+        for (int run = 0; run < 3; run++) {
+            history.beginRun();
+            ConnectionPrediction prediction = history.record(status(10, 0), 1000);
+            assertNotNull(prediction);
+            assertEquals(10, prediction.getQueuedCountGrowthPerSecond(), DELTA);
+            assertEquals(99, prediction.getSecondsToObjectThreshold());
+            history.endRun();
+        }
+        assertEquals(1, history.getTrackedCount());
+
+        ConnectionPrediction prediction = history.record(status(20, 0), 2000);
+        assertEquals(10, prediction.getQueuedCountGrowthPerSecond(), DELTA);
+    }
+
+    @Test
+    public void testUnseenConnectionsFreed() {
+        ConnectionHistory history = new ConnectionHistory(5, 1, 0.5);
+        history.beginRun();
+        history.record(status(0, 0), 0);
+        history.endRun();
+        assertEquals(1, history.getTrackedCount());
+
+        history.beginRun();
+        history.endRun();
+        assertEquals(0, history.getTrackedCount());
+
+        //The freed slot starts over without the old samples
+        ConnectionStatus other = status(0, 0);
+        other.setId("other");
+        assertNull(history.record(other, 1000));
+        assertEquals(1, history.getTrackedCount());
+    }
+}
@@ -1,14 +1,18 @@
 package com.github.jdye64.processors.clusterstate.processor;
 
-import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
+import java.util.function.Predicate;
 
 import org.apache.nifi.controller.status.ProcessGroupStatus;
 import org.apache.nifi.controller.status.ProcessorStatus;
 import org.apache.nifi.controller.status.RunStatus;
+import org.apache.nifi.reporting.ReportingContext;
 
 import com.github.jdye64.reportingtasks.AbstractDeviceRegistryReportingTask;
+import com.github.jdye64.services.flowstatus.FlowStatusSnapshot;
+import com.github.jdye64.reportingtasks.ComponentFingerprint;
+import com.github.jdye64.reportingtasks.DeltaTracker;
+import com.github.jdye64.reportingtasks.StatusField;
 
 /**
  * Licensed to the Apache Software Foundation (ASF) under one or more
@@ -33,32 +37,66 @@ import com.github.jdye64.reportingtasks.AbstractDeviceRegistryReportingTask;
 public abstract class AbstractProcessorStateReportingTask
     extends AbstractDeviceRegistryReportingTask {
 
-    protected List<ProcessorStatus> recursiveProcessorLocate(ProcessGroupStatus status, RunStatus runStatus) {
-
-        List<ProcessorStatus> processors = new ArrayList<>();
+    protected static final DeltaTracker.Fingerprinter<ProcessorStatus> PROCESSOR_FINGERPRINTER = new DeltaTracker.Fingerprinter<ProcessorStatus>() {
+        @Override
+        public String getId(ProcessorStatus ps) {
+            return ps.getId();
+        }
 
-        Iterator<ProcessorStatus> itr = status.getProcessorStatus().iterator();
-        while (itr.hasNext()) {
-            ProcessorStatus ps = itr.next();
-            if (runStatus == null) {
-                //Add all
-                processors.add(ps);
-            } else {
-                if (ps.getRunStatus().compareTo(runStatus) == 0) {
-                    processors.add(ps);
-                }
-            }
+        @Override
+        public long fingerprint(ProcessorStatus ps) {
+            return new ComponentFingerprint()
+                    .add(ps.getGroupId())
+                    .add(ps.getName())
+                    .add(ps.getType())
+                    .add(ps.getRunStatus())
+                    .add(ps.getActiveThreadCount())
+                    .add(ps.getInputCount())
+                    .add(ps.getInputBytes())
+                    .add(ps.getOutputCount())
+                    .add(ps.getOutputBytes())
+                    .add(ps.getBytesRead())
+                    .add(ps.getBytesWritten())
+                    .add(ps.getInvocations())
+                    .add(ps.getProcessingNanos())
+                    .add(ps.getFlowFilesReceived())
+                    .add(ps.getBytesReceived())
+                    .add(ps.getFlowFilesSent())
+                    .add(ps.getBytesSent())
+                    .add(ps.getFlowFilesRemoved())
+                    .get();
         }
+    };
+
+    @Override
+    protected StatusField<?>[] getReportableFields() {
+        return ProcessorStatusField.values();
+    }
 
-        //Loop through all of the process groups and add their connection status
-        Iterator<ProcessGroupStatus> pgitr = status.getProcessGroupStatus().iterator();
-        while (pgitr.hasNext()) {
-            ProcessGroupStatus pgs = pgitr.next();
+    //Size of the previous result, used to pre-size the next one
+    private volatile int lastProcessorCount;
 
-            //recursive call
-            processors.addAll(recursiveProcessorLocate(pgs, runStatus));
+    /**
+     * Returns the processors in the given run status, or all processors when runStatus is null, taken from the shared
+     * flow status snapshot when a Flow Status Snapshot Service is configured.
+     */
+    protected List<ProcessorStatus> locateProcessors(ReportingContext reportingContext, RunStatus runStatus) {
+        FlowStatusSnapshot snapshot = getFlowStatusSnapshot(reportingContext);
+        if (snapshot != null) {
+            return runStatus == null ? snapshot.getProcessors() : snapshot.getProcessors(runStatus);
         }
 
+        List<ProcessorStatus> processors = locateProcessors(reportingContext.getEventAccess().getControllerStatus(), runStatus);
+        lastProcessorCount = processors.size();
         return processors;
     }
+
+    protected List<ProcessorStatus> locateProcessors(ProcessGroupStatus status, final RunStatus runStatus) {
+        return getStatusTreeTraversal().collectProcessors(status, new Predicate<ProcessorStatus>() {
+            @Override
+            public boolean test(ProcessorStatus ps) {
+                return runStatus == null || ps.getRunStatus() == runStatus;
+            }
+        }, lastProcessorCount);
+    }
 }
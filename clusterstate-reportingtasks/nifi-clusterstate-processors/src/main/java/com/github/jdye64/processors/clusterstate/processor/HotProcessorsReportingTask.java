@@ -0,0 +1,152 @@
+package com.github.jdye64.processors.clusterstate.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.nifi.annotation.documentation.CapabilityDescription;
+import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.controller.status.ProcessorStatus;
+import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.reporting.ReportingContext;
+
+import com.github.jdye64.reportingtasks.ComponentFingerprint;
+import com.github.jdye64.reportingtasks.DeltaTracker;
+import com.github.jdye64.reportingtasks.StatusField;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+@Tags({"processor", "top", "ranking", "hot"})
+@CapabilityDescription("Reports only the processors with the highest processing time, invocations, bytes read, bytes written," +
+        " FlowFiles in and FlowFiles out over NiFi's rolling status window, so the payload stays the same size however large the flow is")
+public class HotProcessorsReportingTask
+    extends AbstractProcessorStateReportingTask {
+
+    private static final PropertyDescriptor TOP_K = new PropertyDescriptor.Builder()
+            .name("Top K")
+            .description("Number of processors reported for each metric")
+            .required(true)
+            .defaultValue("10")
+            .addValidator(StandardValidators.createLongValidator(1, 1000, true))
+            .build();
+
+    enum RankingMetric {
+        PROCESSING_NANOS("processingNanos"),
+        INVOCATIONS("invocations"),
+        BYTES_READ("bytesRead"),
+        BYTES_WRITTEN("bytesWritten"),
+        FLOWFILES_IN("flowFilesIn"),
+        FLOWFILES_OUT("flowFilesOut");
+
+        private final String metricName;
+
+        RankingMetric(String metricName) {
+            this.metricName = metricName;
+        }
+
+        long value(ProcessorStatus ps) {
+            switch (this) {
+                case PROCESSING_NANOS:
+                    return ps.getProcessingNanos();
+                case INVOCATIONS:
+                    return ps.getInvocations();
+                case BYTES_READ:
+                    return ps.getBytesRead();
+                case BYTES_WRITTEN:
+                    return ps.getBytesWritten();
+                case FLOWFILES_IN:
+                    return ps.getInputCount();
+                case FLOWFILES_OUT:
+                    return ps.getOutputCount();
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    private static final RankingMetric[] METRICS = RankingMetric.values();
+
+    private static final DeltaTracker.Fingerprinter<ProcessorRanking> RANKING_FINGERPRINTER = new DeltaTracker.Fingerprinter<ProcessorRanking>() {
+        @Override
+        public String getId(ProcessorRanking ranking) {
+            return ranking.getMetric() + ":" + ranking.getRank();
+        }
+
+        @Override
+        public long fingerprint(ProcessorRanking ranking) {
+            return new ComponentFingerprint()
+                    .add(ranking.getId())
+                    .add(ranking.getName())
+                    .add(ranking.getValue())
+                    .get();
+        }
+    };
+
+    public final List<PropertyDescriptor> getSupportedPropertyDescriptors() {
+        final List<PropertyDescriptor> descriptors = super.getSupportedPropertyDescriptors();
+        descriptors.add(TOP_K);
+        return Collections.unmodifiableList(descriptors);
+    }
+
+    @Override
+    protected StatusField<?>[] getReportableFields() {
+        //Rankings have a fixed shape, Reported Fields does not apply
+        return null;
+    }
+
+    @Override
+    public void onTrigger(ReportingContext reportingContext) {
+
+        final int k = reportingContext.getProperty(TOP_K).asInteger();
+
+        @SuppressWarnings("unchecked")
+        final TopK<ProcessorStatus>[] rankings = new TopK[METRICS.length];
+        for (int i = 0; i < METRICS.length; i++) {
+            rankings[i] = new TopK<>(k);
+        }
+
+        //Single pass over the processors, each one is offered to every ranking. They come from the Flow Status Snapshot
+        //Service when one is set, otherwise from a walk of the controller status using the configured Traversal Parallelism
+        for (ProcessorStatus ps : locateProcessors(reportingContext, null)) {
+            rank(rankings, ps);
+        }
+
+        List<ProcessorRanking> hotProcessors = new ArrayList<>(METRICS.length * k);
+        for (int i = 0; i < METRICS.length; i++) {
+            TopK<ProcessorStatus> ranking = rankings[i];
+            ranking.sortDescending();
+            for (int r = 0; r < ranking.size(); r++) {
+                ProcessorStatus ps = ranking.getItem(r);
+                hotProcessors.add(new ProcessorRanking(METRICS[i].metricName, r + 1, ranking.getKey(r),
+                        ps.getId(), ps.getGroupId(), ps.getName(), ps.getType()));
+            }
+        }
+
+        reportComponents(reportingContext, "/api/v1/processors/top", hotProcessors, RANKING_FINGERPRINTER, null);
+    }
+
+    private static void rank(TopK<ProcessorStatus>[] rankings, ProcessorStatus ps) {
+        for (int i = 0; i < METRICS.length; i++) {
+            rankings[i].offer(METRICS[i].value(ps), ps);
+        }
+    }
+}
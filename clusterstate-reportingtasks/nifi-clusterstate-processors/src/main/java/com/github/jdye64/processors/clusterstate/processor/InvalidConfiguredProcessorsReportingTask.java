@@ -16,7 +16,6 @@
  */
 package com.github.jdye64.processors.clusterstate.processor;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -27,8 +26,6 @@ import org.apache.nifi.controller.status.ProcessorStatus;
 import org.apache.nifi.controller.status.RunStatus;
 import org.apache.nifi.reporting.ReportingContext;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-
 @Tags({"invalid", "configuration", "processor"})
 @CapabilityDescription("Searches the designated process group for processors that are considered to be in the 'invalid' configuration state")
 public class InvalidConfiguredProcessorsReportingTask
@@ -42,21 +39,9 @@ public class InvalidConfiguredProcessorsReportingTask
     @Override
     public void onTrigger(ReportingContext reportingContext) {
 
-        List<ProcessorStatus> invalidProcessors = new ArrayList<>();
-
-        //Recursively adds all process group pressured nested connections
-        invalidProcessors.addAll(recursiveProcessorLocate(reportingContext.getEventAccess().getControllerStatus(), RunStatus.Invalid));
-
-        try {
-            getLogger().info("{}", new Object[]{mapper.writeValueAsString(invalidProcessors)});
-
-            if (reportingContext.getProperty(REST_POSTING_ENABLED).asBoolean()) {
-                reportToDeviceRegistry(reportingContext, "/api/v1/processors/invalid", mapper.writeValueAsString(invalidProcessors));
-            }
+        List<ProcessorStatus> invalidProcessors = locateProcessors(reportingContext, RunStatus.Invalid);
 
-        } catch (JsonProcessingException e) {
-            getLogger().error("Error Processing invalid processors JSON: {}", new Object[]{e.getMessage()}, e);
-        }
+        reportComponents(reportingContext, "/api/v1/processors/invalid", invalidProcessors, PROCESSOR_FINGERPRINTER, ProcessorStatusField.values());
 
     }
 
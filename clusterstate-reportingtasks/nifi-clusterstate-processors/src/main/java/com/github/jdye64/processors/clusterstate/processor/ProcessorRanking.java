@@ -0,0 +1,72 @@
+package com.github.jdye64.processors.clusterstate.processor;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Position of a processor in the ranking of one metric, as reported by {@link HotProcessorsReportingTask}.
+ */
+public class ProcessorRanking {
+
+    private final String metric;
+    private final int rank;
+    private final long value;
+    private final String id;
+    private final String groupId;
+    private final String name;
+    private final String type;
+
+    public ProcessorRanking(String metric, int rank, long value, String id, String groupId, String name, String type) {
+        this.metric = metric;
+        this.rank = rank;
+        this.value = value;
+        this.id = id;
+        this.groupId = groupId;
+        this.name = name;
+        this.type = type;
+    }
+
+    public String getMetric() {
+        return metric;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+}
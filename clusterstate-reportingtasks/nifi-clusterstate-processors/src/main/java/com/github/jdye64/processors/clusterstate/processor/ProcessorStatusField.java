@@ -0,0 +1,135 @@
+package com.github.jdye64.processors.clusterstate.processor;
+
+import java.io.IOException;
+
+import org.apache.nifi.controller.status.ProcessorStatus;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.github.jdye64.reportingtasks.StatusField;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Fields of a ProcessorStatus that can be selected through the Reported Fields property.
+ */
+public enum ProcessorStatusField
+    implements StatusField<ProcessorStatus> {
+
+    ID("id"),
+    GROUP_ID("groupId"),
+    NAME("name"),
+    TYPE("type"),
+    RUN_STATUS("runStatus"),
+    ACTIVE_THREAD_COUNT("activeThreadCount"),
+    INPUT_COUNT("inputCount"),
+    INPUT_BYTES("inputBytes"),
+    OUTPUT_COUNT("outputCount"),
+    OUTPUT_BYTES("outputBytes"),
+    BYTES_READ("bytesRead"),
+    BYTES_WRITTEN("bytesWritten"),
+    INVOCATIONS("invocations"),
+    PROCESSING_NANOS("processingNanos"),
+    FLOW_FILES_RECEIVED("flowFilesReceived"),
+    BYTES_RECEIVED("bytesReceived"),
+    FLOW_FILES_SENT("flowFilesSent"),
+    BYTES_SENT("bytesSent"),
+    FLOW_FILES_REMOVED("flowFilesRemoved"),
+    AVERAGE_LINEAGE_DURATION("averageLineageDuration");
+
+    private final String fieldName;
+
+    ProcessorStatusField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    @Override
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    @Override
+    public void write(JsonGenerator generator, ProcessorStatus ps) throws IOException {
+        generator.writeFieldName(fieldName);
+        switch (this) {
+            case ID:
+                generator.writeString(ps.getId());
+                break;
+            case GROUP_ID:
+                generator.writeString(ps.getGroupId());
+                break;
+            case NAME:
+                generator.writeString(ps.getName());
+                break;
+            case TYPE:
+                generator.writeString(ps.getType());
+                break;
+            case RUN_STATUS:
+                generator.writeString(ps.getRunStatus() == null ? null : ps.getRunStatus().name());
+                break;
+            case ACTIVE_THREAD_COUNT:
+                generator.writeNumber(ps.getActiveThreadCount());
+                break;
+            case INPUT_COUNT:
+                generator.writeNumber(ps.getInputCount());
+                break;
+            case INPUT_BYTES:
+                generator.writeNumber(ps.getInputBytes());
+                break;
+            case OUTPUT_COUNT:
+                generator.writeNumber(ps.getOutputCount());
+                break;
+            case OUTPUT_BYTES:
+                generator.writeNumber(ps.getOutputBytes());
+                break;
+            case BYTES_READ:
+                generator.writeNumber(ps.getBytesRead());
+                break;
+            case BYTES_WRITTEN:
+                generator.writeNumber(ps.getBytesWritten());
+                break;
+            case INVOCATIONS:
+                generator.writeNumber(ps.getInvocations());
+                break;
+            case PROCESSING_NANOS:
+                generator.writeNumber(ps.getProcessingNanos());
+                break;
+            case FLOW_FILES_RECEIVED:
+                generator.writeNumber(ps.getFlowFilesReceived());
+                break;
+            case BYTES_RECEIVED:
+                generator.writeNumber(ps.getBytesReceived());
+                break;
+            case FLOW_FILES_SENT:
+                generator.writeNumber(ps.getFlowFilesSent());
+                break;
+            case BYTES_SENT:
+                generator.writeNumber(ps.getBytesSent());
+                break;
+            case FLOW_FILES_REMOVED:
+                generator.writeNumber(ps.getFlowFilesRemoved());
+                break;
+            case AVERAGE_LINEAGE_DURATION:
+                generator.writeNumber(ps.getAverageLineageDuration());
+                break;
+            default:
+                generator.writeNull();
+        }
+    }
+}
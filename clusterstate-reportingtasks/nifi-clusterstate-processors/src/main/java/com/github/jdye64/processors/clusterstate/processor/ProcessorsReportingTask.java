@@ -1,6 +1,5 @@
 package com.github.jdye64.processors.clusterstate.processor;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -8,8 +7,6 @@ import org.apache.nifi.components.PropertyDescriptor;
 import org.apache.nifi.controller.status.ProcessorStatus;
 import org.apache.nifi.reporting.ReportingContext;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-
 /**
  * Licensed to the Apache Software Foundation (ASF) under one or more
  * contributor license agreements.  See the NOTICE file distributed with
@@ -41,21 +38,9 @@ public class ProcessorsReportingTask
     @Override
     public void onTrigger(ReportingContext reportingContext) {
 
-        List<ProcessorStatus> processors = new ArrayList<>();
-
-        //Recursively adds all process group pressured nested connections
-        processors.addAll(recursiveProcessorLocate(reportingContext.getEventAccess().getControllerStatus(), null));
-
-        try {
-            getLogger().info("{}", new Object[]{mapper.writeValueAsString(processors)});
-
-            if (reportingContext.getProperty(REST_POSTING_ENABLED).asBoolean()) {
-                reportToDeviceRegistry(reportingContext, "/api/v1/processors/status", mapper.writeValueAsString(processors));
-            }
+        List<ProcessorStatus> processors = locateProcessors(reportingContext, null);
 
-        } catch (JsonProcessingException e) {
-            getLogger().error("Error Processing processors status JSON: {}", new Object[]{e.getMessage()}, e);
-        }
+        reportComponents(reportingContext, "/api/v1/processors/status", processors, PROCESSOR_FINGERPRINTER, ProcessorStatusField.values());
 
     }
 }
@@ -1,6 +1,5 @@
 package com.github.jdye64.processors.clusterstate.processor;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -11,8 +10,6 @@ import org.apache.nifi.controller.status.ProcessorStatus;
 import org.apache.nifi.controller.status.RunStatus;
 import org.apache.nifi.reporting.ReportingContext;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-
 /**
  * Licensed to the Apache Software Foundation (ASF) under one or more
  * contributor license agreements.  See the NOTICE file distributed with
@@ -46,21 +43,9 @@ public class RunningProcessorsReportingTask
     @Override
     public void onTrigger(ReportingContext reportingContext) {
 
-        List<ProcessorStatus> runningProcessors = new ArrayList<>();
-
-        //Recursively adds all process group pressured nested connections
-        runningProcessors.addAll(recursiveProcessorLocate(reportingContext.getEventAccess().getControllerStatus(), RunStatus.Running));
-
-        try {
-            getLogger().info("{}", new Object[]{mapper.writeValueAsString(runningProcessors)});
-
-            if (reportingContext.getProperty(REST_POSTING_ENABLED).asBoolean()) {
-                reportToDeviceRegistry(reportingContext, "/api/v1/processors/running", mapper.writeValueAsString(runningProcessors));
-            }
+        List<ProcessorStatus> runningProcessors = locateProcessors(reportingContext, RunStatus.Running);
 
-        } catch (JsonProcessingException e) {
-            getLogger().error("Error Processing running processors JSON: {}", new Object[]{e.getMessage()}, e);
-        }
+        reportComponents(reportingContext, "/api/v1/processors/running", runningProcessors, PROCESSOR_FINGERPRINTER, ProcessorStatusField.values());
 
     }
 }
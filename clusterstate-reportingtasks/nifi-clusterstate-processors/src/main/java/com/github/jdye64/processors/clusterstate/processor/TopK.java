@@ -0,0 +1,115 @@
+package com.github.jdye64.processors.clusterstate.processor;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Keeps the k items with the largest keys seen so far in a bounded min-heap, so selecting them out of n items takes
+ * O(n log k) time and O(k) memory without ever sorting all n. When keys tie the item offered first is kept.
+ */
+public class TopK<T> {
+
+    private final int k;
+    private final long[] keys;
+    private final Object[] items;
+    private int size;
+
+    public TopK(int k) {
+        this.k = k;
+        this.keys = new long[k];
+        this.items = new Object[k];
+    }
+
+    public void offer(long key, T item) {
+        if (size < k) {
+            keys[size] = key;
+            items[size] = item;
+            siftUp(size++);
+        } else if (k > 0 && key > keys[0]) {
+            //Evict the smallest of the current top k
+            keys[0] = key;
+            items[0] = item;
+            siftDown(0, size);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Heap sorts the retained items in place so that {@link #getKey(int)} and {@link #getItem(int)} return them from
+     * the largest key down. No more items may be offered afterwards.
+     */
+    public void sortDescending() {
+        for (int end = size - 1; end > 0; end--) {
+            swap(0, end);
+            siftDown(0, end);
+        }
+    }
+
+    public long getKey(int index) {
+        return keys[index];
+    }
+
+    @SuppressWarnings("unchecked")
+    public T getItem(int index) {
+        return (T) items[index];
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (keys[index] >= keys[parent]) {
+                return;
+            }
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index, int limit) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < limit && keys[left] < keys[smallest]) {
+                smallest = left;
+            }
+            if (right < limit && keys[right] < keys[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(index, smallest);
+            index = smallest;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+
+        Object item = items[i];
+        items[i] = items[j];
+        items[j] = item;
+    }
+}
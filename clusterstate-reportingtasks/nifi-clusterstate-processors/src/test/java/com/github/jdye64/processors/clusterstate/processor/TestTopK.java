@@ -0,0 +1,153 @@
+package com.github.jdye64.processors.clusterstate.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestTopK {
+
+    @Test
+    public void testKeepsLargestKeysInDescendingOrder() {
+        TopK<String> topK = new TopK<>(3);
+        long[] keys = {5, 1, 9, 3, 7, 2, 8};
+        for (long key : keys) {
+            topK.offer(key, "item-" + key);
+        }
+        topK.sortDescending();
+
+        assertEquals(3, topK.size());
+        assertEquals(9, topK.getKey(0));
+        assertEquals(8, topK.getKey(1));
+        assertEquals(7, topK.getKey(2));
+        assertEquals("item-9", topK.getItem(0));
+        assertEquals("item-8", topK.getItem(1));
+        assertEquals("item-7", topK.getItem(2));
+    }
+
+    @Test
+    public void testKLargerThanInput() {
+        TopK<String> topK = new TopK<>(10);
+        topK.offer(2, "b");
+        topK.offer(4, "d");
+        topK.offer(1, "a");
+        topK.offer(3, "c");
+        topK.sortDescending();
+
+        assertEquals(4, topK.size());
+        assertEquals("d", topK.getItem(0));
+        assertEquals("c", topK.getItem(1));
+        assertEquals("b", topK.getItem(2));
+        assertEquals("a", topK.getItem(3));
+    }
+
+    @Test
+    public void testEmptyAndZeroK() {
+        TopK<String> empty = new TopK<>(5);
+        empty.sortDescending();
+        assertEquals(0, empty.size());
+
+        TopK<String> none = new TopK<>(0);
+        none.offer(1, "a");
+        none.sortDescending();
+        assertEquals(0, none.size());
+    }
+
+    @Test
+    public void testTiesKeepFirstOffered() {
+        TopK<String> topK = new TopK<>(2);
+        topK.offer(5, "first");
+        topK.offer(5, "second");
+        //Heap is full of equal keys, a later tie must not evict either of them
+        topK.offer(5, "third");
+        topK.sortDescending();
+
+        assertEquals(2, topK.size());
+        List<String> kept = new ArrayList<>();
+        kept.add(topK.getItem(0));
+        kept.add(topK.getItem(1));
+        Collections.sort(kept);
+        assertEquals("first", kept.get(0));
+        assertEquals("second", kept.get(1));
+    }
+
+    @Test
+    public void testTieWithSmallestRetainedKey() {
+        TopK<String> topK = new TopK<>(2);
+        topK.offer(3, "low");
+        topK.offer(7, "high");
+        topK.offer(3, "late-low");
+        topK.sortDescending();
+
+        assertEquals("high", topK.getItem(0));
+        assertEquals("low", topK.getItem(1));
+    }
+
+    @Test
+    public void testDuplicateKeysSortedDescending() {
+        TopK<Integer> topK = new TopK<>(6);
+        long[] keys = {4, 4, 1, 9, 4, 9, 0, 2};
+        for (int i = 0; i < keys.length; i++) {
+            topK.offer(keys[i], i);
+        }
+        topK.sortDescending();
+
+        long[] expected = {9, 9, 4, 4, 4, 2};
+        assertEquals(expected.length, topK.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], topK.getKey(i));
+            assertEquals(expected[i], keys[topK.getItem(i)]);
+        }
+    }
+
+    @Test
+    public void testMatchesFullSort() {
+        Random random = new Random(42);
+        for (int round = 0; round < 50; round++) {
+            int n = random.nextInt(200);
+            int k = 1 + random.nextInt(20);
+            List<Long> all = new ArrayList<>();
+            TopK<Long> topK = new TopK<>(k);
+            for (int i = 0; i < n; i++) {
+                long key = random.nextInt(50);
+                all.add(key);
+                topK.offer(key, key);
+            }
+            topK.sortDescending();
+
+            Collections.sort(all, Collections.<Long>reverseOrder());
+            assertEquals(Math.min(k, n), topK.size());
+            for (int i = 0; i < topK.size(); i++) {
+                assertEquals(all.get(i).longValue(), topK.getKey(i));
+                assertEquals(all.get(i), topK.getItem(i));
+                assertTrue(i == 0 || topK.getKey(i - 1) >= topK.getKey(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.github.jdye64.services.flowstatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.nifi.controller.status.ConnectionStatus;
+import org.apache.nifi.controller.status.ProcessGroupStatus;
+import org.apache.nifi.controller.status.ProcessorStatus;
+import org.apache.nifi.controller.status.RunStatus;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Read-only view over one fetch of the controller status. The status tree is walked once when the snapshot is
+ * created and indexed so that callers can look up processors by run status, connections by id and the process group
+ * hierarchy without walking the tree again. Components are listed in the order the tree is walked: the components of
+ * a group first, followed by those of its child groups.
+ */
+public class FlowStatusSnapshot {
+
+    private final ProcessGroupStatus rootGroupStatus;
+    private final long createdMillis;
+
+    private final List<ProcessorStatus> processors = new ArrayList<>();
+    private final Map<RunStatus, List<ProcessorStatus>> processorsByRunStatus = new EnumMap<>(RunStatus.class);
+    private final Map<String, ConnectionStatus> connectionsById = new LinkedHashMap<>();
+    private final Map<String, ProcessGroupStatus> processGroupsById = new LinkedHashMap<>();
+    private final Map<String, String> parentGroupIds = new HashMap<>();
+
+    private FlowStatusSnapshot(ProcessGroupStatus rootGroupStatus) {
+        this.rootGroupStatus = rootGroupStatus;
+        this.createdMillis = System.currentTimeMillis();
+
+        for (RunStatus runStatus : RunStatus.values()) {
+            processorsByRunStatus.put(runStatus, new ArrayList<ProcessorStatus>());
+        }
+    }
+
+    public static FlowStatusSnapshot index(ProcessGroupStatus rootGroupStatus) {
+        final FlowStatusSnapshot snapshot = new FlowStatusSnapshot(rootGroupStatus);
+        StatusTreeTraversal.walk(rootGroupStatus, new StatusTreeTraversal.Visitor() {
+            @Override
+            public boolean visitGroup(ProcessGroupStatus group, ProcessGroupStatus parent) {
+                snapshot.processGroupsById.put(group.getId(), group);
+                if (parent != null) {
+                    snapshot.parentGroupIds.put(group.getId(), parent.getId());
+                }
+                return true;
+            }
+
+            @Override
+            public boolean visitProcessor(ProcessorStatus processor) {
+                snapshot.processors.add(processor);
+                snapshot.processorsByRunStatus.get(processor.getRunStatus()).add(processor);
+                return true;
+            }
+
+            @Override
+            public boolean visitConnection(ConnectionStatus connection) {
+                snapshot.connectionsById.put(connection.getId(), connection);
+                return true;
+            }
+        });
+        return snapshot;
+    }
+
+    public ProcessGroupStatus getRootGroupStatus() {
+        return rootGroupStatus;
+    }
+
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    public List<ProcessorStatus> getProcessors() {
+        return Collections.unmodifiableList(processors);
+    }
+
+    public List<ProcessorStatus> getProcessors(RunStatus runStatus) {
+        return Collections.unmodifiableList(processorsByRunStatus.get(runStatus));
+    }
+
+    public Collection<ConnectionStatus> getConnections() {
+        return Collections.unmodifiableCollection(connectionsById.values());
+    }
+
+    public ConnectionStatus getConnection(String connectionId) {
+        return connectionsById.get(connectionId);
+    }
+
+    public Collection<ProcessGroupStatus> getProcessGroups() {
+        return Collections.unmodifiableCollection(processGroupsById.values());
+    }
+
+    public ProcessGroupStatus getProcessGroup(String groupId) {
+        return processGroupsById.get(groupId);
+    }
+
+    /**
+     * Returns the id of the group containing the given group, or null for the root group.
+     */
+    public String getParentGroupId(String groupId) {
+        return parentGroupIds.get(groupId);
+    }
+
+    /**
+     * Returns the ids of the groups from the root group down to and including the given group.
+     */
+    public List<String> getGroupPath(String groupId) {
+        List<String> path = new ArrayList<>();
+        for (String id = groupId; id != null; id = parentGroupIds.get(id)) {
+            path.add(id);
+        }
+        Collections.reverse(path);
+        return path;
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.jdye64.services.flowstatus;
+
+import org.apache.nifi.annotation.documentation.CapabilityDescription;
+import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.controller.ControllerService;
+import org.apache.nifi.reporting.EventAccess;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+@Tags({"flow", "status", "snapshot"})
+@CapabilityDescription("Provides an indexed snapshot of the NiFi controller status that is shared by every reporting task referencing this service")
+public interface FlowStatusSnapshotService
+    extends ControllerService {
+
+    /**
+     * Returns the cached snapshot if it is still fresh, otherwise fetches the controller status through the
+     * eventAccess of the calling reporting task, indexes it and caches the result for the other callers.
+     */
+    FlowStatusSnapshot getSnapshot(EventAccess eventAccess);
+}
@@ -0,0 +1,238 @@
+package com.github.jdye64.services.flowstatus;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.apache.nifi.controller.status.ConnectionStatus;
+import org.apache.nifi.controller.status.ProcessGroupStatus;
+import org.apache.nifi.controller.status.ProcessorStatus;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Collects processors or connections from a ProcessGroupStatus tree on a dedicated ForkJoinPool. The process groups
+ * are first listed in pre-order, which is cheap compared to visiting their components, and the list is then split
+ * into ranges of roughly equal component counts that are filtered in parallel. Results are joined in range order so
+ * they come out in the same order as {@link StatusTreeTraversal}. Flows with fewer components than the threshold, or
+ * a parallelism of 1, are walked sequentially on the calling thread.
+ * <p>
+ * Filters and projections may be called from several threads at once and must be thread safe.
+ */
+public class ParallelStatusTreeTraversal
+    implements Closeable {
+
+    private static final int MIN_LEAF_SIZE = 1024;
+
+    private interface ComponentAccessor<C> {
+        Collection<C> components(ProcessGroupStatus group);
+    }
+
+    private static final ComponentAccessor<ProcessorStatus> PROCESSORS = new ComponentAccessor<ProcessorStatus>() {
+        @Override
+        public Collection<ProcessorStatus> components(ProcessGroupStatus group) {
+            return group.getProcessorStatus();
+        }
+    };
+
+    private static final ComponentAccessor<ConnectionStatus> CONNECTIONS = new ComponentAccessor<ConnectionStatus>() {
+        @Override
+        public Collection<ConnectionStatus> components(ProcessGroupStatus group) {
+            return group.getConnectionStatus();
+        }
+    };
+
+    private final int parallelism;
+    private final int threshold;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param parallelism number of worker threads, 1 never creates a pool
+     * @param threshold   minimum number of components in the tree before it is walked in parallel
+     */
+    public ParallelStatusTreeTraversal(int parallelism, int threshold) {
+        this.parallelism = Math.max(1, parallelism);
+        this.threshold = threshold;
+        this.pool = this.parallelism > 1 ? new ForkJoinPool(this.parallelism) : null;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public <R> List<R> collectProcessors(ProcessGroupStatus root, Predicate<? super ProcessorStatus> filter,
+                                         Function<? super ProcessorStatus, ? extends R> projection, int sizeHint) {
+        if (pool == null) {
+            return StatusTreeTraversal.collectProcessors(root, filter, projection, Integer.MAX_VALUE, sizeHint);
+        }
+        return collect(root, PROCESSORS, filter, projection, sizeHint);
+    }
+
+    public List<ProcessorStatus> collectProcessors(ProcessGroupStatus root, Predicate<? super ProcessorStatus> filter, int sizeHint) {
+        return collectProcessors(root, filter, Function.<ProcessorStatus>identity(), sizeHint);
+    }
+
+    public <R> List<R> collectConnections(ProcessGroupStatus root, Predicate<? super ConnectionStatus> filter,
+                                          Function<? super ConnectionStatus, ? extends R> projection, int sizeHint) {
+        if (pool == null) {
+            return StatusTreeTraversal.collectConnections(root, filter, projection, Integer.MAX_VALUE, sizeHint);
+        }
+        return collect(root, CONNECTIONS, filter, projection, sizeHint);
+    }
+
+    public List<ConnectionStatus> collectConnections(ProcessGroupStatus root, Predicate<? super ConnectionStatus> filter, int sizeHint) {
+        return collectConnections(root, filter, Function.<ConnectionStatus>identity(), sizeHint);
+    }
+
+    private <C, R> List<R> collect(ProcessGroupStatus root, ComponentAccessor<C> accessor, Predicate<? super C> filter,
+                                   Function<? super C, ? extends R> projection, int sizeHint) {
+        final List<ProcessGroupStatus> groups = listGroups(root);
+
+        //offsets[i] is the number of components in the groups before group i
+        final long[] offsets = new long[groups.size() + 1];
+        for (int i = 0; i < groups.size(); i++) {
+            Collection<C> components = accessor.components(groups.get(i));
+            offsets[i + 1] = offsets[i] + (components == null ? 0 : components.size());
+        }
+
+        final long total = offsets[groups.size()];
+        final double hintRatio = total == 0 ? 0 : (double) sizeHint / total;
+
+        if (total < threshold) {
+            //Too small to be worth the pool, scan everything as a single leaf on this thread
+            return new CollectTask<C, R>(groups, offsets, 0, groups.size(), accessor, filter, projection, Long.MAX_VALUE, hintRatio).scan();
+        }
+        return pool.invoke(new CollectTask<C, R>(groups, offsets, 0, groups.size(), accessor, filter, projection,
+                Math.max(MIN_LEAF_SIZE, total / (parallelism * 4L)), hintRatio));
+    }
+
+    /**
+     * Lists the groups of the tree in the order {@link StatusTreeTraversal} visits them.
+     */
+    private static List<ProcessGroupStatus> listGroups(ProcessGroupStatus root) {
+        final List<ProcessGroupStatus> groups = new ArrayList<>();
+        final List<ProcessGroupStatus> stack = new ArrayList<>();
+        stack.add(root);
+
+        while (!stack.isEmpty()) {
+            final ProcessGroupStatus group = stack.remove(stack.size() - 1);
+            groups.add(group);
+
+            final Collection<ProcessGroupStatus> children = group.getProcessGroupStatus();
+            if (children != null && !children.isEmpty()) {
+                final int start = stack.size();
+                stack.addAll(children);
+                for (int i = start, j = stack.size() - 1; i < j; i++, j--) {
+                    stack.set(j, stack.set(i, stack.get(j)));
+                }
+            }
+        }
+        return groups;
+    }
+
+    private static final class CollectTask<C, R>
+        extends RecursiveTask<List<R>> {
+
+        private final List<ProcessGroupStatus> groups;
+        private final long[] offsets;
+        private final int from;
+        private final int to;
+        private final ComponentAccessor<C> accessor;
+        private final Predicate<? super C> filter;
+        private final Function<? super C, ? extends R> projection;
+        private final long leafSize;
+        private final double hintRatio;
+
+        private CollectTask(List<ProcessGroupStatus> groups, long[] offsets, int from, int to, ComponentAccessor<C> accessor,
+                            Predicate<? super C> filter, Function<? super C, ? extends R> projection, long leafSize, double hintRatio) {
+            this.groups = groups;
+            this.offsets = offsets;
+            this.from = from;
+            this.to = to;
+            this.accessor = accessor;
+            this.filter = filter;
+            this.projection = projection;
+            this.leafSize = leafSize;
+            this.hintRatio = hintRatio;
+        }
+
+        @Override
+        protected List<R> compute() {
+            final long size = offsets[to] - offsets[from];
+            if (size <= leafSize || to - from < 2) {
+                return scan();
+            }
+
+            //Split where half of the components of this range have been seen
+            final int mid = split(offsets[from] + size / 2);
+
+            CollectTask<C, R> left = new CollectTask<>(groups, offsets, from, mid, accessor, filter, projection, leafSize, hintRatio);
+            CollectTask<C, R> right = new CollectTask<>(groups, offsets, mid, to, accessor, filter, projection, leafSize, hintRatio);
+            left.fork();
+            List<R> rightResult = right.compute();
+            List<R> leftResult = left.join();
+
+            leftResult.addAll(rightResult);
+            return leftResult;
+        }
+
+        private int split(long target) {
+            int lo = from + 1;
+            int hi = to - 1;
+            while (lo < hi) {
+                int m = (lo + hi) >>> 1;
+                if (offsets[m] < target) {
+                    lo = m + 1;
+                } else {
+                    hi = m;
+                }
+            }
+            return lo;
+        }
+
+        private List<R> scan() {
+            final List<R> collected = new ArrayList<>(Math.max(16, (int) ((offsets[to] - offsets[from]) * hintRatio)));
+            for (int i = from; i < to; i++) {
+                Collection<C> components = accessor.components(groups.get(i));
+                if (components == null) {
+                    continue;
+                }
+                for (C component : components) {
+                    if (filter.test(component)) {
+                        collected.add(projection.apply(component));
+                    }
+                }
+            }
+            return collected;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+}
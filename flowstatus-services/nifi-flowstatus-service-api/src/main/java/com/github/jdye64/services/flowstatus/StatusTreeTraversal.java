@@ -0,0 +1,183 @@
+package com.github.jdye64.services.flowstatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.apache.nifi.controller.status.ConnectionStatus;
+import org.apache.nifi.controller.status.ProcessGroupStatus;
+import org.apache.nifi.controller.status.ProcessorStatus;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Walks a ProcessGroupStatus tree with an explicit stack rather than recursion, so arbitrarily deep flows cannot
+ * overflow the thread stack and no intermediate list is built per process group. Groups are visited in the same order
+ * as a recursive pre-order walk: the processors and connections of a group, then each child group in turn.
+ */
+public final class StatusTreeTraversal {
+
+    /**
+     * Callbacks for a traversal. Returning false from any method stops the traversal immediately.
+     */
+    public interface Visitor {
+
+        boolean visitGroup(ProcessGroupStatus group, ProcessGroupStatus parent);
+
+        boolean visitProcessor(ProcessorStatus processor);
+
+        boolean visitConnection(ConnectionStatus connection);
+    }
+
+    /**
+     * Visitor that accepts everything, override only the callbacks of interest.
+     */
+    public static class VisitorAdapter
+        implements Visitor {
+
+        @Override
+        public boolean visitGroup(ProcessGroupStatus group, ProcessGroupStatus parent) {
+            return true;
+        }
+
+        @Override
+        public boolean visitProcessor(ProcessorStatus processor) {
+            return true;
+        }
+
+        @Override
+        public boolean visitConnection(ConnectionStatus connection) {
+            return true;
+        }
+    }
+
+    private StatusTreeTraversal() {
+    }
+
+    /**
+     * Walks the tree below and including root. Returns false if the visitor stopped the traversal early.
+     */
+    public static boolean walk(ProcessGroupStatus root, Visitor visitor) {
+        final List<ProcessGroupStatus> groups = new ArrayList<>();
+        final List<ProcessGroupStatus> parents = new ArrayList<>();
+        groups.add(root);
+        parents.add(null);
+
+        while (!groups.isEmpty()) {
+            final int top = groups.size() - 1;
+            final ProcessGroupStatus group = groups.remove(top);
+            final ProcessGroupStatus parent = parents.remove(top);
+
+            if (!visitor.visitGroup(group, parent)) {
+                return false;
+            }
+
+            final Collection<ProcessorStatus> processors = group.getProcessorStatus();
+            if (processors != null) {
+                for (ProcessorStatus ps : processors) {
+                    if (!visitor.visitProcessor(ps)) {
+                        return false;
+                    }
+                }
+            }
+
+            final Collection<ConnectionStatus> connections = group.getConnectionStatus();
+            if (connections != null) {
+                for (ConnectionStatus cs : connections) {
+                    if (!visitor.visitConnection(cs)) {
+                        return false;
+                    }
+                }
+            }
+
+            final Collection<ProcessGroupStatus> children = group.getProcessGroupStatus();
+            if (children != null && !children.isEmpty()) {
+                final int start = groups.size();
+                for (ProcessGroupStatus child : children) {
+                    groups.add(child);
+                    parents.add(group);
+                }
+                //Reverse the children just pushed so the first child is popped first
+                for (int i = start, j = groups.size() - 1; i < j; i++, j--) {
+                    groups.set(j, groups.set(i, groups.get(j)));
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Collects the processors matching filter, stopping after limit matches.
+     *
+     * @param sizeHint expected number of matches used to pre-size the result, the size of the previous run is a good guess
+     */
+    public static <R> List<R> collectProcessors(ProcessGroupStatus root, final Predicate<? super ProcessorStatus> filter,
+                                                final Function<? super ProcessorStatus, ? extends R> projection, final int limit, int sizeHint) {
+        final List<R> collected = new ArrayList<>(Math.max(sizeHint, 16));
+        if (limit <= 0) {
+            return collected;
+        }
+
+        walk(root, new VisitorAdapter() {
+            @Override
+            public boolean visitProcessor(ProcessorStatus processor) {
+                if (filter.test(processor)) {
+                    collected.add(projection.apply(processor));
+                }
+                return collected.size() < limit;
+            }
+        });
+        return collected;
+    }
+
+    public static List<ProcessorStatus> collectProcessors(ProcessGroupStatus root, Predicate<? super ProcessorStatus> filter, int sizeHint) {
+        return collectProcessors(root, filter, Function.<ProcessorStatus>identity(), Integer.MAX_VALUE, sizeHint);
+    }
+
+    /**
+     * Collects the connections matching filter, stopping after limit matches.
+     *
+     * @param sizeHint expected number of matches used to pre-size the result, the size of the previous run is a good guess
+     */
+    public static <R> List<R> collectConnections(ProcessGroupStatus root, final Predicate<? super ConnectionStatus> filter,
+                                                 final Function<? super ConnectionStatus, ? extends R> projection, final int limit, int sizeHint) {
+        final List<R> collected = new ArrayList<>(Math.max(sizeHint, 16));
+        if (limit <= 0) {
+            return collected;
+        }
+
+        walk(root, new VisitorAdapter() {
+            @Override
+            public boolean visitConnection(ConnectionStatus connection) {
+                if (filter.test(connection)) {
+                    collected.add(projection.apply(connection));
+                }
+                return collected.size() < limit;
+            }
+        });
+        return collected;
+    }
+
+    public static List<ConnectionStatus> collectConnections(ProcessGroupStatus root, Predicate<? super ConnectionStatus> filter, int sizeHint) {
+        return collectConnections(root, filter, Function.<ConnectionStatus>identity(), Integer.MAX_VALUE, sizeHint);
+    }
+}
@@ -0,0 +1,263 @@
+package com.github.jdye64.services.flowstatus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.apache.nifi.controller.status.ConnectionStatus;
+import org.apache.nifi.controller.status.ProcessGroupStatus;
+import org.apache.nifi.controller.status.ProcessorStatus;
+import org.apache.nifi.controller.status.RunStatus;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestStatusTreeTraversal {
+
+    //4 branches of 6 nested groups, each group holding 50 processors and 50 connections
+    private static final int BRANCHES = 4;
+    private static final int DEPTH = 6;
+    private static final int COMPONENTS_PER_GROUP = 100;
+
+    //The benchmark tree: 40 branches of 25 nested groups, ~100k components
+    private static final int BENCHMARK_BRANCHES = 40;
+    private static final int BENCHMARK_DEPTH = 25;
+    private static final int BENCHMARK_ITERATIONS = 20;
+
+    private static final Predicate<ProcessorStatus> ALL = new Predicate<ProcessorStatus>() {
+        @Override
+        public boolean test(ProcessorStatus ps) {
+            return true;
+        }
+    };
+
+    private static final Predicate<ProcessorStatus> RUNNING = new Predicate<ProcessorStatus>() {
+        @Override
+        public boolean test(ProcessorStatus ps) {
+            return ps.getRunStatus() == RunStatus.Running;
+        }
+    };
+
+    private ProcessGroupStatus root;
+
+    @Before
+    public void init() {
+        root = tree(BRANCHES, DEPTH);
+    }
+
+    private static ProcessGroupStatus tree(int branches, int depth) {
+        ProcessGroupStatus root = group("root");
+        List<ProcessGroupStatus> rootChildren = new ArrayList<>();
+        for (int b = 0; b < branches; b++) {
+            ProcessGroupStatus parent = group("b" + b);
+            rootChildren.add(parent);
+            for (int d = 1; d < depth; d++) {
+                ProcessGroupStatus child = group("b" + b + "-d" + d);
+                List<ProcessGroupStatus> children = new ArrayList<>();
+                children.add(child);
+                parent.setProcessGroupStatus(children);
+                parent = child;
+            }
+        }
+        root.setProcessGroupStatus(rootChildren);
+        return root;
+    }
+
+    private static ProcessGroupStatus group(String id) {
+        ProcessGroupStatus group = new ProcessGroupStatus();
+        group.setId(id);
+
+        List<ProcessorStatus> processors = new ArrayList<>();
+        List<ConnectionStatus> connections = new ArrayList<>();
+        for (int i = 0; i < COMPONENTS_PER_GROUP / 2; i++) {
+            ProcessorStatus ps = new ProcessorStatus();
+            ps.setId(id + "-p" + i);
+            ps.setGroupId(id);
+            ps.setRunStatus(RunStatus.values()[i % RunStatus.values().length]);
+            processors.add(ps);
+
+            ConnectionStatus cs = new ConnectionStatus();
+            cs.setId(id + "-c" + i);
+            cs.setGroupId(id);
+            cs.setBackPressureObjectThreshold(i * 100);
+            connections.add(cs);
+        }
+        group.setProcessorStatus(processors);
+        group.setConnectionStatus(connections);
+        return group;
+    }
+
+    //The per-group list and addAll walk the traversal replaced, kept as the reference for order and timing
+    private static List<ProcessorStatus> recursiveProcessorLocate(ProcessGroupStatus status, RunStatus runStatus) {
+        List<ProcessorStatus> processors = new ArrayList<>();
+
+        Iterator<ProcessorStatus> itr = status.getProcessorStatus().iterator();
+        while (itr.hasNext()) {
+            ProcessorStatus ps = itr.next();
+            if (runStatus == null || ps.getRunStatus() == runStatus) {
+                processors.add(ps);
+            }
+        }
+
+        Iterator<ProcessGroupStatus> pgitr = status.getProcessGroupStatus().iterator();
+        while (pgitr.hasNext()) {
+            processors.addAll(recursiveProcessorLocate(pgitr.next(), runStatus));
+        }
+        return processors;
+    }
+
+    private static void assertSameProcessors(List<ProcessorStatus> expected, List<ProcessorStatus> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i));
+        }
+    }
+
+    @Test
+    public void testSameOrderAsRecursiveWalk() {
+        assertSameProcessors(recursiveProcessorLocate(root, RunStatus.Running), StatusTreeTraversal.collectProcessors(root, RUNNING, 0));
+        assertSameProcessors(recursiveProcessorLocate(root, null), StatusTreeTraversal.collectProcessors(root, ALL, 0));
+    }
+
+    @Test
+    public void testVisitsEveryComponent() {
+        final int[] counts = new int[3];
+        StatusTreeTraversal.walk(root, new StatusTreeTraversal.Visitor() {
+            @Override
+            public boolean visitGroup(ProcessGroupStatus group, ProcessGroupStatus parent) {
+                counts[0]++;
+                return true;
+            }
+
+            @Override
+            public boolean visitProcessor(ProcessorStatus processor) {
+                counts[1]++;
+                return true;
+            }
+
+            @Override
+            public boolean visitConnection(ConnectionStatus connection) {
+                counts[2]++;
+                return true;
+            }
+        });
+
+        int groups = 1 + BRANCHES * DEPTH;
+        assertEquals(groups, counts[0]);
+        assertEquals(groups * COMPONENTS_PER_GROUP, counts[1] + counts[2]);
+    }
+
+    @Test
+    public void testEarlyStopAndProjection() {
+        List<String> ids = StatusTreeTraversal.collectProcessors(root, RUNNING, new Function<ProcessorStatus, String>() {
+            @Override
+            public String apply(ProcessorStatus ps) {
+                return ps.getId();
+            }
+        }, 10, 10);
+
+        List<ProcessorStatus> expected = recursiveProcessorLocate(root, RunStatus.Running);
+        assertEquals(10, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(expected.get(i).getId(), ids.get(i));
+        }
+
+        List<ConnectionStatus> pressured = StatusTreeTraversal.collectConnections(root, new Predicate<ConnectionStatus>() {
+            @Override
+            public boolean test(ConnectionStatus cs) {
+                return cs.getBackPressureObjectThreshold() >= (COMPONENTS_PER_GROUP / 2 - 1) * 100;
+            }
+        }, 0);
+        assertEquals(1 + BRANCHES * DEPTH, pressured.size());
+    }
+
+    @Test
+    public void testParallelMatchesSequentialOrder() {
+        List<ProcessorStatus> expected = StatusTreeTraversal.collectProcessors(root, RUNNING, 0);
+
+        ParallelStatusTreeTraversal parallel = new ParallelStatusTreeTraversal(4, 1);
+        try {
+            for (int run = 0; run < 3; run++) {
+                assertSameProcessors(expected, parallel.collectProcessors(root, RUNNING, expected.size()));
+            }
+        } finally {
+            parallel.close();
+        }
+
+        //Below the threshold the tree is walked on the calling thread
+        ParallelStatusTreeTraversal small = new ParallelStatusTreeTraversal(4, Integer.MAX_VALUE);
+        try {
+            assertEquals(expected, small.collectProcessors(root, RUNNING, 0));
+        } finally {
+            small.close();
+        }
+    }
+
+    @Test
+    public void testDeepNestingDoesNotOverflowStack() {
+        ProcessGroupStatus deepRoot = group("deep");
+        ProcessGroupStatus parent = deepRoot;
+        for (int d = 1; d < 20000; d++) {
+            ProcessGroupStatus child = new ProcessGroupStatus();
+            child.setId("deep-" + d);
+            List<ProcessGroupStatus> children = new ArrayList<>();
+            children.add(child);
+            parent.setProcessGroupStatus(children);
+            parent = child;
+        }
+
+        assertEquals(COMPONENTS_PER_GROUP / 2, StatusTreeTraversal.collectProcessors(deepRoot, ALL, 0).size());
+    }
+
+    /*
+     * The benchmarks only run with -Dflowstatus.benchmark=true. Both walk the same ~100k component tree and check their
+     * result against the other walk, compare their times in the surefire report.
+     */
+
+    @Test
+    public void testBenchmarkRecursiveWalk() {
+        assumeTrue(Boolean.getBoolean("flowstatus.benchmark"));
+
+        ProcessGroupStatus large = tree(BENCHMARK_BRANCHES, BENCHMARK_DEPTH);
+        List<ProcessorStatus> expected = StatusTreeTraversal.collectProcessors(large, ALL, 0);
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            assertSameProcessors(expected, recursiveProcessorLocate(large, null));
+        }
+    }
+
+    @Test
+    public void testBenchmarkIterativeWalk() {
+        assumeTrue(Boolean.getBoolean("flowstatus.benchmark"));
+
+        ProcessGroupStatus large = tree(BENCHMARK_BRANCHES, BENCHMARK_DEPTH);
+        List<ProcessorStatus> expected = recursiveProcessorLocate(large, null);
+        for (int i = 0; i < BENCHMARK_ITERATIONS; i++) {
+            assertSameProcessors(expected, StatusTreeTraversal.collectProcessors(large, ALL, expected.size()));
+        }
+    }
+}
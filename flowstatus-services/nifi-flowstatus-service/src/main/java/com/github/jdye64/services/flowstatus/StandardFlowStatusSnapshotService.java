@@ -0,0 +1,118 @@
+package com.github.jdye64.services.flowstatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.annotation.documentation.CapabilityDescription;
+import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnDisabled;
+import org.apache.nifi.annotation.lifecycle.OnEnabled;
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.controller.AbstractControllerService;
+import org.apache.nifi.controller.ConfigurationContext;
+import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.reporting.EventAccess;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+@Tags({"flow", "status", "snapshot", "cache"})
+@CapabilityDescription("Fetches the NiFi controller status at most once per Snapshot TTL and shares an indexed snapshot of it " +
+        "between every reporting task referencing this service, rather than each task walking the whole status tree on every run")
+public class StandardFlowStatusSnapshotService
+    extends AbstractControllerService
+    implements FlowStatusSnapshotService {
+
+    public static final PropertyDescriptor SNAPSHOT_TTL = new PropertyDescriptor
+            .Builder().name("Snapshot TTL")
+            .description("How long a snapshot is handed out before the controller status is fetched again. Reporting tasks " +
+                    "scheduled at roughly the same time within this window will all see the same snapshot")
+            .required(true)
+            .defaultValue("30 secs")
+            .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
+            .build();
+
+    private static final List<PropertyDescriptor> PROPERTIES;
+
+    static {
+        final List<PropertyDescriptor> properties = new ArrayList<>();
+        properties.add(SNAPSHOT_TTL);
+        PROPERTIES = Collections.unmodifiableList(properties);
+    }
+
+    private static final class CachedSnapshot {
+
+        private final FlowStatusSnapshot snapshot;
+        private final long createdNanos;
+
+        private CachedSnapshot(FlowStatusSnapshot snapshot, long createdNanos) {
+            this.snapshot = snapshot;
+            this.createdNanos = createdNanos;
+        }
+    }
+
+    private final Object refreshLock = new Object();
+
+    private volatile long ttlNanos;
+    private volatile CachedSnapshot cached;
+
+    @Override
+    protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
+        return PROPERTIES;
+    }
+
+    @OnEnabled
+    public void onEnabled(final ConfigurationContext context) {
+        ttlNanos = context.getProperty(SNAPSHOT_TTL).asTimePeriod(TimeUnit.NANOSECONDS);
+        cached = null;
+    }
+
+    @OnDisabled
+    public void onDisabled() {
+        cached = null;
+    }
+
+    @Override
+    public FlowStatusSnapshot getSnapshot(EventAccess eventAccess) {
+        CachedSnapshot current = cached;
+        if (isFresh(current)) {
+            return current.snapshot;
+        }
+
+        //Only one caller pays for the refresh, the others wait and pick up its result
+        synchronized (refreshLock) {
+            current = cached;
+            if (isFresh(current)) {
+                return current.snapshot;
+            }
+
+            FlowStatusSnapshot snapshot = FlowStatusSnapshot.index(eventAccess.getControllerStatus());
+            cached = new CachedSnapshot(snapshot, System.nanoTime());
+            getLogger().debug("Refreshed flow status snapshot with {} processors and {} connections",
+                    new Object[]{snapshot.getProcessors().size(), snapshot.getConnections().size()});
+            return snapshot;
+        }
+    }
+
+    private boolean isFresh(CachedSnapshot snapshot) {
+        return snapshot != null && System.nanoTime() - snapshot.createdNanos < ttlNanos;
+    }
+}
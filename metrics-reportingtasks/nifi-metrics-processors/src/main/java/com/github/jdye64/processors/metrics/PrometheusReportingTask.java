@@ -0,0 +1,479 @@
+package com.github.jdye64.processors.metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.nifi.annotation.documentation.CapabilityDescription;
+import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.controller.ConfigurationContext;
+import org.apache.nifi.controller.status.ConnectionStatus;
+import org.apache.nifi.controller.status.ProcessGroupStatus;
+import org.apache.nifi.controller.status.ProcessorStatus;
+import org.apache.nifi.controller.status.RunStatus;
+import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.reporting.AbstractReportingTask;
+import org.apache.nifi.reporting.ReportingContext;
+
+import com.github.jdye64.services.flowstatus.StatusTreeTraversal;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+@Tags({"prometheus", "metrics", "http", "pull"})
+@CapabilityDescription("Serves connection, processor and process group metrics in the Prometheus text exposition format from an" +
+        " embedded HTTP listener at /metrics. The exposition is rendered each time the task runs, scrapes only copy the last" +
+        " rendered bytes and never walk the flow")
+public class PrometheusReportingTask
+    extends AbstractReportingTask {
+
+    static final String METRICS_PATH = "/metrics";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    static final PropertyDescriptor LISTEN_HOST = new PropertyDescriptor.Builder()
+            .name("Listen Host")
+            .description("Host name or address the metrics listener binds to. Only local clients can scrape the default, set it to" +
+                    " 0.0.0.0 or the address of an interface the Prometheus server can reach to serve the metrics remotely")
+            .required(true)
+            .defaultValue("localhost")
+            .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
+            .build();
+
+    static final PropertyDescriptor LISTEN_PORT = new PropertyDescriptor.Builder()
+            .name("Listen Port")
+            .description("Port the metrics listener binds to")
+            .required(true)
+            .defaultValue("9798")
+            .addValidator(StandardValidators.PORT_VALIDATOR)
+            .build();
+
+    private enum ProcessorMetric {
+        RUNNING("nifi_processor_running", "1 if the processor is running, 0 otherwise"),
+        ACTIVE_THREADS("nifi_processor_active_threads", "Threads currently executing the processor"),
+        INVOCATIONS("nifi_processor_invocations", "Invocations over the rolling status window"),
+        PROCESSING_NANOS("nifi_processor_processing_nanos", "Processing time in nanoseconds over the rolling status window"),
+        INPUT_COUNT("nifi_processor_input_count", "FlowFiles received over the rolling status window"),
+        OUTPUT_COUNT("nifi_processor_output_count", "FlowFiles transferred over the rolling status window"),
+        BYTES_READ("nifi_processor_bytes_read", "Bytes read over the rolling status window"),
+        BYTES_WRITTEN("nifi_processor_bytes_written", "Bytes written over the rolling status window");
+
+        private final String metricName;
+        private final String help;
+
+        ProcessorMetric(String metricName, String help) {
+            this.metricName = metricName;
+            this.help = help;
+        }
+
+        long value(ProcessorStatus ps) {
+            switch (this) {
+                case RUNNING:
+                    return ps.getRunStatus() == RunStatus.Running ? 1 : 0;
+                case ACTIVE_THREADS:
+                    return ps.getActiveThreadCount();
+                case INVOCATIONS:
+                    return ps.getInvocations();
+                case PROCESSING_NANOS:
+                    return ps.getProcessingNanos();
+                case INPUT_COUNT:
+                    return ps.getInputCount();
+                case OUTPUT_COUNT:
+                    return ps.getOutputCount();
+                case BYTES_READ:
+                    return ps.getBytesRead();
+                case BYTES_WRITTEN:
+                    return ps.getBytesWritten();
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    private enum ConnectionMetric {
+        QUEUED_COUNT("nifi_connection_queued_count", "FlowFiles queued in the connection"),
+        QUEUED_BYTES("nifi_connection_queued_bytes", "Bytes queued in the connection"),
+        BACKPRESSURE_OBJECT_THRESHOLD("nifi_connection_backpressure_object_threshold", "Queued FlowFiles at which back pressure is applied"),
+        BACKPRESSURE_BYTES_THRESHOLD("nifi_connection_backpressure_bytes_threshold", "Queued bytes at which back pressure is applied"),
+        INPUT_COUNT("nifi_connection_input_count", "FlowFiles enqueued over the rolling status window"),
+        OUTPUT_COUNT("nifi_connection_output_count", "FlowFiles dequeued over the rolling status window");
+
+        private final String metricName;
+        private final String help;
+
+        ConnectionMetric(String metricName, String help) {
+            this.metricName = metricName;
+            this.help = help;
+        }
+
+        long value(ConnectionStatus cs) {
+            switch (this) {
+                case QUEUED_COUNT:
+                    return cs.getQueuedCount();
+                case QUEUED_BYTES:
+                    return cs.getQueuedBytes();
+                case BACKPRESSURE_OBJECT_THRESHOLD:
+                    return cs.getBackPressureObjectThreshold();
+                case BACKPRESSURE_BYTES_THRESHOLD:
+                    return cs.getBackPressureBytesThreshold();
+                case INPUT_COUNT:
+                    return cs.getInputCount();
+                case OUTPUT_COUNT:
+                    return cs.getOutputCount();
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    private enum GroupMetric {
+        ACTIVE_THREADS("nifi_process_group_active_threads", "Threads currently executing components of the group"),
+        QUEUED_COUNT("nifi_process_group_queued_count", "FlowFiles queued in the group"),
+        QUEUED_BYTES("nifi_process_group_queued_bytes", "Bytes queued in the group"),
+        INPUT_COUNT("nifi_process_group_input_count", "FlowFiles received by the group over the rolling status window"),
+        OUTPUT_COUNT("nifi_process_group_output_count", "FlowFiles sent by the group over the rolling status window");
+
+        private final String metricName;
+        private final String help;
+
+        GroupMetric(String metricName, String help) {
+            this.metricName = metricName;
+            this.help = help;
+        }
+
+        long value(ProcessGroupStatus pgs) {
+            switch (this) {
+                case ACTIVE_THREADS:
+                    return pgs.getActiveThreadCount();
+                case QUEUED_COUNT:
+                    return toLong(pgs.getQueuedCount());
+                case QUEUED_BYTES:
+                    return toLong(pgs.getQueuedContentSize());
+                case INPUT_COUNT:
+                    return toLong(pgs.getInputCount());
+                case OUTPUT_COUNT:
+                    return toLong(pgs.getOutputCount());
+                default:
+                    return 0;
+            }
+        }
+
+        private static long toLong(Number number) {
+            return number == null ? 0 : number.longValue();
+        }
+    }
+
+    /**
+     * Rendered exposition. Two of these are swapped between renders; readers pin the one they serve so a render never
+     * reuses a buffer that is still being written to a client.
+     */
+    static final class Exposition
+        extends ByteArrayOutputStream {
+
+        final AtomicInteger readers = new AtomicInteger();
+
+        Exposition() {
+            super(64 * 1024);
+        }
+
+        void writeTo(OutputStream out, int offset) throws IOException {
+            out.write(buf, offset, count - offset);
+        }
+    }
+
+    volatile Exposition front = new Exposition();
+    Exposition back = new Exposition();
+
+    private final AtomicLong scrapes = new AtomicLong();
+    private final AtomicLong renders = new AtomicLong();
+    private volatile long lastRenderNanos;
+
+    private volatile HttpServer server;
+    private volatile ExecutorService serverExecutor;
+
+    @Override
+    protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
+        final List<PropertyDescriptor> properties = new ArrayList<>();
+        properties.add(LISTEN_HOST);
+        properties.add(LISTEN_PORT);
+        return properties;
+    }
+
+    @OnScheduled
+    public void startServer(final ConfigurationContext context) throws IOException {
+        final InetSocketAddress address = new InetSocketAddress(context.getProperty(LISTEN_HOST).getValue(),
+                context.getProperty(LISTEN_PORT).asInteger());
+
+        serverExecutor = Executors.newFixedThreadPool(2, new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "PrometheusListener-" + getIdentifier() + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        server = HttpServer.create(address, 0);
+        server.setExecutor(serverExecutor);
+        server.createContext(METRICS_PATH, new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                serve(exchange);
+            }
+        });
+        server.start();
+        getLogger().info("Serving Prometheus metrics on {}{}", new Object[]{server.getAddress(), METRICS_PATH});
+    }
+
+    @OnStopped
+    public void stopServer() {
+        final HttpServer current = server;
+        server = null;
+        if (current != null) {
+            current.stop(1);
+        }
+
+        final ExecutorService executor = serverExecutor;
+        serverExecutor = null;
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void onTrigger(ReportingContext reportingContext) {
+        final long start = System.nanoTime();
+
+        final List<ProcessGroupStatus> groups = new ArrayList<>();
+        final List<ProcessorStatus> processors = new ArrayList<>();
+        final List<ConnectionStatus> connections = new ArrayList<>();
+        StatusTreeTraversal.walk(reportingContext.getEventAccess().getControllerStatus(), new StatusTreeTraversal.Visitor() {
+            @Override
+            public boolean visitGroup(ProcessGroupStatus group, ProcessGroupStatus parent) {
+                groups.add(group);
+                return true;
+            }
+
+            @Override
+            public boolean visitProcessor(ProcessorStatus processor) {
+                processors.add(processor);
+                return true;
+            }
+
+            @Override
+            public boolean visitConnection(ConnectionStatus connection) {
+                connections.add(connection);
+                return true;
+            }
+        });
+
+        //Never render into a buffer a scrape is still sending
+        Exposition target = back;
+        if (target.readers.get() != 0) {
+            target = new Exposition();
+        }
+        target.reset();
+
+        try {
+            render(target, groups, processors, connections);
+        } catch (IOException e) {
+            getLogger().error("Error rendering Prometheus metrics: {}", new Object[]{e.getMessage()}, e);
+            return;
+        }
+
+        back = front;
+        front = target;
+
+        renders.incrementAndGet();
+        lastRenderNanos = System.nanoTime() - start;
+    }
+
+    private void render(Exposition target, List<ProcessGroupStatus> groups, List<ProcessorStatus> processors,
+                        List<ConnectionStatus> connections) throws IOException {
+        final Writer writer = new OutputStreamWriter(target, StandardCharsets.UTF_8);
+
+        //Labels are built once per component and shared by all of its samples
+        String[] labels = new String[groups.size()];
+        for (int i = 0; i < labels.length; i++) {
+            ProcessGroupStatus pgs = groups.get(i);
+            labels[i] = labels("id", pgs.getId(), "name", pgs.getName());
+        }
+        for (GroupMetric metric : GroupMetric.values()) {
+            header(writer, metric.metricName, metric.help);
+            for (int i = 0; i < labels.length; i++) {
+                sample(writer, metric.metricName, labels[i], metric.value(groups.get(i)));
+            }
+        }
+
+        labels = new String[processors.size()];
+        for (int i = 0; i < labels.length; i++) {
+            ProcessorStatus ps = processors.get(i);
+            labels[i] = labels("id", ps.getId(), "name", ps.getName(), "group_id", ps.getGroupId(), "type", ps.getType());
+        }
+        for (ProcessorMetric metric : ProcessorMetric.values()) {
+            header(writer, metric.metricName, metric.help);
+            for (int i = 0; i < labels.length; i++) {
+                sample(writer, metric.metricName, labels[i], metric.value(processors.get(i)));
+            }
+        }
+
+        labels = new String[connections.size()];
+        for (int i = 0; i < labels.length; i++) {
+            ConnectionStatus cs = connections.get(i);
+            labels[i] = labels("id", cs.getId(), "name", cs.getName(), "group_id", cs.getGroupId(),
+                    "source_name", cs.getSourceName(), "destination_name", cs.getDestinationName());
+        }
+        for (ConnectionMetric metric : ConnectionMetric.values()) {
+            header(writer, metric.metricName, metric.help);
+            for (int i = 0; i < labels.length; i++) {
+                sample(writer, metric.metricName, labels[i], metric.value(connections.get(i)));
+            }
+        }
+
+        writer.flush();
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            scrapes.incrementAndGet();
+
+            //Pin the current exposition, retrying if a render swapped it out in the meantime
+            Exposition exposition;
+            while (true) {
+                exposition = front;
+                exposition.readers.incrementAndGet();
+                if (exposition == front) {
+                    break;
+                }
+                exposition.readers.decrementAndGet();
+            }
+
+            try {
+                final byte[] self = selfMetrics().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, exposition.size() + self.length);
+
+                OutputStream body = exchange.getResponseBody();
+                exposition.writeTo(body, 0);
+                body.write(self);
+                body.flush();
+            } finally {
+                exposition.readers.decrementAndGet();
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private String selfMetrics() {
+        StringBuilder builder = new StringBuilder(512);
+        builder.append("# HELP nifi_exporter_scrapes_total Scrapes served by this reporting task\n")
+                .append("# TYPE nifi_exporter_scrapes_total counter\n")
+                .append("nifi_exporter_scrapes_total ").append(scrapes.get()).append('\n')
+                .append("# HELP nifi_exporter_renders_total Times the exposition has been rendered\n")
+                .append("# TYPE nifi_exporter_renders_total counter\n")
+                .append("nifi_exporter_renders_total ").append(renders.get()).append('\n')
+                .append("# HELP nifi_exporter_render_seconds Time taken by the last render\n")
+                .append("# TYPE nifi_exporter_render_seconds gauge\n")
+                .append("nifi_exporter_render_seconds ").append(lastRenderNanos / 1e9).append('\n');
+        return builder.toString();
+    }
+
+    private static void header(Writer writer, String name, String help) throws IOException {
+        writer.write("# HELP ");
+        writer.write(name);
+        writer.write(' ');
+        writer.write(help);
+        writer.write("\n# TYPE ");
+        writer.write(name);
+        writer.write(" gauge\n");
+    }
+
+    private static void sample(Writer writer, String name, String labels, long value) throws IOException {
+        writer.write(name);
+        writer.write(labels);
+        writer.write(' ');
+        writer.write(Long.toString(value));
+        writer.write('\n');
+    }
+
+    private static String labels(String... namesAndValues) {
+        StringBuilder builder = new StringBuilder(128).append('{');
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(namesAndValues[i]).append("=\"");
+            escape(builder, namesAndValues[i + 1]);
+            builder.append('"');
+        }
+        return builder.append('}').toString();
+    }
+
+    private static void escape(StringBuilder builder, String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                default:
+                    builder.append(c);
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.github.jdye64.processors.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.nifi.controller.ConfigurationContext;
+import org.apache.nifi.controller.status.ConnectionStatus;
+import org.apache.nifi.controller.status.ProcessGroupStatus;
+import org.apache.nifi.controller.status.ProcessorStatus;
+import org.apache.nifi.controller.status.RunStatus;
+import org.apache.nifi.reporting.EventAccess;
+import org.apache.nifi.reporting.ReportingContext;
+import org.apache.nifi.util.MockPropertyValue;
+import org.apache.nifi.util.MockReportingInitializationContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestPrometheusReportingTask {
+
+    private PrometheusReportingTask task;
+    private ProcessGroupStatus root;
+    private ReportingContext context;
+
+    @Before
+    public void init() throws Exception {
+        task = new PrometheusReportingTask();
+        task.initialize(new MockReportingInitializationContext());
+
+        root = new ProcessGroupStatus();
+        root.setId("root");
+        root.setName("NiFi Flow");
+
+        EventAccess eventAccess = mock(EventAccess.class);
+        when(eventAccess.getControllerStatus()).thenReturn(root);
+        context = mock(ReportingContext.class);
+        when(context.getEventAccess()).thenReturn(eventAccess);
+    }
+
+    @After
+    public void stop() {
+        task.stopServer();
+    }
+
+    private void setConnections(String... idsAndQueuedCounts) {
+        List<ConnectionStatus> connections = new ArrayList<>();
+        for (int i = 0; i < idsAndQueuedCounts.length; i += 2) {
+            ConnectionStatus cs = new ConnectionStatus();
+            cs.setId(idsAndQueuedCounts[i]);
+            cs.setName("success");
+            cs.setGroupId("root");
+            cs.setSourceName("GetFile");
+            cs.setDestinationName("PutFile");
+            cs.setQueuedCount(Integer.parseInt(idsAndQueuedCounts[i + 1]));
+            connections.add(cs);
+        }
+        root.setConnectionStatus(connections);
+    }
+
+    private static String content(PrometheusReportingTask.Exposition exposition) throws Exception {
+        return exposition.toString("UTF-8");
+    }
+
+    @Test
+    public void testExposition() throws Exception {
+        ProcessorStatus ps = new ProcessorStatus();
+        ps.setId("p1");
+        ps.setName("Log \"all\" attributes");
+        ps.setGroupId("root");
+        ps.setType("LogAttribute");
+        ps.setRunStatus(RunStatus.Running);
+        List<ProcessorStatus> processors = new ArrayList<>();
+        processors.add(ps);
+        root.setProcessorStatus(processors);
+        setConnections("c1", "5");
+
+        task.onTrigger(context);
+
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        ConfigurationContext configurationContext = mock(ConfigurationContext.class);
+        when(configurationContext.getProperty(PrometheusReportingTask.LISTEN_HOST)).thenReturn(new MockPropertyValue("localhost"));
+        when(configurationContext.getProperty(PrometheusReportingTask.LISTEN_PORT)).thenReturn(new MockPropertyValue(String.valueOf(port)));
+        task.startServer(configurationContext);
+
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + port + PrometheusReportingTask.METRICS_PATH).openConnection();
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("text/plain; version=0.0.4; charset=utf-8", connection.getHeaderField("Content-Type"));
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = connection.getInputStream()) {
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                body.write(buffer, 0, n);
+            }
+        }
+        String exposition = body.toString("UTF-8");
+
+        assertTrue(exposition.contains("# HELP nifi_connection_queued_count FlowFiles queued in the connection\n" +
+                "# TYPE nifi_connection_queued_count gauge\n" +
+                "nifi_connection_queued_count{id=\"c1\",name=\"success\",group_id=\"root\",source_name=\"GetFile\",destination_name=\"PutFile\"} 5\n"));
+        assertTrue(exposition.contains("nifi_processor_running{id=\"p1\",name=\"Log \\\"all\\\" attributes\",group_id=\"root\",type=\"LogAttribute\"} 1\n"));
+        assertTrue(exposition.contains("nifi_process_group_queued_count{id=\"root\",name=\"NiFi Flow\"} "));
+        assertTrue(exposition.contains("nifi_exporter_scrapes_total 1\n"));
+        assertTrue(exposition.contains("nifi_exporter_renders_total 1\n"));
+
+        HttpURLConnection post = (HttpURLConnection) new URL("http://localhost:" + port + PrometheusReportingTask.METRICS_PATH).openConnection();
+        post.setRequestMethod("POST");
+        assertEquals(405, post.getResponseCode());
+    }
+
+    @Test
+    public void testRenderSwapsBuffers() throws Exception {
+        setConnections("c1", "5", "c2", "6");
+        task.onTrigger(context);
+        PrometheusReportingTask.Exposition first = task.front;
+
+        setConnections("c1", "7");
+        task.onTrigger(context);
+        PrometheusReportingTask.Exposition second = task.front;
+        assertNotSame(first, second);
+        assertSame(first, task.back);
+
+        //The buffer of the render before last is reused and holds nothing of its previous content
+        setConnections("c1", "8");
+        task.onTrigger(context);
+        assertSame(first, task.front);
+        assertSame(second, task.back);
+        assertTrue(content(first).contains("{id=\"c1\",name=\"success\",group_id=\"root\",source_name=\"GetFile\",destination_name=\"PutFile\"} 8\n"));
+        assertFalse(content(first).contains("c2"));
+    }
+
+    @Test
+    public void testPinnedBufferNotReused() throws Exception {
+        setConnections("c1", "5");
+        task.onTrigger(context);
+        setConnections("c1", "6");
+        task.onTrigger(context);
+
+        //A scrape still sending the previous exposition keeps it from being rendered into
+        PrometheusReportingTask.Exposition pinned = task.back;
+        String pinnedContent = content(pinned);
+        pinned.readers.incrementAndGet();
+
+        setConnections("c1", "7");
+        task.onTrigger(context);
+        assertNotSame(pinned, task.front);
+        assertEquals(pinnedContent, content(pinned));
+        assertTrue(content(task.front).contains("} 7\n"));
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.jdye64.processors.provenance;
+
+import java.util.Arrays;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Mergeable quantile sketch for non-negative longs such as durations and sizes. Values are counted in logarithmic
+ * buckets so any quantile is answered within {@link #RELATIVE_ACCURACY} of the true value and two sketches merge by
+ * adding their bucket counts. Bucket 0 holds zeros, bucket i holds values in (gamma^(i-2), gamma^(i-1)]. Only the
+ * buckets up to the largest value seen are allocated, a sketch of millisecond durations stays at a few hundred longs.
+ */
+public class DurationSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.02;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private long[] buckets = new long[0];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    /**
+     * Adds a value, negative values mean unknown in provenance and are ignored.
+     */
+    public void add(long value) {
+        if (value < 0) {
+            return;
+        }
+        increment(bucketIndex(value), 1);
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public void merge(DurationSketch other) {
+        if (other.count == 0) {
+            return;
+        }
+        for (int i = 0; i < other.buckets.length; i++) {
+            if (other.buckets[i] > 0) {
+                increment(i, other.buckets[i]);
+            }
+        }
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Value at the given quantile between 0 and 1, or -1 if nothing has been added.
+     */
+    public long quantile(double quantile) {
+        if (count == 0) {
+            return -1;
+        }
+        long rank = (long) (quantile * (count - 1));
+        if (rank >= count - 1) {
+            return max;
+        }
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen > rank) {
+                return Math.max(min, Math.min(max, bucketValue(i)));
+            }
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public long getMin() {
+        return count == 0 ? -1 : min;
+    }
+
+    public long getMax() {
+        return count == 0 ? -1 : max;
+    }
+
+    /**
+     * Non empty buckets as index, count pairs. Feeding them back through {@link #addBucket(int, long)} rebuilds the
+     * bucket counts so rollups written out can still be merged.
+     */
+    public long[] getBuckets() {
+        long[] pairs = new long[2 * buckets.length];
+        int size = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] > 0) {
+                pairs[size++] = i;
+                pairs[size++] = buckets[i];
+            }
+        }
+        return Arrays.copyOf(pairs, size);
+    }
+
+    /**
+     * Adds count values to a bucket as returned by {@link #getBuckets()}. Count, sum, min and max are estimated from the
+     * bucket boundaries.
+     */
+    public void addBucket(int index, long count) {
+        if (count <= 0) {
+            return;
+        }
+        long value = bucketValue(index);
+        increment(index, count);
+        this.count += count;
+        sum += value * count;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    private void increment(int index, long amount) {
+        if (index >= buckets.length) {
+            buckets = Arrays.copyOf(buckets, Math.max(index + 1, buckets.length + buckets.length / 2));
+        }
+        buckets[index] += amount;
+    }
+
+    static int bucketIndex(long value) {
+        return value == 0 ? 0 : 1 + (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+
+    //Midpoint of the bucket in relative terms, within RELATIVE_ACCURACY of every value the bucket can hold
+    static long bucketValue(int index) {
+        return index == 0 ? 0 : Math.round(2 * Math.pow(GAMMA, index - 1) / (GAMMA + 1));
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.jdye64.processors.provenance;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Writes each batch of events to its own file in a local directory as the same JSON array the Site2Site provenance
+ * reporting task sends, so GetFile and ProvenanceEventsToPhoenix can pick the files up. Files are named after the first
+ * and last event ordinal and written to a hidden temporary file first so a reader never sees a partial file.
+ */
+public class FileProvenanceEventSink
+    implements ProvenanceEventSink {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Path directory;
+
+    public FileProvenanceEventSink(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    @Override
+    public void write(long generation, List<ProvenanceEvent> events) throws IOException {
+        if (events.isEmpty()) {
+            return;
+        }
+
+        //Only a retried batch of the same generation maps to an existing file, and that file holds the same events
+        final String name = String.format("provenance-%05d-%020d-%020d.json",
+                generation, events.get(0).getEventOrdinal(), events.get(events.size() - 1).getEventOrdinal());
+        final Path tmp = directory.resolve("." + name + ".tmp");
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+            JsonGenerator generator = JSON_FACTORY.createGenerator(out);
+            generator.writeStartArray();
+            for (ProvenanceEvent event : events) {
+                ProvenanceEventParser.write(generator, event);
+            }
+            generator.writeEndArray();
+            generator.close();
+        }
+        Files.move(tmp, directory.resolve(name), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() {
+        //Every file is closed as soon as its batch has been written
+    }
+}
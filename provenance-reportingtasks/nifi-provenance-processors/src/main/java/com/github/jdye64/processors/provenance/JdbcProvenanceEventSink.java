@@ -0,0 +1,77 @@
+package com.github.jdye64.processors.provenance;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import org.apache.nifi.dbcp.DBCPService;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Writes each batch of events as one JDBC batch in its own transaction, with the same columns ProvenanceEventsToPhoenix
+ * prepares. With UPSERT a batch written twice leaves the table unchanged.
+ */
+public class JdbcProvenanceEventSink
+    implements ProvenanceEventSink {
+
+    private final DBCPService dbcpService;
+    private final String sql;
+
+    public JdbcProvenanceEventSink(DBCPService dbcpService, String statementType, String tableName) {
+        this.dbcpService = dbcpService;
+        this.sql = statementType + " INTO " + tableName + ProvenanceEventsToPhoenix.PROV_UPSERT_PREDICATES + ProvenanceEventsToPhoenix.PROV_PREP_VALUES;
+    }
+
+    @Override
+    public void write(long generation, List<ProvenanceEvent> events) throws IOException {
+        //The generation is already part of every eventId, which is the row key
+        try (Connection connection = dbcpService.getConnection()) {
+            final boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (ProvenanceEvent event : events) {
+                    String[] values = ProvenanceEventsToPhoenix.toColumnValues(event);
+                    for (int i = 0; i < values.length; i++) {
+                        statement.setString(i + 1, values[i]);
+                    }
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to write " + events.size() + " provenance events", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        //Connections are borrowed per batch, nothing is held between writes
+    }
+}
@@ -0,0 +1,415 @@
+package com.github.jdye64.processors.provenance;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Bounded in-memory graph of open lineages built from a stream of provenance events. Every FlowFile seen is tracked by
+ * its entityId and points at the lineage it belongs to, FlowFiles listed as children of an event join their parent's
+ * lineage. A FlowFile is done once it is dropped or sent and the lineage closes when its last FlowFile is done. When
+ * more FlowFiles are open than the configured limit the least recently active one is evicted. Component ids and names
+ * are interned since the same few values repeat across every lineage. Changes made between {@link #begin()} and
+ * {@link #commit()} can be undone with {@link #rollback()}. Not thread safe.
+ */
+public class LineageIndex {
+
+    //Bounds the interned strings so a flow with churning component names can not grow the pool forever
+    private static final int MAX_INTERNED = 10000;
+
+    /**
+     * What is reported when a lineage closes. Latency runs from lineageStart to the event that closed the lineage and
+     * the slowest component is the one the lineage spent the longest at in a single hop.
+     */
+    public static final class LineageSummary {
+
+        private final String flowFileUuid;
+        private final String closingEventType;
+        private final long lineageStart;
+        private final long lineageEnd;
+        private final int hops;
+        private final String slowestComponentId;
+        private final String slowestComponentName;
+        private final long slowestComponentMillis;
+
+        LineageSummary(String flowFileUuid, String closingEventType, long lineageStart, long lineageEnd, int hops,
+                       String slowestComponentId, String slowestComponentName, long slowestComponentMillis) {
+            this.flowFileUuid = flowFileUuid;
+            this.closingEventType = closingEventType;
+            this.lineageStart = lineageStart;
+            this.lineageEnd = lineageEnd;
+            this.hops = hops;
+            this.slowestComponentId = slowestComponentId;
+            this.slowestComponentName = slowestComponentName;
+            this.slowestComponentMillis = slowestComponentMillis;
+        }
+
+        public String getFlowFileUuid() {
+            return flowFileUuid;
+        }
+
+        public String getClosingEventType() {
+            return closingEventType;
+        }
+
+        public long getLineageStart() {
+            return lineageStart;
+        }
+
+        public long getLineageEnd() {
+            return lineageEnd;
+        }
+
+        public long getLatencyMillis() {
+            return lineageEnd - lineageStart;
+        }
+
+        public int getHops() {
+            return hops;
+        }
+
+        public String getSlowestComponentId() {
+            return slowestComponentId;
+        }
+
+        public String getSlowestComponentName() {
+            return slowestComponentName;
+        }
+
+        public long getSlowestComponentMillis() {
+            return slowestComponentMillis;
+        }
+    }
+
+    private static final class Lineage {
+
+        final long lineageStart;
+        int hops;
+        int open;
+        String slowestComponentId;
+        String slowestComponentName;
+        long slowestComponentMillis = -1;
+
+        Lineage(long lineageStart) {
+            this.lineageStart = lineageStart;
+        }
+
+        Lineage copy() {
+            Lineage copy = new Lineage(lineageStart);
+            copy.restore(this);
+            return copy;
+        }
+
+        void restore(Lineage saved) {
+            hops = saved.hops;
+            open = saved.open;
+            slowestComponentId = saved.slowestComponentId;
+            slowestComponentName = saved.slowestComponentName;
+            slowestComponentMillis = saved.slowestComponentMillis;
+        }
+    }
+
+    //One per open FlowFile, several FlowFiles share a Lineage once it forks
+    private static final class Track {
+
+        final Lineage lineage;
+        long lastEventMillis;
+
+        Track(Lineage lineage, long lastEventMillis) {
+            this.lineage = lineage;
+            this.lastEventMillis = lastEventMillis;
+        }
+    }
+
+    /**
+     * State, before the first change, of everything changed since {@link #begin()}. A null map value means the key
+     * was not in the map.
+     */
+    private static final class Journal {
+
+        final Map<String, Track> open = new HashMap<>();
+        final Map<String, Boolean> closed = new HashMap<>();
+        final Map<Lineage, Lineage> lineages = new IdentityHashMap<>();
+        final Map<Track, Long> tracks = new IdentityHashMap<>();
+        final long evictedCount;
+        final long lateCount;
+
+        Journal(long evictedCount, long lateCount) {
+            this.evictedCount = evictedCount;
+            this.lateCount = lateCount;
+        }
+    }
+
+    private final int maxOpen;
+    private final LinkedHashMap<String, Track> open;
+    private final LinkedHashMap<String, Boolean> closed;
+    private final Map<String, String> interned = new HashMap<>();
+
+    private long evictedCount;
+    private long lateCount;
+
+    //Null while changes are not being recorded
+    private Journal journal;
+
+    public LineageIndex(final int maxOpen) {
+        this.maxOpen = maxOpen;
+
+        //Access ordered so the eldest entry is the FlowFile that has been idle the longest
+        this.open = new LinkedHashMap<String, Track>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Track> eldest) {
+                if (size() <= LineageIndex.this.maxOpen) {
+                    return false;
+                }
+                recordOpen(eldest.getKey(), eldest.getValue());
+                record(eldest.getValue().lineage);
+                eldest.getValue().lineage.open--;
+                evictedCount++;
+                return true;
+            }
+        };
+
+        //FlowFiles usually see a DROP right after a SEND, remembering recently closed ids keeps that from opening a new lineage
+        this.closed = new LinkedHashMap<String, Boolean>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                if (size() <= LineageIndex.this.maxOpen) {
+                    return false;
+                }
+                recordClosed(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Adds the event to its lineage and returns the lineage summary if this event closed it, otherwise null.
+     */
+    public LineageSummary add(final ProvenanceEvent event) {
+        final String uuid = event.getEntityId();
+        final Long timestamp = event.getTimestampMillis();
+        if (uuid == null || timestamp == null) {
+            return null;
+        }
+        if (closed.containsKey(uuid)) {
+            lateCount++;
+            return null;
+        }
+
+        Track track = open.get(uuid);
+        if (track == null) {
+            track = adoptParent(event.getParentIds(), timestamp);
+            if (track == null) {
+                Lineage lineage = new Lineage(event.getLineageStart() == null ? timestamp : event.getLineageStart());
+                track = new Track(lineage, lineage.lineageStart);
+            }
+            record(track.lineage);
+            track.lineage.open++;
+            recordOpen(uuid, null);
+            open.put(uuid, track);
+        }
+
+        final Lineage lineage = track.lineage;
+        record(lineage);
+        record(track);
+        lineage.hops++;
+
+        //Time since the previous event for this FlowFile is what it spent getting through this component
+        long spent = timestamp - track.lastEventMillis;
+        if (event.getDurationMillis() != null && event.getDurationMillis() > spent) {
+            spent = event.getDurationMillis();
+        }
+        if (spent > lineage.slowestComponentMillis) {
+            lineage.slowestComponentMillis = spent;
+            lineage.slowestComponentId = intern(event.getComponentId());
+            lineage.slowestComponentName = intern(event.getComponentName());
+        }
+        track.lastEventMillis = timestamp;
+
+        addChildren(uuid, event.getChildIds(), track);
+
+        final String eventType = event.getEventType();
+        if (!"DROP".equals(eventType) && !"SEND".equals(eventType)) {
+            return null;
+        }
+
+        recordOpen(uuid, track);
+        open.remove(uuid);
+        recordClosed(uuid, null);
+        closed.put(uuid, Boolean.TRUE);
+        if (--lineage.open > 0) {
+            return null;
+        }
+        return new LineageSummary(uuid, eventType, lineage.lineageStart, timestamp, lineage.hops,
+                lineage.slowestComponentId, lineage.slowestComponentName, Math.max(lineage.slowestComponentMillis, 0));
+    }
+
+    private Track adoptParent(final List<String> parentIds, final long timestamp) {
+        if (parentIds == null) {
+            return null;
+        }
+        for (String parentId : parentIds) {
+            Track parent = open.get(parentId);
+            if (parent != null) {
+                return new Track(parent.lineage, timestamp);
+            }
+        }
+        return null;
+    }
+
+    private void addChildren(final String uuid, final List<String> childIds, final Track track) {
+        if (childIds == null) {
+            return;
+        }
+        for (String childId : childIds) {
+            if (!childId.equals(uuid) && !open.containsKey(childId) && !closed.containsKey(childId)) {
+                track.lineage.open++;
+                recordOpen(childId, null);
+                open.put(childId, new Track(track.lineage, track.lastEventMillis));
+            }
+        }
+    }
+
+    /**
+     * Starts recording the changes made by {@link #add(ProvenanceEvent)} so they can be undone.
+     */
+    public void begin() {
+        journal = new Journal(evictedCount, lateCount);
+    }
+
+    /**
+     * Keeps the changes made since {@link #begin()}.
+     */
+    public void commit() {
+        journal = null;
+    }
+
+    /**
+     * Undoes the changes made since {@link #begin()}, so the same events can be added again as if they had never
+     * been seen. Only the order in which idle FlowFiles are evicted is not restored.
+     */
+    public void rollback() {
+        final Journal undo = journal;
+        if (undo == null) {
+            return;
+        }
+        journal = null;
+
+        //Removals first so the maps never grow past the size they had, which would evict entries again
+        for (Map.Entry<String, Track> entry : undo.open.entrySet()) {
+            if (entry.getValue() == null) {
+                open.remove(entry.getKey());
+            }
+        }
+        for (Map.Entry<String, Boolean> entry : undo.closed.entrySet()) {
+            if (entry.getValue() == null) {
+                closed.remove(entry.getKey());
+            }
+        }
+        for (Map.Entry<String, Track> entry : undo.open.entrySet()) {
+            if (entry.getValue() != null) {
+                open.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<String, Boolean> entry : undo.closed.entrySet()) {
+            if (entry.getValue() != null) {
+                closed.put(entry.getKey(), entry.getValue());
+            }
+        }
+
+        for (Map.Entry<Lineage, Lineage> entry : undo.lineages.entrySet()) {
+            entry.getKey().restore(entry.getValue());
+        }
+        for (Map.Entry<Track, Long> entry : undo.tracks.entrySet()) {
+            entry.getKey().lastEventMillis = entry.getValue();
+        }
+        evictedCount = undo.evictedCount;
+        lateCount = undo.lateCount;
+    }
+
+    private void recordOpen(final String uuid, final Track before) {
+        if (journal != null && !journal.open.containsKey(uuid)) {
+            journal.open.put(uuid, before);
+        }
+    }
+
+    private void recordClosed(final String uuid, final Boolean before) {
+        if (journal != null && !journal.closed.containsKey(uuid)) {
+            journal.closed.put(uuid, before);
+        }
+    }
+
+    private void record(final Lineage lineage) {
+        if (journal != null && !journal.lineages.containsKey(lineage)) {
+            journal.lineages.put(lineage, lineage.copy());
+        }
+    }
+
+    private void record(final Track track) {
+        if (journal != null && !journal.tracks.containsKey(track)) {
+            journal.tracks.put(track, track.lastEventMillis);
+        }
+    }
+
+    private String intern(final String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = interned.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (interned.size() >= MAX_INTERNED) {
+            interned.clear();
+        }
+        interned.put(value, value);
+        return value;
+    }
+
+    public int getOpenCount() {
+        return open.size();
+    }
+
+    /**
+     * FlowFiles dropped from the index to stay under the limit. A lineage whose FlowFiles were all evicted is never
+     * summarized.
+     */
+    public long getEvictedCount() {
+        return evictedCount;
+    }
+
+    /**
+     * Events that arrived for a FlowFile whose lineage had already been closed.
+     */
+    public long getLateCount() {
+        return lateCount;
+    }
+
+    public void clear() {
+        journal = null;
+        open.clear();
+        closed.clear();
+        interned.clear();
+    }
+}
@@ -0,0 +1,165 @@
+package com.github.jdye64.processors.provenance;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Pulls events from a parser and converts them, either inline on the calling thread or in chunks on an executor.
+ * Converted events are always handed back in the order they were parsed. Parsing stays on the calling thread and only
+ * a bounded number of chunks is ever in flight, so memory stays proportional to the chunk size rather than the input.
+ * An optional filter is applied on the calling thread, in parse order, before an event is handed off for conversion.
+ */
+public class OrderedEventConverter<T>
+    implements Closeable {
+
+    public interface Conversion<T> {
+        T convert(ProvenanceEvent event) throws IOException;
+    }
+
+    public interface EventFilter {
+        boolean accept(ProvenanceEvent event) throws IOException;
+    }
+
+    private final ProvenanceEventParser parser;
+    private final EventFilter filter;
+    private final Conversion<T> conversion;
+    private final ExecutorService executor;
+    private final int chunkSize;
+    private final int maxChunksInFlight;
+
+    private final Deque<Future<List<T>>> inFlight = new ArrayDeque<>();
+    private Iterator<T> current = Collections.emptyIterator();
+    private boolean exhausted;
+
+    public OrderedEventConverter(ProvenanceEventParser parser, Conversion<T> conversion, ExecutorService executor,
+                                 int chunkSize, int maxChunksInFlight) {
+        this(parser, null, conversion, executor, chunkSize, maxChunksInFlight);
+    }
+
+    /**
+     * @param filter events it rejects are skipped, or null to convert every event
+     * @param executor pool to convert on, or null to convert inline
+     */
+    public OrderedEventConverter(ProvenanceEventParser parser, EventFilter filter, Conversion<T> conversion, ExecutorService executor,
+                                 int chunkSize, int maxChunksInFlight) {
+        this.parser = parser;
+        this.filter = filter;
+        this.conversion = conversion;
+        this.executor = executor;
+        this.chunkSize = chunkSize;
+        this.maxChunksInFlight = maxChunksInFlight;
+    }
+
+    /**
+     * Returns the next converted event or null once the parser has no more events.
+     */
+    public T next() throws IOException {
+        if (executor == null) {
+            ProvenanceEvent event = nextAccepted();
+            return event == null ? null : conversion.convert(event);
+        }
+
+        while (!current.hasNext()) {
+            submitChunks();
+            if (inFlight.isEmpty()) {
+                return null;
+            }
+            current = await(inFlight.poll()).iterator();
+        }
+        return current.next();
+    }
+
+    private void submitChunks() throws IOException {
+        while (!exhausted && inFlight.size() < maxChunksInFlight) {
+            final List<ProvenanceEvent> chunk = new ArrayList<>(chunkSize);
+            ProvenanceEvent event;
+            while (chunk.size() < chunkSize && (event = nextAccepted()) != null) {
+                chunk.add(event);
+            }
+            if (chunk.size() < chunkSize) {
+                exhausted = true;
+            }
+            if (chunk.isEmpty()) {
+                return;
+            }
+
+            inFlight.add(executor.submit(new Callable<List<T>>() {
+                @Override
+                public List<T> call() throws Exception {
+                    List<T> converted = new ArrayList<>(chunk.size());
+                    for (ProvenanceEvent e : chunk) {
+                        converted.add(conversion.convert(e));
+                    }
+                    return converted;
+                }
+            }));
+        }
+    }
+
+    private ProvenanceEvent nextAccepted() throws IOException {
+        ProvenanceEvent event;
+        do {
+            event = parser.next();
+        } while (event != null && filter != null && !filter.accept(event));
+        return event;
+    }
+
+    private List<T> await(Future<List<T>> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while converting provenance events", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (Future<List<T>> future : inFlight) {
+            future.cancel(true);
+        }
+        inFlight.clear();
+        parser.close();
+    }
+}
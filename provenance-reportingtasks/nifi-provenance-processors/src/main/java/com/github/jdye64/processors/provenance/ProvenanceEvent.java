@@ -0,0 +1,174 @@
+package com.github.jdye64.processors.provenance;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * A single provenance event as sent by the Site-to-Site provenance reporting task. Numeric fields are null when the
+ * event did not include them.
+ */
+public class ProvenanceEvent {
+
+    String eventId;
+    Long eventOrdinal;
+    String eventType;
+    Long timestampMillis;
+    String timestamp;
+    Long durationMillis;
+    Long lineageStart;
+    String details;
+    String componentId;
+    String componentType;
+    String componentName;
+    String entityId;
+    String entityType;
+    Long entitySize;
+    Map<String, String> updatedAttributes;
+    Map<String, String> previousAttributes;
+    String actorHostname;
+    String contentURI;
+    String previousContentURI;
+    List<String> parentIds;
+    List<String> childIds;
+    String platform;
+    String application;
+    String error;
+    String rawJson;
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public Long getEventOrdinal() {
+        return eventOrdinal;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public Long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public String getTimestamp() {
+        return timestamp;
+    }
+
+    public Long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public Long getLineageStart() {
+        return lineageStart;
+    }
+
+    public String getDetails() {
+        return details;
+    }
+
+    public String getComponentId() {
+        return componentId;
+    }
+
+    public String getComponentType() {
+        return componentType;
+    }
+
+    public String getComponentName() {
+        return componentName;
+    }
+
+    public String getEntityId() {
+        return entityId;
+    }
+
+    public String getEntityType() {
+        return entityType;
+    }
+
+    public Long getEntitySize() {
+        return entitySize;
+    }
+
+    public Map<String, String> getUpdatedAttributes() {
+        return updatedAttributes;
+    }
+
+    public Map<String, String> getPreviousAttributes() {
+        return previousAttributes;
+    }
+
+    public String getActorHostname() {
+        return actorHostname;
+    }
+
+    public String getContentURI() {
+        return contentURI;
+    }
+
+    public String getPreviousContentURI() {
+        return previousContentURI;
+    }
+
+    public List<String> getParentIds() {
+        return parentIds;
+    }
+
+    public List<String> getChildIds() {
+        return childIds;
+    }
+
+    public String getPlatform() {
+        return platform;
+    }
+
+    public String getApplication() {
+        return application;
+    }
+
+    /**
+     * Describes the first field that held the wrong kind of value, or null if the event was read cleanly.
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * The event exactly as it appeared in the input. Only kept for events with an error, null otherwise or when the
+     * input was not read as UTF-8 bytes.
+     */
+    public String getRawJson() {
+        return rawJson;
+    }
+
+    /**
+     * UUID of the FlowFile the event is about, taken from the updated attributes and falling back to the previous
+     * attributes. Null when neither has one.
+     */
+    public String getFlowFileUuid() {
+        if (updatedAttributes != null && updatedAttributes.containsKey("uuid")) {
+            return updatedAttributes.get("uuid");
+        }
+        return previousAttributes == null ? null : previousAttributes.get("uuid");
+    }
+}
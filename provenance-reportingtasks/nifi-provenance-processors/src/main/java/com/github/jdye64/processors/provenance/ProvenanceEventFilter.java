@@ -0,0 +1,85 @@
+package com.github.jdye64.processors.provenance;
+
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Criteria a provenance event has to meet to be returned by {@link ProvenanceEventParser}. The parser checks an event
+ * as soon as each of the discriminating fields has been read and skips the rest of a rejected event without reading
+ * it. Every criterion is optional, an event missing a field that a criterion applies to is rejected.
+ */
+public class ProvenanceEventFilter {
+
+    private final Set<String> eventTypes;
+    private final Set<String> componentIds;
+    private final Pattern componentName;
+    private final Long minEntitySize;
+
+    /**
+     * @param eventTypes event types to keep, or null for all
+     * @param componentIds component ids to keep, or null for all
+     * @param componentName pattern the whole component name has to match, or null for any name
+     * @param minEntitySize smallest entitySize to keep, or null for any size
+     */
+    public ProvenanceEventFilter(Set<String> eventTypes, Set<String> componentIds, Pattern componentName, Long minEntitySize) {
+        this.eventTypes = eventTypes;
+        this.componentIds = componentIds;
+        this.componentName = componentName;
+        this.minEntitySize = minEntitySize;
+    }
+
+    public boolean isEmpty() {
+        return eventTypes == null && componentIds == null && componentName == null && minEntitySize == null;
+    }
+
+    /**
+     * Whether the field is one the filter looks at, the parser only re-checks the event after reading one of these.
+     */
+    static boolean isFilterField(String field) {
+        switch (field) {
+            case "eventType":
+            case "componentId":
+            case "componentName":
+            case "entitySize":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Whether the event fails any criterion. While the event is still being read, complete is false and fields that
+     * have not been read yet are not held against it.
+     */
+    boolean rejects(ProvenanceEvent event, boolean complete) {
+        if (eventTypes != null && (event.eventType == null ? complete : !eventTypes.contains(event.eventType))) {
+            return true;
+        }
+        if (componentIds != null && (event.componentId == null ? complete : !componentIds.contains(event.componentId))) {
+            return true;
+        }
+        if (componentName != null && (event.componentName == null ? complete : !componentName.matcher(event.componentName).matches())) {
+            return true;
+        }
+        return minEntitySize != null && (event.entitySize == null ? complete : event.entitySize < minEntitySize);
+    }
+}
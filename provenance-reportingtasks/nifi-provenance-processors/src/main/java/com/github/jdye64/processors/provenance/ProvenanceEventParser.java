@@ -0,0 +1,488 @@
+package com.github.jdye64.processors.provenance;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Reads a JSON array of provenance events one event at a time straight from the stream, so only the event currently
+ * being read is held in memory no matter how large the array is. Fields that are not part of the event model are
+ * skipped without being materialized. A field holding the wrong kind of value does not stop the parse, the value is
+ * skipped and the event is returned with {@link ProvenanceEvent#getError()} set. Only malformed JSON throws. When a
+ * {@link ProvenanceEventFilter} is given, an event it rejects is dropped as soon as the rejecting field has been read
+ * and the rest of its object is skipped without being materialized. The bytes of the event being read are retained
+ * so an event with an error can be handed back together with its original JSON.
+ */
+public class ProvenanceEventParser
+    implements Closeable {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Keeps the bytes read from the input starting at the event currently being parsed. Older bytes are only dropped
+     * when the buffer has to grow, so memory is bounded by the largest event plus the parser's read ahead.
+     */
+    private static final class RawCapture
+        extends FilterInputStream {
+
+        private byte[] buffer = new byte[16384];
+        private int length;
+        //Stream offset of buffer[0]
+        private long base;
+        private long keepFrom;
+
+        private RawCapture(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                ensureCapacity(1);
+                buffer[length++] = (byte) b;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                ensureCapacity(n);
+                System.arraycopy(b, off, buffer, length, n);
+                length += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            byte[] scratch = new byte[(int) Math.min(n, 8192)];
+            int read = read(scratch, 0, scratch.length);
+            return Math.max(read, 0);
+        }
+
+        private void keepFrom(long offset) {
+            keepFrom = offset;
+        }
+
+        private String slice(long from, long to) {
+            if (from < base || to > base + length || from > to) {
+                return null;
+            }
+            return new String(buffer, (int) (from - base), (int) (to - from), StandardCharsets.UTF_8);
+        }
+
+        private void ensureCapacity(int needed) {
+            if (length + needed <= buffer.length) {
+                return;
+            }
+            int drop = (int) Math.max(0, Math.min(keepFrom - base, length));
+            if (drop > 0) {
+                System.arraycopy(buffer, drop, buffer, 0, length - drop);
+                length -= drop;
+                base += drop;
+            }
+            if (length + needed > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + needed));
+            }
+        }
+    }
+
+    private final RawCapture raw;
+    private final JsonParser parser;
+    private final ProvenanceEventFilter filter;
+    private boolean started;
+    private boolean finished;
+    private String error;
+    private long filteredCount;
+
+    public ProvenanceEventParser(InputStream in) throws IOException {
+        this(in, null);
+    }
+
+    /**
+     * @param filter events it rejects are skipped, or null to return every event
+     */
+    public ProvenanceEventParser(InputStream in, ProvenanceEventFilter filter) throws IOException {
+        this.raw = new RawCapture(in);
+        this.parser = JSON_FACTORY.createParser(raw);
+        this.filter = filter == null || filter.isEmpty() ? null : filter;
+    }
+
+    /**
+     * Returns the next event in the array or null once the end of the array has been reached.
+     */
+    public ProvenanceEvent next() throws IOException {
+        if (finished) {
+            return null;
+        }
+
+        if (!started) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                finished = true;
+                return null;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Expected an array of provenance events but found " + token);
+            }
+            started = true;
+        }
+
+        while (true) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.END_ARRAY) {
+                finished = true;
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a provenance event object but found " + token);
+            }
+
+            //Offsets are only known for UTF-8 input, otherwise nothing needs to be kept
+            long start = parser.getTokenLocation().getByteOffset();
+            raw.keepFrom(start >= 0 ? start : Long.MAX_VALUE);
+
+            ProvenanceEvent event = readEvent();
+            if (event != null) {
+                if (event.error != null && start >= 0) {
+                    event.rawJson = raw.slice(start, parser.getTokenLocation().getByteOffset() + 1);
+                }
+                return event;
+            }
+            filteredCount++;
+        }
+    }
+
+    /**
+     * Number of events skipped because the filter rejected them.
+     */
+    public long getFilteredCount() {
+        return filteredCount;
+    }
+
+    /**
+     * Reads the event the parser is positioned at, or skips it and returns null if the filter rejects it.
+     */
+    private ProvenanceEvent readEvent() throws IOException {
+        ProvenanceEvent event = new ProvenanceEvent();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+
+            switch (field) {
+                case "eventId":
+                    event.eventId = readString();
+                    break;
+                case "eventOrdinal":
+                    event.eventOrdinal = readLong();
+                    break;
+                case "eventType":
+                    event.eventType = readString();
+                    break;
+                case "timestampMillis":
+                    event.timestampMillis = readLong();
+                    break;
+                case "timestamp":
+                    event.timestamp = readString();
+                    break;
+                case "durationMillis":
+                    event.durationMillis = readLong();
+                    break;
+                case "lineageStart":
+                    event.lineageStart = readLong();
+                    break;
+                case "details":
+                    event.details = readString();
+                    break;
+                case "componentId":
+                    event.componentId = readString();
+                    break;
+                case "componentType":
+                    event.componentType = readString();
+                    break;
+                case "componentName":
+                    event.componentName = readString();
+                    break;
+                case "entityId":
+                    event.entityId = readString();
+                    break;
+                case "entityType":
+                    event.entityType = readString();
+                    break;
+                case "entitySize":
+                    event.entitySize = readLong();
+                    break;
+                case "updatedAttributes":
+                    event.updatedAttributes = readAttributes();
+                    break;
+                case "previousAttributes":
+                    event.previousAttributes = readAttributes();
+                    break;
+                case "actorHostname":
+                    event.actorHostname = readString();
+                    break;
+                case "contentURI":
+                    event.contentURI = readString();
+                    break;
+                case "previousContentURI":
+                    event.previousContentURI = readString();
+                    break;
+                case "parentIds":
+                    event.parentIds = readIds();
+                    break;
+                case "childIds":
+                    event.childIds = readIds();
+                    break;
+                case "platform":
+                    event.platform = readString();
+                    break;
+                case "application":
+                    event.application = readString();
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+
+            if (filter != null && ProvenanceEventFilter.isFilterField(field) && filter.rejects(event, false)) {
+                skipRemainingFields();
+                error = null;
+                return null;
+            }
+        }
+
+        if (parser.getCurrentToken() != JsonToken.END_OBJECT) {
+            throw new JsonParseException(parser, "Unexpected end of provenance event");
+        }
+
+        final String eventError = error;
+        error = null;
+        if (filter != null && filter.rejects(event, true)) {
+            return null;
+        }
+        event.error = eventError;
+        return event;
+    }
+
+    private void skipRemainingFields() throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            parser.nextToken();
+            parser.skipChildren();
+        }
+        if (parser.getCurrentToken() != JsonToken.END_OBJECT) {
+            throw new JsonParseException(parser, "Unexpected end of provenance event");
+        }
+    }
+
+    private String readString() throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            return invalid("Expected a value for " + parser.getCurrentName() + " but found " + token);
+        }
+        return parser.getText();
+    }
+
+    private Long readLong() throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            try {
+                return Long.valueOf(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                return invalid("Expected a number for " + parser.getCurrentName() + " but found " + parser.getText());
+            }
+        }
+        return invalid("Expected a number for " + parser.getCurrentName() + " but found " + token);
+    }
+
+    private Map<String, String> readAttributes() throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            return invalid("Expected an object for " + parser.getCurrentName() + " but found " + token);
+        }
+
+        Map<String, String> attributes = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            attributes.put(name, readString());
+        }
+        return attributes;
+    }
+
+    private List<String> readIds() throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_ARRAY) {
+            return invalid("Expected an array for " + parser.getCurrentName() + " but found " + token);
+        }
+
+        List<String> ids = new ArrayList<>();
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                throw new JsonParseException(parser, "Unexpected end of input in " + parser.getCurrentName());
+            }
+            ids.add(readString());
+        }
+        return ids;
+    }
+
+    /**
+     * Remembers the first problem found in the current event and skips the offending value.
+     */
+    private <T> T invalid(String message) throws IOException {
+        if (error == null) {
+            error = message;
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    /**
+     * Writes the event back out as a JSON object with the same field names it was read with. Fields that were not
+     * present are left out.
+     */
+    public static void write(JsonGenerator generator, ProvenanceEvent event) throws IOException {
+        generator.writeStartObject();
+        writeField(generator, "eventId", event.getEventId());
+        writeField(generator, "eventOrdinal", event.getEventOrdinal());
+        writeField(generator, "eventType", event.getEventType());
+        writeField(generator, "timestampMillis", event.getTimestampMillis());
+        writeField(generator, "timestamp", event.getTimestamp());
+        writeField(generator, "durationMillis", event.getDurationMillis());
+        writeField(generator, "lineageStart", event.getLineageStart());
+        writeField(generator, "details", event.getDetails());
+        writeField(generator, "componentId", event.getComponentId());
+        writeField(generator, "componentType", event.getComponentType());
+        writeField(generator, "componentName", event.getComponentName());
+        writeField(generator, "entityId", event.getEntityId());
+        writeField(generator, "entityType", event.getEntityType());
+        writeField(generator, "entitySize", event.getEntitySize());
+        writeField(generator, "updatedAttributes", event.getUpdatedAttributes());
+        writeField(generator, "previousAttributes", event.getPreviousAttributes());
+        writeField(generator, "actorHostname", event.getActorHostname());
+        writeField(generator, "contentURI", event.getContentURI());
+        writeField(generator, "previousContentURI", event.getPreviousContentURI());
+        writeField(generator, "parentIds", event.getParentIds());
+        writeField(generator, "childIds", event.getChildIds());
+        writeField(generator, "platform", event.getPlatform());
+        writeField(generator, "application", event.getApplication());
+        generator.writeEndObject();
+    }
+
+    private static void writeField(JsonGenerator generator, String name, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(name, value);
+        }
+    }
+
+    private static void writeField(JsonGenerator generator, String name, Long value) throws IOException {
+        if (value != null) {
+            generator.writeNumberField(name, value);
+        }
+    }
+
+    private static void writeField(JsonGenerator generator, String name, Map<String, String> value) throws IOException {
+        if (value != null) {
+            generator.writeObjectFieldStart(name);
+            for (Map.Entry<String, String> entry : value.entrySet()) {
+                generator.writeStringField(entry.getKey(), entry.getValue());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private static void writeField(JsonGenerator generator, String name, List<String> value) throws IOException {
+        if (value != null) {
+            generator.writeArrayFieldStart(name);
+            for (String id : value) {
+                generator.writeString(id);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /**
+     * Writes attributes back out as a JSON object.
+     */
+    public static String toJson(Map<String, String> attributes) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            generator.writeStartObject();
+            for (Map.Entry<String, String> entry : attributes.entrySet()) {
+                generator.writeStringField(entry.getKey(), entry.getValue());
+            }
+            generator.writeEndObject();
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes ids back out as a JSON array.
+     */
+    public static String toJson(List<String> ids) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            generator.writeStartArray();
+            for (String id : ids) {
+                generator.writeString(id);
+            }
+            generator.writeEndArray();
+        }
+        return writer.toString();
+    }
+}
@@ -0,0 +1,35 @@
+package com.github.jdye64.processors.provenance;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Destination {@link ProvenanceEventsReportingTask} writes events to. A batch is only acknowledged, and the task's
+ * cursor moved past it, once write returns, so a batch may be written again after a failure or restart. The
+ * generation goes up whenever the provenance repository has been cleared, event ordinals repeat across generations.
+ */
+public interface ProvenanceEventSink
+    extends Closeable {
+
+    void write(long generation, List<ProvenanceEvent> events) throws IOException;
+}
@@ -0,0 +1,412 @@
+package com.github.jdye64.processors.provenance;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.annotation.behavior.Stateful;
+import org.apache.nifi.annotation.documentation.CapabilityDescription;
+import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
+import org.apache.nifi.components.AllowableValue;
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.components.ValidationContext;
+import org.apache.nifi.components.ValidationResult;
+import org.apache.nifi.components.state.Scope;
+import org.apache.nifi.components.state.StateManager;
+import org.apache.nifi.components.state.StateMap;
+import org.apache.nifi.controller.ConfigurationContext;
+import org.apache.nifi.controller.status.ProcessGroupStatus;
+import org.apache.nifi.controller.status.ProcessorStatus;
+import org.apache.nifi.dbcp.DBCPService;
+import org.apache.nifi.processor.util.StandardValidators;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.reporting.AbstractReportingTask;
+import org.apache.nifi.reporting.EventAccess;
+import org.apache.nifi.reporting.ReportingContext;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+@Tags({"provenance", "events", "phoenix", "jdbc", "reportingtask"})
+@CapabilityDescription("Reads provenance events straight from this node's provenance repository in batches and writes them to a database" +
+        " through JDBC, with the same columns as ProvenanceEventsToPhoenix, or to JSON files in a local directory. This replaces sending the" +
+        " events through the Site2Site provenance reporting task to a second NiFi and parsing them there. The id of the last event written is" +
+        " kept in local state so the task resumes where it left off. Each run reads at most Max Events Per Run events and stops after Max Run" +
+        " Duration, so a backfill or a large backlog is worked off over several runs. When the repository has been cleared and its event ids" +
+        " start over, the task starts a new generation that is part of every eventId and file name so earlier output is not overwritten.")
+@Stateful(scopes = Scope.LOCAL, description = "Id of the last provenance event written to the sink and the generation of the provenance" +
+        " repository it came from")
+public class ProvenanceEventsReportingTask
+    extends AbstractReportingTask {
+
+    static final String LAST_EVENT_ID = "last.event.id";
+    static final String GENERATION = "repository.generation";
+
+    //Same layout the Site2Site provenance reporting task uses for the timestamp field
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    public static final AllowableValue SINK_JDBC = new AllowableValue("JDBC", "JDBC",
+            "Write every batch through the Database Connection Pooling Service into Table Name");
+
+    public static final AllowableValue SINK_FILES = new AllowableValue("Files", "Files",
+            "Write every batch as a JSON array file into Output Directory");
+
+    public static final PropertyDescriptor SINK = new PropertyDescriptor.Builder()
+            .name("Sink")
+            .description("Where the provenance events are written")
+            .required(true)
+            .allowableValues(SINK_JDBC, SINK_FILES)
+            .defaultValue(SINK_JDBC.getValue())
+            .build();
+
+    public static final PropertyDescriptor DBCP_SERVICE = new PropertyDescriptor.Builder()
+            .name("Database Connection Pooling Service")
+            .description("Connection pool used by the JDBC sink")
+            .required(false)
+            .identifiesControllerService(DBCPService.class)
+            .build();
+
+    public static final PropertyDescriptor TABLE_NAME = new PropertyDescriptor.Builder()
+            .name("Table Name")
+            .description("Table the JDBC sink writes the provenance events into")
+            .required(false)
+            .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
+            .build();
+
+    public static final PropertyDescriptor OUTPUT_DIRECTORY = new PropertyDescriptor.Builder()
+            .name("Output Directory")
+            .description("Directory the Files sink writes to, it is created if it does not exist")
+            .required(false)
+            .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
+            .build();
+
+    public static final AllowableValue START_BEGINNING = new AllowableValue("Beginning of Repository", "Beginning of Repository",
+            "Backfill every event still in the provenance repository");
+
+    public static final AllowableValue START_END = new AllowableValue("End of Repository", "End of Repository",
+            "Only write events created after the task first runs");
+
+    public static final PropertyDescriptor START_POSITION = new PropertyDescriptor.Builder()
+            .name("Start Position")
+            .description("Where to start reading when there is no stored position yet, afterwards the task always continues from the" +
+                    " last event written. Clear the task's state to apply a new start position")
+            .required(true)
+            .allowableValues(START_BEGINNING, START_END)
+            .defaultValue(START_BEGINNING.getValue())
+            .build();
+
+    public static final PropertyDescriptor BATCH_SIZE = new PropertyDescriptor.Builder()
+            .name("Batch Size")
+            .description("Number of events read from the repository and written to the sink at a time")
+            .required(true)
+            .defaultValue("1000")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
+    public static final PropertyDescriptor MAX_EVENTS_PER_RUN = new PropertyDescriptor.Builder()
+            .name("Max Events Per Run")
+            .description("Most events written in a single run. Together with the run schedule this caps the rate at which a backfill or" +
+                    " a backlog is caught up")
+            .required(true)
+            .defaultValue("10000")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
+    public static final PropertyDescriptor MAX_RUN_DURATION = new PropertyDescriptor.Builder()
+            .name("Max Run Duration")
+            .description("No new batch is started once a run has taken this long, so a slow sink does not keep the reporting thread busy")
+            .required(true)
+            .defaultValue("10 sec")
+            .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
+            .build();
+
+    public static final PropertyDescriptor INSTANCE_URL = new PropertyDescriptor.Builder()
+            .name("Instance URL")
+            .description("Base URL of this NiFi, for example http://localhost:8080, used to build the contentURI and previousContentURI of" +
+                    " each event. If not set both are left empty")
+            .required(false)
+            .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
+            .build();
+
+    public static final PropertyDescriptor APPLICATION = new PropertyDescriptor.Builder()
+            .name("Application")
+            .description("Value written as the application of every event")
+            .required(true)
+            .defaultValue("NiFi Flow")
+            .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
+            .build();
+
+    private volatile ProvenanceEventSink sink;
+    private volatile String hostname;
+
+    /**
+     * Position in the provenance repository. The generation goes up every time the repository is found to have been
+     * cleared, since event ids start over from 0 and would otherwise repeat.
+     */
+    private static final class Cursor {
+
+        private final long generation;
+        private final long nextEventId;
+
+        Cursor(final long generation, final long nextEventId) {
+            this.generation = generation;
+            this.nextEventId = nextEventId;
+        }
+    }
+
+    @Override
+    protected List<PropertyDescriptor> getSupportedPropertyDescriptors() {
+        final List<PropertyDescriptor> properties = new ArrayList<>();
+        properties.add(SINK);
+        properties.add(DBCP_SERVICE);
+        properties.add(TABLE_NAME);
+        properties.add(PutPhoenixProvenanceEvents.STATEMENT_TYPE);
+        properties.add(OUTPUT_DIRECTORY);
+        properties.add(START_POSITION);
+        properties.add(BATCH_SIZE);
+        properties.add(MAX_EVENTS_PER_RUN);
+        properties.add(MAX_RUN_DURATION);
+        properties.add(INSTANCE_URL);
+        properties.add(APPLICATION);
+        return properties;
+    }
+
+    @Override
+    protected Collection<ValidationResult> customValidate(final ValidationContext validationContext) {
+        final List<ValidationResult> results = new ArrayList<>();
+        if (SINK_JDBC.getValue().equals(validationContext.getProperty(SINK).getValue())) {
+            requireSet(validationContext, DBCP_SERVICE, results);
+            requireSet(validationContext, TABLE_NAME, results);
+        } else {
+            requireSet(validationContext, OUTPUT_DIRECTORY, results);
+        }
+        return results;
+    }
+
+    private static void requireSet(final ValidationContext validationContext, final PropertyDescriptor property, final List<ValidationResult> results) {
+        if (!validationContext.getProperty(property).isSet()) {
+            results.add(new ValidationResult.Builder()
+                    .subject(property.getName())
+                    .valid(false)
+                    .explanation("is required by the " + validationContext.getProperty(SINK).getValue() + " sink")
+                    .build());
+        }
+    }
+
+    @OnScheduled
+    public void createSink(final ConfigurationContext context) throws IOException {
+        if (SINK_JDBC.getValue().equals(context.getProperty(SINK).getValue())) {
+            sink = new JdbcProvenanceEventSink(context.getProperty(DBCP_SERVICE).asControllerService(DBCPService.class),
+                    context.getProperty(PutPhoenixProvenanceEvents.STATEMENT_TYPE).getValue(), context.getProperty(TABLE_NAME).getValue());
+        } else {
+            sink = new FileProvenanceEventSink(Paths.get(context.getProperty(OUTPUT_DIRECTORY).getValue()));
+        }
+
+        try {
+            hostname = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            hostname = "localhost";
+        }
+    }
+
+    @OnStopped
+    public void closeSink() {
+        if (sink != null) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                getLogger().warn("Failed to close provenance event sink {}", new Object[]{e.getMessage()}, e);
+            }
+            sink = null;
+        }
+    }
+
+    @Override
+    public void onTrigger(ReportingContext context) {
+        final EventAccess eventAccess = context.getEventAccess();
+        final StateManager stateManager = context.getStateManager();
+
+        final Long maxEventId = eventAccess.getProvenanceRepository().getMaxEventId();
+        if (maxEventId == null) {
+            //Nothing has been written to the repository yet
+            return;
+        }
+
+        final Cursor cursor;
+        try {
+            cursor = readCursor(context, stateManager, maxEventId);
+        } catch (IOException e) {
+            getLogger().error("Failed to read the provenance cursor from state, will retry {}", new Object[]{e.getMessage()}, e);
+            return;
+        }
+
+        final long generation = cursor.generation;
+        long nextEventId = cursor.nextEventId;
+
+        final ProvenanceEventSink sink = this.sink;
+        final int batchSize = context.getProperty(BATCH_SIZE).asInteger();
+        final String instanceUrl = context.getProperty(INSTANCE_URL).getValue();
+        final String application = context.getProperty(APPLICATION).getValue();
+        final long deadline = System.nanoTime() + context.getProperty(MAX_RUN_DURATION).asTimePeriod(TimeUnit.NANOSECONDS);
+        int remaining = context.getProperty(MAX_EVENTS_PER_RUN).asInteger();
+
+        //Built on the first batch only, runs without new events never walk the flow
+        Map<String, String> componentNames = null;
+
+        while (remaining > 0 && nextEventId <= maxEventId && System.nanoTime() < deadline) {
+            final List<ProvenanceEventRecord> records;
+            try {
+                records = eventAccess.getProvenanceEvents(nextEventId, Math.min(batchSize, remaining));
+            } catch (IOException e) {
+                getLogger().error("Failed to read provenance events starting at {}, will retry {}", new Object[]{nextEventId, e.getMessage()}, e);
+                return;
+            }
+            if (records.isEmpty()) {
+                break;
+            }
+
+            if (componentNames == null) {
+                componentNames = new HashMap<>();
+                collectComponentNames(eventAccess.getControllerStatus(), componentNames);
+            }
+
+            final List<ProvenanceEvent> events = new ArrayList<>(records.size());
+            for (ProvenanceEventRecord record : records) {
+                events.add(toEvent(record, hostname, generation, instanceUrl, application, componentNames));
+            }
+
+            final long lastEventId = records.get(records.size() - 1).getEventId();
+            try {
+                sink.write(generation, events);
+                saveCursor(stateManager, generation, lastEventId);
+            } catch (Exception e) {
+                //The cursor has not moved, the same events are read again next run
+                getLogger().error("Failed to write provenance events {} to {}, will retry {}",
+                        new Object[]{nextEventId, lastEventId, e.getMessage()}, e);
+                return;
+            }
+
+            nextEventId = lastEventId + 1;
+            remaining -= records.size();
+        }
+
+        if (nextEventId <= maxEventId) {
+            getLogger().debug("{} provenance events left to catch up on", new Object[]{maxEventId - nextEventId + 1});
+        }
+    }
+
+    private Cursor readCursor(final ReportingContext context, final StateManager stateManager, final long maxEventId) throws IOException {
+        final StateMap state = stateManager.getState(Scope.LOCAL);
+        final String lastEventId = state.get(LAST_EVENT_ID);
+        final String storedGeneration = state.get(GENERATION);
+        final long generation = storedGeneration == null ? 0 : Long.parseLong(storedGeneration);
+
+        if (lastEventId == null) {
+            if (START_BEGINNING.getValue().equals(context.getProperty(START_POSITION).getValue())) {
+                return new Cursor(generation, 0);
+            }
+            //Store the starting point right away so a restart does not skip ahead again
+            saveCursor(stateManager, generation, maxEventId);
+            return new Cursor(generation, maxEventId + 1);
+        }
+
+        final long last = Long.parseLong(lastEventId);
+        if (last > maxEventId) {
+            getLogger().warn("Stored provenance event id {} is past the newest event {}, the repository appears to have been cleared." +
+                    " Starting over from the beginning as generation {}", new Object[]{last, maxEventId, generation + 1});
+            //Stored before anything is written so every event of the new repository gets the new generation
+            saveCursor(stateManager, generation + 1, -1);
+            return new Cursor(generation + 1, 0);
+        }
+        return new Cursor(generation, last + 1);
+    }
+
+    private static void saveCursor(final StateManager stateManager, final long generation, final long lastEventId) throws IOException {
+        final Map<String, String> state = new HashMap<>(4);
+        state.put(GENERATION, String.valueOf(generation));
+        state.put(LAST_EVENT_ID, String.valueOf(lastEventId));
+        stateManager.setState(state, Scope.LOCAL);
+    }
+
+    private static void collectComponentNames(final ProcessGroupStatus group, final Map<String, String> names) {
+        for (ProcessorStatus processor : group.getProcessorStatus()) {
+            names.put(processor.getId(), processor.getName());
+        }
+        for (ProcessGroupStatus child : group.getProcessGroupStatus()) {
+            collectComponentNames(child, names);
+        }
+    }
+
+    /**
+     * Builds the same event the Site2Site provenance reporting task would send. The eventId is derived from the host, the
+     * repository generation and the repository event id instead of being random, so an event written twice after a retry
+     * keeps its id while the events of a cleared repository get new ones.
+     */
+    static ProvenanceEvent toEvent(final ProvenanceEventRecord record, final String hostname, final long generation, final String instanceUrl,
+                                   final String application, final Map<String, String> componentNames) {
+        final ProvenanceEvent event = new ProvenanceEvent();
+        event.eventId = UUID.nameUUIDFromBytes((hostname + ':' + generation + ':' + record.getEventId()).getBytes(StandardCharsets.UTF_8)).toString();
+        event.eventOrdinal = record.getEventId();
+        event.eventType = record.getEventType().name();
+        event.timestampMillis = record.getEventTime();
+        event.timestamp = TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(record.getEventTime()));
+        event.durationMillis = record.getEventDuration();
+        event.lineageStart = record.getLineageStartDate();
+        event.details = record.getDetails();
+        event.componentId = record.getComponentId();
+        event.componentType = record.getComponentType();
+        final String componentName = componentNames.get(record.getComponentId());
+        event.componentName = componentName == null ? record.getComponentType() : componentName;
+        event.entityId = record.getFlowFileUuid();
+        event.entityType = "org.apache.nifi.flowfile.FlowFile";
+        event.entitySize = record.getFileSize();
+        event.updatedAttributes = record.getUpdatedAttributes() == null ? Collections.<String, String>emptyMap() : record.getUpdatedAttributes();
+        event.previousAttributes = record.getPreviousAttributes() == null ? Collections.<String, String>emptyMap() : record.getPreviousAttributes();
+        event.actorHostname = hostname;
+        if (instanceUrl == null) {
+            event.contentURI = "";
+            event.previousContentURI = "";
+        } else {
+            final String content = instanceUrl + "/nifi-api/provenance-events/" + record.getEventId() + "/content/";
+            event.contentURI = content + "output";
+            event.previousContentURI = content + "input";
+        }
+        event.parentIds = record.getParentUuids() == null ? Collections.<String>emptyList() : record.getParentUuids();
+        event.childIds = record.getChildUuids() == null ? Collections.<String>emptyList() : record.getChildUuids();
+        event.platform = "nifi";
+        event.application = application;
+        return event;
+    }
+}
@@ -1,21 +1,41 @@
 package com.github.jdye64.processors.provenance;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
+import org.apache.nifi.components.AllowableValue;
 import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.components.ValidationContext;
+import org.apache.nifi.components.ValidationResult;
+import org.apache.nifi.components.Validator;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.flowfile.attributes.CoreAttributes;
 import org.apache.nifi.processor.AbstractProcessor;
@@ -27,9 +47,9 @@ import org.apache.nifi.processor.exception.ProcessException;
 import org.apache.nifi.processor.io.InputStreamCallback;
 import org.apache.nifi.processor.io.OutputStreamCallback;
 import org.apache.nifi.processor.util.StandardValidators;
-import org.json.JSONArray;
-import org.json.JSONObject;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.collect.Maps;
 
 /**
@@ -56,7 +76,9 @@ import com.google.common.collect.Maps;
 @CapabilityDescription("Preps incoming provenance event data from another NiFi clusters Site2SiteReportingTask output. That input is split into individual records," +
         " attributes are extracted into a more relational friendly model, and then prepared sql statement is written to the outgoing flowfile content body." +
         " Flowfiles exiting this processor are prepared to be written directly into Apache Phoenix. Please note the output from this processor will only" +
-        " work with Apache Phoenix and no other relational data store because of the nested Array types it supports.")
+        " work with Apache Phoenix and no other relational data store because of the nested Array types it supports. In Batched output mode many" +
+        " events are written to a single FlowFile instead of one FlowFile per event. Events can be filtered by event type, component and size" +
+        " while they are parsed so skipped events are never built or converted.")
 public class ProvenanceEventsToPhoenix
     extends AbstractProcessor {
 
@@ -68,6 +90,150 @@ public class ProvenanceEventsToPhoenix
             .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
             .build();
 
+    public static final AllowableValue OUTPUT_PER_EVENT = new AllowableValue("FlowFile Per Event", "FlowFile Per Event",
+            "Each event becomes its own FlowFile holding the UPSERT statement with the values in sql.args.N attributes, ready for PutSQL");
+
+    public static final AllowableValue OUTPUT_BATCHED = new AllowableValue("Batched", "Batched",
+            "Up to Batch Size events are written into a single FlowFile as a JSON document holding the UPSERT statement, the column" +
+                    " names and one array of bind values per event, so a downstream writer can bind the rows in bulk");
+
+    public static final PropertyDescriptor OUTPUT_MODE = new PropertyDescriptor.Builder()
+            .name("Output Mode")
+            .description("Whether each provenance event is written to its own FlowFile or events are grouped into batches")
+            .required(true)
+            .allowableValues(OUTPUT_PER_EVENT, OUTPUT_BATCHED)
+            .defaultValue(OUTPUT_PER_EVENT.getValue())
+            .build();
+
+    public static final PropertyDescriptor BATCH_SIZE = new PropertyDescriptor.Builder()
+            .name("Batch Size")
+            .description("Maximum number of provenance events written to a single FlowFile when Output Mode is Batched")
+            .required(true)
+            .defaultValue("1000")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
+    public static final PropertyDescriptor CONVERSION_THREADS = new PropertyDescriptor.Builder()
+            .name("Conversion Threads")
+            .description("Number of threads used to convert the events of a single FlowFile. Parsing stays on the processor thread, parsed" +
+                    " events are converted in chunks on a worker pool and the results are written out in their original order. 1 converts" +
+                    " on the processor thread without a pool")
+            .required(true)
+            .defaultValue("1")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
+    public static final AllowableValue DEDUPLICATION_NONE = new AllowableValue("None", "None",
+            "Every event is converted, duplicates included");
+
+    public static final AllowableValue DEDUPLICATION_EVENT_ID = new AllowableValue("Event ID", "Event ID",
+            "Events are identified by their eventId");
+
+    public static final AllowableValue DEDUPLICATION_HOST_ORDINAL = new AllowableValue("Hostname and Ordinal", "Hostname and Ordinal",
+            "Events are identified by their actorHostname and eventOrdinal, for sources whose event ids are not stable across resends");
+
+    public static final PropertyDescriptor DEDUPLICATION_KEY = new PropertyDescriptor.Builder()
+            .name("Deduplication Key")
+            .description("How events that were already seen are recognized, for example ones resent by Site-to-Site retries or reporting task" +
+                    " restarts. Seen keys are kept in a Bloom filter so a small fraction of new events, bounded by the false positive rate," +
+                    " will be treated as duplicates")
+            .required(true)
+            .allowableValues(DEDUPLICATION_NONE, DEDUPLICATION_EVENT_ID, DEDUPLICATION_HOST_ORDINAL)
+            .defaultValue(DEDUPLICATION_NONE.getValue())
+            .build();
+
+    public static final AllowableValue DUPLICATES_ROUTE = new AllowableValue("Route", "Route",
+            "The keys of the duplicate events of a FlowFile are written, one per line, to a single FlowFile routed to duplicate");
+
+    public static final AllowableValue DUPLICATES_DROP = new AllowableValue("Drop", "Drop",
+            "Duplicate events are only counted");
+
+    public static final PropertyDescriptor DUPLICATE_HANDLING = new PropertyDescriptor.Builder()
+            .name("Duplicate Handling")
+            .description("What to do with duplicate events when a Deduplication Key is set")
+            .required(true)
+            .allowableValues(DUPLICATES_ROUTE, DUPLICATES_DROP)
+            .defaultValue(DUPLICATES_ROUTE.getValue())
+            .build();
+
+    public static final PropertyDescriptor DEDUPLICATION_CAPACITY = new PropertyDescriptor.Builder()
+            .name("Deduplication Filter Capacity")
+            .description("Number of distinct events a filter generation holds before it is rotated. Each generation takes roughly" +
+                    " 1.8 MB per million events at a 0.001 false positive rate and two generations are kept")
+            .required(true)
+            .defaultValue("1000000")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
+    public static final PropertyDescriptor DEDUPLICATION_FALSE_POSITIVE_RATE = new PropertyDescriptor.Builder()
+            .name("Deduplication False Positive Rate")
+            .description("Probability, between 0 and 1 exclusive, that a new event is mistaken for a duplicate")
+            .required(true)
+            .defaultValue("0.001")
+            .addValidator(new Validator() {
+                @Override
+                public ValidationResult validate(String subject, String input, ValidationContext context) {
+                    boolean valid;
+                    try {
+                        double rate = Double.parseDouble(input);
+                        valid = rate > 0 && rate < 1;
+                    } catch (NumberFormatException e) {
+                        valid = false;
+                    }
+                    return new ValidationResult.Builder().subject(subject).input(input).valid(valid)
+                            .explanation("must be a number between 0 and 1 exclusive").build();
+                }
+            })
+            .build();
+
+    public static final PropertyDescriptor DEDUPLICATION_ROTATION_INTERVAL = new PropertyDescriptor.Builder()
+            .name("Deduplication Filter Rotation Interval")
+            .description("How long a filter generation is written to before it is rotated. Keys are remembered for between one and two intervals")
+            .required(true)
+            .defaultValue("1 hour")
+            .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
+            .build();
+
+    public static final PropertyDescriptor DEDUPLICATION_STATE_FILE = new PropertyDescriptor.Builder()
+            .name("Deduplication Filter State File")
+            .description("File the filter is saved to when the processor is stopped and restored from when it is started, so duplicates" +
+                    " are still recognized after a restart. If not set the filter starts empty every time")
+            .required(false)
+            .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
+            .build();
+
+    public static final PropertyDescriptor FILTER_EVENT_TYPES = new PropertyDescriptor.Builder()
+            .name("Event Types")
+            .description("Comma separated event types to convert, for example SEND, DROP, ROUTE. Other events are skipped while parsing." +
+                    " If not set every event type is converted")
+            .required(false)
+            .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
+            .build();
+
+    public static final PropertyDescriptor FILTER_COMPONENT_IDS = new PropertyDescriptor.Builder()
+            .name("Component IDs")
+            .description("Comma separated component ids whose events are converted. Other events are skipped while parsing." +
+                    " If not set events of every component are converted")
+            .required(false)
+            .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
+            .build();
+
+    public static final PropertyDescriptor FILTER_COMPONENT_NAME = new PropertyDescriptor.Builder()
+            .name("Component Name Pattern")
+            .description("Regular expression the whole component name has to match for its events to be converted. Other events are" +
+                    " skipped while parsing. If not set events of every component are converted")
+            .required(false)
+            .addValidator(StandardValidators.REGULAR_EXPRESSION_VALIDATOR)
+            .build();
+
+    public static final PropertyDescriptor FILTER_MIN_ENTITY_SIZE = new PropertyDescriptor.Builder()
+            .name("Minimum Entity Size")
+            .description("Smallest entitySize in bytes of events that are converted. Smaller events are skipped while parsing." +
+                    " If not set events of any size are converted")
+            .required(false)
+            .addValidator(StandardValidators.LONG_VALIDATOR)
+            .build();
+
     public static final Relationship REL_SUCCESS = new Relationship.Builder()
             .name("success")
             .description("successfully to convert provenance event into Phoenix SQL prepared statement")
@@ -75,7 +241,12 @@ public class ProvenanceEventsToPhoenix
 
     public static final Relationship REL_FAILURE = new Relationship.Builder()
             .name("failure")
-            .description("failed to convert provenance event into Phoenix SQL prepared statement")
+            .description("a JSON array of the events that could not be converted, each with the reason, or the original FlowFile if it is not valid JSON")
+            .build();
+
+    public static final Relationship REL_DUPLICATE = new Relationship.Builder()
+            .name("duplicate")
+            .description("keys of events that were already seen, when deduplication is enabled and duplicates are routed")
             .build();
 
     private List<PropertyDescriptor> descriptors;
@@ -86,11 +257,25 @@ public class ProvenanceEventsToPhoenix
     protected void init(final ProcessorInitializationContext context) {
         final List<PropertyDescriptor> descriptors = new ArrayList<>();
         descriptors.add(PHOENIX_TABLE_NAME);
+        descriptors.add(OUTPUT_MODE);
+        descriptors.add(BATCH_SIZE);
+        descriptors.add(CONVERSION_THREADS);
+        descriptors.add(DEDUPLICATION_KEY);
+        descriptors.add(DUPLICATE_HANDLING);
+        descriptors.add(DEDUPLICATION_CAPACITY);
+        descriptors.add(DEDUPLICATION_FALSE_POSITIVE_RATE);
+        descriptors.add(DEDUPLICATION_ROTATION_INTERVAL);
+        descriptors.add(DEDUPLICATION_STATE_FILE);
+        descriptors.add(FILTER_EVENT_TYPES);
+        descriptors.add(FILTER_COMPONENT_IDS);
+        descriptors.add(FILTER_COMPONENT_NAME);
+        descriptors.add(FILTER_MIN_ENTITY_SIZE);
         this.descriptors = Collections.unmodifiableList(descriptors);
 
         final Set<Relationship> relationships = new HashSet<>();
         relationships.add(REL_SUCCESS);
         relationships.add(REL_FAILURE);
+        relationships.add(REL_DUPLICATE);
         this.relationships = Collections.unmodifiableSet(relationships);
     }
 
@@ -104,13 +289,321 @@ public class ProvenanceEventsToPhoenix
         return descriptors;
     }
 
-    private static final String PREPEND_UPSERT = "UPSERT INTO ";
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    //Events handed to a conversion thread at a time, two chunks per thread are kept in flight
+    static final int CONVERSION_CHUNK_SIZE = 256;
+
+    //Failed events are buffered up to this many bytes before being appended to the failure FlowFile
+    static final int FAILURE_FLUSH_BYTES = 64 * 1024;
+
+    static final String PREPEND_UPSERT = "UPSERT INTO ";
+
+    static final String[] PROV_COLUMNS = {"EVENTID", "EVENTORDINAL", "EVENTTYPE", "TIMESTAMPMILLIS", "TIMESTAMP", "DURATIONMILLIS",
+            "LINEAGESTART", "DETAILS", "COMPONENTID", "COMPONENTTYPE", "COMPONENTNAME", "ENTITYID", "ENTITYTYPE", "ENTITYSIZE",
+            "UPDATEDATTRIBUTES", "PREVIOUSATTRIBUTES", "ACTORHOSTNAME", "CONTENTURI", "PREVIOUSCONTENTURI", "PARENTIDS", "CHILDIDS",
+            "PLATFORM", "APPLICATION", "UUID"};
 
     //Since the provenance events are all the same we can safely do this since this processor doesn't handle generic SQL but rather JSON of an expected format.
-    private static final String PROV_UPSERT_PREDICATES = " (EVENTID, EVENTORDINAL, EVENTTYPE, TIMESTAMPMILLIS, TIMESTAMP, DURATIONMILLIS, LINEAGESTART, DETAILS, " +
-            "COMPONENTID, COMPONENTTYPE, COMPONENTNAME, ENTITYID, ENTITYTYPE, ENTITYSIZE, UPDATEDATTRIBUTES, PREVIOUSATTRIBUTES, ACTORHOSTNAME, CONTENTURI, " +
-            "PREVIOUSCONTENTURI, PARENTIDS, CHILDIDS, PLATFORM, APPLICATION, UUID)";
-    private static final String PROV_PREP_VALUES = " VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    static final String PROV_UPSERT_PREDICATES = " (" + String.join(", ", PROV_COLUMNS) + ")";
+    static final String PROV_PREP_VALUES = " VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String[] ARG_TYPE_KEYS = new String[PROV_COLUMNS.length];
+    private static final String[] ARG_VALUE_KEYS = new String[PROV_COLUMNS.length];
+
+    static {
+        for (int i = 0; i < PROV_COLUMNS.length; i++) {
+            ARG_TYPE_KEYS[i] = "sql.args." + (i + 1) + ".type";
+            ARG_VALUE_KEYS[i] = "sql.args." + (i + 1) + ".value";
+        }
+    }
+
+    /**
+     * Outcome of converting one event. Either values is set or the event is kept along with the reason it failed.
+     */
+    static final class ConvertedEvent {
+
+        final String[] values;
+        final ProvenanceEvent event;
+        final String error;
+
+        ConvertedEvent(String[] values, ProvenanceEvent event, String error) {
+            this.values = values;
+            this.event = event;
+            this.error = error;
+        }
+    }
+
+    //A bad event is returned rather than thrown so the rest of the FlowFile still converts
+    private static final OrderedEventConverter.Conversion<ConvertedEvent> COLUMN_CONVERSION = new OrderedEventConverter.Conversion<ConvertedEvent>() {
+        @Override
+        public ConvertedEvent convert(ProvenanceEvent event) throws IOException {
+            try {
+                return new ConvertedEvent(toColumnValues(event), null, null);
+            } catch (ProcessException e) {
+                return new ConvertedEvent(null, event, e.getMessage());
+            }
+        }
+    };
+
+    /**
+     * Streams the events that could not be converted into one FlowFile holding {@code [{"error": ..., "event": {...}}, ...]}
+     * so they can be fixed or inspected without re-converting the rest of the input. Each event is written as the raw
+     * JSON it was read from. Failures are buffered up to {@link #FAILURE_FLUSH_BYTES} and then appended to the FlowFile,
+     * so memory does not grow with the number of bad events.
+     */
+    private static final class FailureWriter {
+
+        private final ProcessSession session;
+        private final FlowFile original;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final JsonGenerator generator;
+
+        private FlowFile failures;
+        private long count;
+        private String firstError;
+
+        private FailureWriter(ProcessSession session, FlowFile original) throws IOException {
+            this.session = session;
+            this.original = original;
+            this.generator = JSON_FACTORY.createGenerator(buffer);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        void add(ConvertedEvent failure) throws IOException {
+            if (count++ == 0) {
+                firstError = failure.error;
+                generator.writeStartArray();
+            }
+
+            generator.writeStartObject();
+            generator.writeStringField("error", failure.error);
+            generator.writeFieldName("event");
+            if (failure.event.getRawJson() != null) {
+                generator.writeRawValue(failure.event.getRawJson());
+            } else {
+                ProvenanceEventParser.write(generator, failure.event);
+            }
+            generator.writeEndObject();
+
+            generator.flush();
+            if (buffer.size() >= FAILURE_FLUSH_BYTES) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            final byte[] bytes = buffer.toByteArray();
+            buffer.reset();
+
+            OutputStreamCallback callback = new OutputStreamCallback() {
+                @Override
+                public void process(OutputStream out) throws IOException {
+                    out.write(bytes);
+                }
+            };
+            failures = failures == null ? session.write(session.create(original), callback) : session.append(failures, callback);
+        }
+
+        /**
+         * Closes the JSON array and returns the finished FlowFile, or null if every event converted.
+         */
+        FlowFile finish() throws IOException {
+            if (count == 0) {
+                return null;
+            }
+            generator.writeEndArray();
+            generator.close();
+            flush();
+
+            Map<String, String> attributes = Maps.newHashMapWithExpectedSize(2);
+            attributes.put(CoreAttributes.MIME_TYPE.key(), "application/json");
+            attributes.put("provenance.failed.count", String.valueOf(count));
+            return session.putAllAttributes(failures, attributes);
+        }
+
+        void discard() {
+            if (failures != null) {
+                session.remove(failures);
+                failures = null;
+            }
+        }
+    }
+
+    /**
+     * Deduplication state of one FlowFile. Keys are only checked against the filter while parsing and are remembered
+     * as pending once their event converts. The pending keys are added to the filter by {@link #commit()} after the
+     * session has been committed, so an event that never made it to success is not mistaken for a duplicate when it
+     * is retried or resent.
+     */
+    private static final class Deduplicator
+        implements OrderedEventConverter.EventFilter {
+
+        //Positions of the key fields in PROV_COLUMNS
+        private static final int EVENTID_COLUMN = 0;
+        private static final int EVENTORDINAL_COLUMN = 1;
+        private static final int ACTORHOSTNAME_COLUMN = 16;
+
+        private final RotatingBloomFilter filter;
+        private final boolean hostOrdinalKey;
+        private final boolean routeDuplicates;
+        private final RotatingBloomFilter.Pending pending = new RotatingBloomFilter.Pending();
+        private final StringBuilder duplicateKeys = new StringBuilder();
+        private long duplicateCount;
+
+        private Deduplicator(RotatingBloomFilter filter, boolean hostOrdinalKey, boolean routeDuplicates) {
+            this.filter = filter;
+            this.hostOrdinalKey = hostOrdinalKey;
+            this.routeDuplicates = routeDuplicates;
+        }
+
+        @Override
+        public boolean accept(ProvenanceEvent event) {
+            String key = hostOrdinalKey
+                    ? (event.getActorHostname() == null || event.getEventOrdinal() == null ? null : event.getActorHostname() + ':' + event.getEventOrdinal())
+                    : event.getEventId();
+            if (key == null || !filter.mightContain(key)) {
+                return true;
+            }
+            duplicate(key);
+            return false;
+        }
+
+        /**
+         * Marks the key of a converted event as pending. Returns false, counting the event as a duplicate, if an
+         * earlier event of the same FlowFile had the same key.
+         */
+        boolean convertedFirst(String[] values) {
+            String key = hostOrdinalKey ? values[ACTORHOSTNAME_COLUMN] + ':' + values[EVENTORDINAL_COLUMN] : values[EVENTID_COLUMN];
+            if (pending.add(key)) {
+                return true;
+            }
+            duplicate(key);
+            return false;
+        }
+
+        private void duplicate(String key) {
+            duplicateCount++;
+            if (routeDuplicates) {
+                duplicateKeys.append(key).append('\n');
+            }
+        }
+
+        void commit() {
+            filter.addAll(pending, System.currentTimeMillis());
+        }
+    }
+
+    private volatile ExecutorService conversionExecutor;
+    private volatile int conversionThreads;
+
+    private volatile RotatingBloomFilter deduplicationFilter;
+
+    //Filter statistics last published as counters, counters only take deltas
+    private final AtomicLong publishedHits = new AtomicLong();
+    private final AtomicLong publishedFillPerMille = new AtomicLong();
+
+    private volatile ProvenanceEventFilter eventFilter;
+
+    @OnScheduled
+    public void setupEventFilter(final ProcessContext context) {
+        final String componentName = context.getProperty(FILTER_COMPONENT_NAME).getValue();
+        eventFilter = new ProvenanceEventFilter(
+                toSet(context.getProperty(FILTER_EVENT_TYPES).getValue()),
+                toSet(context.getProperty(FILTER_COMPONENT_IDS).getValue()),
+                componentName == null ? null : Pattern.compile(componentName),
+                context.getProperty(FILTER_MIN_ENTITY_SIZE).asLong());
+    }
+
+    private static Set<String> toSet(final String values) {
+        if (values == null) {
+            return null;
+        }
+        final Set<String> set = new HashSet<>();
+        for (String value : values.split(",")) {
+            if (!value.trim().isEmpty()) {
+                set.add(value.trim());
+            }
+        }
+        return set.isEmpty() ? null : set;
+    }
+
+    @OnScheduled
+    public void startConversionPool(final ProcessContext context) {
+        conversionThreads = context.getProperty(CONVERSION_THREADS).asInteger();
+        if (conversionThreads > 1) {
+            conversionExecutor = Executors.newFixedThreadPool(conversionThreads, new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "ProvenanceConversion-" + getIdentifier() + "-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    @OnScheduled
+    public void setupDeduplication(final ProcessContext context) throws IOException {
+        if (DEDUPLICATION_NONE.getValue().equals(context.getProperty(DEDUPLICATION_KEY).getValue())) {
+            deduplicationFilter = null;
+            return;
+        }
+
+        RotatingBloomFilter filter = new RotatingBloomFilter(context.getProperty(DEDUPLICATION_CAPACITY).asInteger(),
+                Double.parseDouble(context.getProperty(DEDUPLICATION_FALSE_POSITIVE_RATE).getValue()),
+                context.getProperty(DEDUPLICATION_ROTATION_INTERVAL).asTimePeriod(TimeUnit.MILLISECONDS), System.currentTimeMillis());
+
+        if (context.getProperty(DEDUPLICATION_STATE_FILE).isSet()) {
+            Path stateFile = Paths.get(context.getProperty(DEDUPLICATION_STATE_FILE).getValue());
+            if (Files.exists(stateFile)) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(stateFile)))) {
+                    if (!filter.readFrom(in)) {
+                        getLogger().warn("Deduplication filter in {} was saved with a different capacity or false positive rate, starting empty",
+                                new Object[]{stateFile});
+                    }
+                } catch (IOException e) {
+                    getLogger().warn("Unable to restore the deduplication filter from {}, starting empty: {}", new Object[]{stateFile, e.getMessage()}, e);
+                }
+            }
+        }
+        deduplicationFilter = filter;
+    }
+
+    @OnStopped
+    public void saveDeduplicationFilter(final ProcessContext context) {
+        final RotatingBloomFilter filter = deduplicationFilter;
+        if (filter == null || !context.getProperty(DEDUPLICATION_STATE_FILE).isSet()) {
+            return;
+        }
+
+        Path stateFile = Paths.get(context.getProperty(DEDUPLICATION_STATE_FILE).getValue());
+        Path tmp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                filter.writeTo(out);
+            }
+            Files.move(tmp, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            getLogger().error("Unable to save the deduplication filter to {}: {}", new Object[]{stateFile, e.getMessage()}, e);
+        }
+    }
+
+    @OnStopped
+    public void stopConversionPool() {
+        final ExecutorService executor = conversionExecutor;
+        conversionExecutor = null;
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 
     @Override
     public void onTrigger(ProcessContext context, ProcessSession session) throws ProcessException {
@@ -120,121 +613,296 @@ public class ProvenanceEventsToPhoenix
             return;
         }
 
-        String tableName = context.getProperty(PHOENIX_TABLE_NAME).evaluateAttributeExpressions(flowFile).getValue();
+        final String tableName = context.getProperty(PHOENIX_TABLE_NAME).evaluateAttributeExpressions(flowFile).getValue();
 
-        StringBuffer buffer = new StringBuffer();
+        StringBuilder buffer = new StringBuilder();
         buffer.append(PREPEND_UPSERT);
         buffer.append(tableName);
         buffer.append(PROV_UPSERT_PREDICATES);
         buffer.append(PROV_PREP_VALUES);
+        final byte[] statement = buffer.toString().getBytes(StandardCharsets.UTF_8);
 
+        final boolean batched = OUTPUT_BATCHED.getValue().equals(context.getProperty(OUTPUT_MODE).getValue());
+        final int batchSize = context.getProperty(BATCH_SIZE).asInteger();
+
+        final ExecutorService executor = conversionExecutor;
+        final int chunksInFlight = 2 * conversionThreads;
+
+        //Events are converted as they are parsed so only the events of the chunks in flight are ever held in memory
+        final List<FlowFile> converted = new ArrayList<>();
+        final FailureWriter failed;
         try {
+            failed = new FailureWriter(session, flowFile);
+        } catch (IOException e) {
+            throw new ProcessException(e);
+        }
 
-            AtomicReference<JSONArray> provEvents = new AtomicReference<>();
+        final RotatingBloomFilter filter = deduplicationFilter;
+        final Deduplicator deduplication = filter == null ? null : new Deduplicator(filter,
+                DEDUPLICATION_HOST_ORDINAL.getValue().equals(context.getProperty(DEDUPLICATION_KEY).getValue()),
+                DUPLICATES_ROUTE.getValue().equals(context.getProperty(DUPLICATE_HANDLING).getValue()));
+        final long[] filteredCount = new long[1];
+        final ProvenanceEventFilter eventFilter = this.eventFilter;
+
+        try {
 
             session.read(flowFile, new InputStreamCallback() {
                 @Override
                 public void process(InputStream in) throws IOException {
-                    StringWriter writer = new StringWriter();
-                    IOUtils.copy(in, writer, "UTF-8");
-                    provEvents.set(new JSONArray(writer.toString()));
+                    final ProvenanceEventParser parser = new ProvenanceEventParser(in, eventFilter);
+                    try (OrderedEventConverter<ConvertedEvent> events = new OrderedEventConverter<>(parser, deduplication, COLUMN_CONVERSION,
+                            executor, CONVERSION_CHUNK_SIZE, chunksInFlight)) {
+                        if (batched) {
+                            writeBatches(session, flowFile, events, deduplication, statement, tableName, batchSize, converted, failed);
+                            return;
+                        }
+
+                        ConvertedEvent next;
+                        while ((next = events.next()) != null) {
+                            if (next.values == null) {
+                                failed.add(next);
+                                continue;
+                            }
+                            if (deduplication != null && !deduplication.convertedFirst(next.values)) {
+                                continue;
+                            }
+                            Map<String, String> attributes = generateAttributes(next.values, tableName);
+
+                            FlowFile ff = session.write(session.create(flowFile), new OutputStreamCallback() {
+                                @Override
+                                public void process(OutputStream out) throws IOException {
+                                    out.write(statement);
+                                }
+                            });
+
+                            converted.add(session.putAllAttributes(ff, attributes));
+                        }
+                    } finally {
+                        filteredCount[0] = parser.getFilteredCount();
+                    }
                 }
             });
 
-            JSONArray events = provEvents.get();
-
-            for (int i = 0; i < events.length(); i++) {
-                JSONObject obj = events.getJSONObject(i);
-                Map<String, String> attributes = generateAttributes(obj, tableName);
-
-                FlowFile ff = session.write(session.clone(flowFile), new OutputStreamCallback(){
-                    @Override
-                    public void process(OutputStream out) throws IOException {
-                        out.write(buffer.toString().getBytes());
-                    }
-                });
-
-                ff = session.putAllAttributes(ff, attributes);
-                session.transfer(ff, REL_SUCCESS);
+            if (filteredCount[0] > 0) {
+                session.adjustCounter("Filtered Provenance Events", filteredCount[0], false);
             }
-
+            session.transfer(converted, REL_SUCCESS);
+            if (deduplication != null) {
+                transferDuplicates(session, flowFile, filter, deduplication.duplicateCount, deduplication.duplicateKeys);
+            }
+            transferFailed(session, flowFile, failed);
             session.remove(flowFile);
 
+            //Only events that are safely on their way to success count as seen
+            session.commit();
+            if (deduplication != null) {
+                deduplication.commit();
+            }
+
         } catch (Exception ex) {
+            //Nothing of a FlowFile that cannot be parsed to the end is sent on, so a retry does not duplicate its events
             getLogger().error("Error converting provenance event into Phoenix prepared statement {}", new Object[]{ex.getMessage()}, ex);
+            session.remove(converted);
+            failed.discard();
             session.transfer(flowFile, REL_FAILURE);
         }
+
+        if (filter != null) {
+            publishFilterStatistics(session, filter);
+        }
+    }
+
+    /**
+     * Keeps the "Deduplication Filter Hits" and "Deduplication Filter Fill Per Mille" counters equal to the current
+     * values of the filter, so a saturating filter can be noticed whether or not duplicates are routed.
+     */
+    private void publishFilterStatistics(final ProcessSession session, final RotatingBloomFilter filter) {
+        final long hits = filter.getHitCount();
+        final long fillPerMille = Math.round(filter.getFillRatio() * 1000);
+
+        final long hitsDelta = hits - publishedHits.getAndSet(hits);
+        if (hitsDelta != 0) {
+            session.adjustCounter("Deduplication Filter Hits", hitsDelta, true);
+        }
+        final long fillDelta = fillPerMille - publishedFillPerMille.getAndSet(fillPerMille);
+        if (fillDelta != 0) {
+            session.adjustCounter("Deduplication Filter Fill Per Mille", fillDelta, true);
+        }
+
+        if (getLogger().isDebugEnabled()) {
+            getLogger().debug("Deduplication filter hits: {}, fill ratio: {}, rotations: {}",
+                    new Object[]{hits, String.format("%.4f", filter.getFillRatio()), filter.getRotationCount()});
+        }
+    }
+
+    private void transferDuplicates(final ProcessSession session, final FlowFile original, final RotatingBloomFilter filter,
+                                    final long count, final StringBuilder keys) {
+        if (count == 0) {
+            return;
+        }
+        session.adjustCounter("Duplicate Provenance Events", count, false);
+        if (keys.length() == 0) {
+            return;
+        }
+
+        FlowFile duplicates = session.write(session.create(original), new OutputStreamCallback() {
+            @Override
+            public void process(OutputStream out) throws IOException {
+                out.write(keys.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        });
+
+        Map<String, String> attributes = Maps.newHashMapWithExpectedSize(4);
+        attributes.put(CoreAttributes.MIME_TYPE.key(), "text/plain");
+        attributes.put("provenance.duplicate.count", String.valueOf(count));
+        attributes.put("provenance.dedup.hits", String.valueOf(filter.getHitCount()));
+        attributes.put("provenance.dedup.fill.ratio", String.format("%.4f", filter.getFillRatio()));
+        session.transfer(session.putAllAttributes(duplicates, attributes), REL_DUPLICATE);
+    }
+
+    private void transferFailed(final ProcessSession session, final FlowFile original, final FailureWriter failed) throws IOException {
+        final FlowFile failures = failed.finish();
+        if (failures == null) {
+            return;
+        }
+        getLogger().warn("{} provenance events in {} could not be converted, first error: {}",
+                new Object[]{failed.count, original, failed.firstError});
+        session.transfer(failures, REL_FAILURE);
     }
 
+    /**
+     * Streams the parsed events into FlowFiles of at most batchSize events each. A batch FlowFile holds
+     * {@code {"sql": ..., "columns": [...], "rows": [[...], ...]}} where every row lists the bind values in column order.
+     * Events that failed to convert are left out of the batches and handed to failed.
+     */
+    private void writeBatches(final ProcessSession session, final FlowFile original, final OrderedEventConverter<ConvertedEvent> events,
+                              final Deduplicator deduplication, final byte[] statement, final String tableName, final int batchSize,
+                              final List<FlowFile> converted, final FailureWriter failed) throws IOException {
+        final String sql = new String(statement, StandardCharsets.UTF_8);
+        final int[] count = new int[1];
+
+        do {
+            count[0] = 0;
+            final OutputStreamCallback rows = new OutputStreamCallback() {
+                @Override
+                public void process(OutputStream out) throws IOException {
+                    JsonGenerator generator = JSON_FACTORY.createGenerator(out);
+                    generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+                    generator.writeStartObject();
+                    generator.writeStringField("sql", sql);
+                    generator.writeArrayFieldStart("columns");
+                    for (String column : PROV_COLUMNS) {
+                        generator.writeString(column);
+                    }
+                    generator.writeEndArray();
+
+                    generator.writeArrayFieldStart("rows");
+                    ConvertedEvent next;
+                    while (count[0] < batchSize && (next = events.next()) != null) {
+                        if (next.values == null) {
+                            failed.add(next);
+                            continue;
+                        }
+                        if (deduplication != null && !deduplication.convertedFirst(next.values)) {
+                            continue;
+                        }
+                        generator.writeStartArray();
+                        for (String value : next.values) {
+                            generator.writeString(value);
+                        }
+                        generator.writeEndArray();
+                        count[0]++;
+                    }
+                    generator.writeEndArray();
+                    generator.writeEndObject();
+                    generator.close();
+                }
+            };
+
+            //A parse error part way through leaves the batch being written behind, it must not reach the session
+            final FlowFile created = session.create(original);
+            FlowFile batch;
+            try {
+                batch = session.write(created, rows);
+            } catch (RuntimeException e) {
+                session.remove(created);
+                throw e;
+            }
+
+            if (count[0] == 0) {
+                session.remove(batch);
+                break;
+            }
+
+            Map<String, String> attributes = Maps.newHashMapWithExpectedSize(3);
+            attributes.put(CoreAttributes.MIME_TYPE.key(), "application/json");
+            attributes.put("sql.table", tableName);
+            attributes.put("provenance.event.count", String.valueOf(count[0]));
+            converted.add(session.putAllAttributes(batch, attributes));
+        } while (count[0] == batchSize);
+    }
 
-    private final  Map<String, String> generateAttributes(JSONObject obj, String tableName) {
+    private final Map<String, String> generateAttributes(String[] values, String tableName) {
         //Generate all of the update values for the prepared statement
-        Map<String, String> attributes = Maps.newHashMapWithExpectedSize(48);
+        Map<String, String> attributes = Maps.newHashMapWithExpectedSize(2 * values.length + 2);
 
         attributes.put(CoreAttributes.MIME_TYPE.key(), "text/plain");
         attributes.put("sql.table", tableName);
-        attributes.put("sql.args.1.type", "12");
-        attributes.put("sql.args.1.value", obj.getString("eventId"));
-        attributes.put("sql.args.2.type", "12");
-        attributes.put("sql.args.2.value", String.valueOf(obj.getLong("eventOrdinal")));
-        attributes.put("sql.args.3.type", "12");
-        attributes.put("sql.args.3.value", obj.getString("eventType"));
-        attributes.put("sql.args.4.type", "12");
-        attributes.put("sql.args.4.value", String.valueOf(obj.getLong("timestampMillis")));
-        attributes.put("sql.args.5.type", "12");
-        attributes.put("sql.args.5.value", obj.getString("timestamp"));
-        attributes.put("sql.args.6.type", "12");
-        attributes.put("sql.args.6.value", String.valueOf(obj.getLong("durationMillis")));
-        attributes.put("sql.args.7.type", "12");
-        attributes.put("sql.args.7.value", String.valueOf(obj.getLong("lineageStart")));
-        attributes.put("sql.args.8.type", "12");
-        String details = "";
-        if (obj.has("details")) {
-            details = obj.getString("details");
-        }
-        attributes.put("sql.args.8.value", details);
-        attributes.put("sql.args.9.type", "12");
-        attributes.put("sql.args.9.value", obj.getString("componentId"));
-        attributes.put("sql.args.10.type", "12");
-        attributes.put("sql.args.10.value", obj.getString("componentType"));
-        attributes.put("sql.args.11.type", "12");
-        attributes.put("sql.args.11.value", obj.getString("componentName"));
-        attributes.put("sql.args.12.type", "12");
-        attributes.put("sql.args.12.value", obj.getString("entityId"));
-        attributes.put("sql.args.13.type", "12");
-        attributes.put("sql.args.13.value", obj.getString("entityType"));
-        attributes.put("sql.args.14.type", "12");
-        attributes.put("sql.args.14.value", String.valueOf(obj.getLong("entitySize")));
-        attributes.put("sql.args.15.type", "12");
-        attributes.put("sql.args.15.value", obj.getJSONObject("updatedAttributes").toString());
-        attributes.put("sql.args.16.type", "12");
-        attributes.put("sql.args.16.value", obj.getJSONObject("previousAttributes").toString());
-        attributes.put("sql.args.17.type", "12");
-        attributes.put("sql.args.17.value", obj.getString("actorHostname"));
-        attributes.put("sql.args.18.type", "12");
-        attributes.put("sql.args.18.value", obj.getString("contentURI"));
-        attributes.put("sql.args.19.type", "12");
-        attributes.put("sql.args.19.value", obj.getString("previousContentURI"));
-        attributes.put("sql.args.20.type", "12");
-        attributes.put("sql.args.20.value", obj.getJSONArray("parentIds").toString());
-        attributes.put("sql.args.21.type", "12");
-        attributes.put("sql.args.21.value", obj.getJSONArray("childIds").toString());
-        attributes.put("sql.args.22.type", "12");
-        attributes.put("sql.args.22.value", obj.getString("platform"));
-        attributes.put("sql.args.23.type", "12");
-        attributes.put("sql.args.23.value", obj.getString("application"));
-        attributes.put("sql.args.24.type", "12");
-
-        //Gets the UUID of the flowfile
-        String uuid = null;
-        if (obj.getJSONObject("updatedAttributes").has("uuid")) {
-            uuid = obj.getJSONObject("updatedAttributes").getString("uuid");
-        } else {
-            uuid = obj.getJSONObject("previousAttributes").getString("uuid");
-        }
-
-        attributes.put("sql.args.24.value", uuid);
+        for (int i = 0; i < values.length; i++) {
+            attributes.put(ARG_TYPE_KEYS[i], "12");
+            attributes.put(ARG_VALUE_KEYS[i], values[i]);
+        }
 
         return attributes;
     }
+
+    /**
+     * Values of an event in {@link #PROV_COLUMNS} order, all bound as VARCHAR.
+     */
+    static String[] toColumnValues(ProvenanceEvent event) throws IOException {
+        if (event.getError() != null) {
+            throw new ProcessException(event.getError());
+        }
+
+        String details = "";
+        if (event.getDetails() != null) {
+            details = event.getDetails();
+        }
+
+        return new String[] {
+                required(event.getEventId(), "eventId"),
+                String.valueOf(required(event.getEventOrdinal(), "eventOrdinal")),
+                required(event.getEventType(), "eventType"),
+                String.valueOf(required(event.getTimestampMillis(), "timestampMillis")),
+                required(event.getTimestamp(), "timestamp"),
+                String.valueOf(required(event.getDurationMillis(), "durationMillis")),
+                String.valueOf(required(event.getLineageStart(), "lineageStart")),
+                details,
+                required(event.getComponentId(), "componentId"),
+                required(event.getComponentType(), "componentType"),
+                required(event.getComponentName(), "componentName"),
+                required(event.getEntityId(), "entityId"),
+                required(event.getEntityType(), "entityType"),
+                String.valueOf(required(event.getEntitySize(), "entitySize")),
+                ProvenanceEventParser.toJson(required(event.getUpdatedAttributes(), "updatedAttributes")),
+                ProvenanceEventParser.toJson(required(event.getPreviousAttributes(), "previousAttributes")),
+                required(event.getActorHostname(), "actorHostname"),
+                required(event.getContentURI(), "contentURI"),
+                required(event.getPreviousContentURI(), "previousContentURI"),
+                ProvenanceEventParser.toJson(required(event.getParentIds(), "parentIds")),
+                ProvenanceEventParser.toJson(required(event.getChildIds(), "childIds")),
+                required(event.getPlatform(), "platform"),
+                required(event.getApplication(), "application"),
+                //Gets the UUID of the flowfile
+                required(event.getFlowFileUuid(), "uuid")
+        };
+    }
+
+    private static <T> T required(T value, String field) {
+        if (value == null) {
+            throw new ProcessException("Provenance event is missing " + field);
+        }
+        return value;
+    }
 }
@@ -0,0 +1,235 @@
+package com.github.jdye64.processors.provenance;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.nifi.annotation.behavior.InputRequirement;
+import org.apache.nifi.annotation.behavior.WritesAttribute;
+import org.apache.nifi.annotation.behavior.WritesAttributes;
+import org.apache.nifi.annotation.documentation.CapabilityDescription;
+import org.apache.nifi.annotation.documentation.SeeAlso;
+import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.processor.AbstractProcessor;
+import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.processor.ProcessSession;
+import org.apache.nifi.processor.ProcessorInitializationContext;
+import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.io.InputStreamCallback;
+import org.apache.nifi.processor.io.OutputStreamCallback;
+import org.apache.nifi.schema.access.SchemaNotFoundException;
+import org.apache.nifi.serialization.RecordSetWriter;
+import org.apache.nifi.serialization.RecordSetWriterFactory;
+import org.apache.nifi.serialization.SimpleRecordSchema;
+import org.apache.nifi.serialization.WriteResult;
+import org.apache.nifi.serialization.record.MapRecord;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordField;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+@Tags({"provenance", "events", "record", "avro", "json", "csv", "convert"})
+@CapabilityDescription("Converts incoming provenance event data from another NiFi clusters Site2SiteReportingTask output into records with a" +
+        " built in provenance schema and writes them with the configured Record Writer, so the same events can be written as Avro, JSON, CSV" +
+        " or anything else a Record Writer supports. parentIds and childIds are arrays and updatedAttributes and previousAttributes are maps." +
+        " Events are parsed and written one at a time in a single pass over the content.")
+@SeeAlso({ProvenanceEventsToPhoenix.class})
+@InputRequirement(InputRequirement.Requirement.INPUT_REQUIRED)
+@WritesAttributes({
+        @WritesAttribute(attribute = "record.count", description = "Number of provenance events written"),
+        @WritesAttribute(attribute = "mime.type", description = "Mime type reported by the Record Writer")
+})
+public class ProvenanceEventsToRecords
+    extends AbstractProcessor {
+
+    public static final RecordSchema PROVENANCE_SCHEMA;
+
+    static {
+        final List<RecordField> fields = new ArrayList<>();
+        fields.add(new RecordField("eventId", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("eventOrdinal", RecordFieldType.LONG.getDataType()));
+        fields.add(new RecordField("eventType", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("timestampMillis", RecordFieldType.LONG.getDataType()));
+        fields.add(new RecordField("timestamp", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("durationMillis", RecordFieldType.LONG.getDataType()));
+        fields.add(new RecordField("lineageStart", RecordFieldType.LONG.getDataType()));
+        fields.add(new RecordField("details", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("componentId", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("componentType", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("componentName", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("entityId", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("entityType", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("entitySize", RecordFieldType.LONG.getDataType()));
+        fields.add(new RecordField("updatedAttributes", RecordFieldType.MAP.getMapDataType(RecordFieldType.STRING.getDataType())));
+        fields.add(new RecordField("previousAttributes", RecordFieldType.MAP.getMapDataType(RecordFieldType.STRING.getDataType())));
+        fields.add(new RecordField("actorHostname", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("contentURI", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("previousContentURI", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("parentIds", RecordFieldType.ARRAY.getArrayDataType(RecordFieldType.STRING.getDataType())));
+        fields.add(new RecordField("childIds", RecordFieldType.ARRAY.getArrayDataType(RecordFieldType.STRING.getDataType())));
+        fields.add(new RecordField("platform", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("application", RecordFieldType.STRING.getDataType()));
+        fields.add(new RecordField("uuid", RecordFieldType.STRING.getDataType()));
+        PROVENANCE_SCHEMA = new SimpleRecordSchema(fields);
+    }
+
+    public static final PropertyDescriptor RECORD_WRITER = new PropertyDescriptor.Builder()
+            .name("Record Writer")
+            .description("Record Writer used to write the provenance events. The writer is handed the built in provenance schema")
+            .required(true)
+            .identifiesControllerService(RecordSetWriterFactory.class)
+            .build();
+
+    public static final Relationship REL_SUCCESS = new Relationship.Builder()
+            .name("success")
+            .description("successfully converted provenance events into records")
+            .build();
+
+    public static final Relationship REL_FAILURE = new Relationship.Builder()
+            .name("failure")
+            .description("failed to convert provenance events into records")
+            .build();
+
+    private List<PropertyDescriptor> descriptors;
+
+    private Set<Relationship> relationships;
+
+    @Override
+    protected void init(final ProcessorInitializationContext context) {
+        final List<PropertyDescriptor> descriptors = new ArrayList<>();
+        descriptors.add(RECORD_WRITER);
+        this.descriptors = Collections.unmodifiableList(descriptors);
+
+        final Set<Relationship> relationships = new HashSet<>();
+        relationships.add(REL_SUCCESS);
+        relationships.add(REL_FAILURE);
+        this.relationships = Collections.unmodifiableSet(relationships);
+    }
+
+    @Override
+    public Set<Relationship> getRelationships() {
+        return this.relationships;
+    }
+
+    @Override
+    public final List<PropertyDescriptor> getSupportedPropertyDescriptors() {
+        return descriptors;
+    }
+
+    @Override
+    public void onTrigger(ProcessContext context, ProcessSession session) throws ProcessException {
+
+        final FlowFile flowFile = session.get();
+        if ( flowFile == null ) {
+            return;
+        }
+
+        final RecordSetWriterFactory writerFactory = context.getProperty(RECORD_WRITER).asControllerService(RecordSetWriterFactory.class);
+
+        final FlowFile[] converted = new FlowFile[] {session.create(flowFile)};
+        final Map<String, String> attributes = new HashMap<>();
+
+        try {
+            final RecordSchema schema = writerFactory.getSchema(flowFile.getAttributes(), PROVENANCE_SCHEMA);
+
+            session.read(flowFile, new InputStreamCallback() {
+                @Override
+                public void process(final InputStream in) throws IOException {
+                    converted[0] = session.write(converted[0], new OutputStreamCallback() {
+                        @Override
+                        public void process(OutputStream out) throws IOException {
+                            try (ProvenanceEventParser parser = new ProvenanceEventParser(in);
+                                 RecordSetWriter writer = writerFactory.createWriter(getLogger(), schema, out)) {
+
+                                writer.beginRecordSet();
+                                ProvenanceEvent event;
+                                while ((event = parser.next()) != null) {
+                                    if (event.getError() != null) {
+                                        throw new ProcessException("Invalid provenance event " + event.getEventId() + ": " + event.getError());
+                                    }
+                                    writer.write(toRecord(event));
+                                }
+                                WriteResult result = writer.finishRecordSet();
+
+                                attributes.putAll(result.getAttributes());
+                                attributes.put("record.count", String.valueOf(result.getRecordCount()));
+                                attributes.put(CoreAttributes.MIME_TYPE.key(), writer.getMimeType());
+                            } catch (SchemaNotFoundException e) {
+                                throw new ProcessException(e);
+                            }
+                        }
+                    });
+                }
+            });
+
+        } catch (Exception ex) {
+            getLogger().error("Error converting provenance events into records {}", new Object[]{ex.getMessage()}, ex);
+            session.remove(converted[0]);
+            session.transfer(flowFile, REL_FAILURE);
+            return;
+        }
+
+        session.transfer(session.putAllAttributes(converted[0], attributes), REL_SUCCESS);
+        session.remove(flowFile);
+    }
+
+    static Record toRecord(ProvenanceEvent event) {
+        final Map<String, Object> values = new HashMap<>(48);
+        values.put("eventId", event.getEventId());
+        values.put("eventOrdinal", event.getEventOrdinal());
+        values.put("eventType", event.getEventType());
+        values.put("timestampMillis", event.getTimestampMillis());
+        values.put("timestamp", event.getTimestamp());
+        values.put("durationMillis", event.getDurationMillis());
+        values.put("lineageStart", event.getLineageStart());
+        values.put("details", event.getDetails());
+        values.put("componentId", event.getComponentId());
+        values.put("componentType", event.getComponentType());
+        values.put("componentName", event.getComponentName());
+        values.put("entityId", event.getEntityId());
+        values.put("entityType", event.getEntityType());
+        values.put("entitySize", event.getEntitySize());
+        values.put("updatedAttributes", event.getUpdatedAttributes());
+        values.put("previousAttributes", event.getPreviousAttributes());
+        values.put("actorHostname", event.getActorHostname());
+        values.put("contentURI", event.getContentURI());
+        values.put("previousContentURI", event.getPreviousContentURI());
+        values.put("parentIds", event.getParentIds() == null ? null : event.getParentIds().toArray());
+        values.put("childIds", event.getChildIds() == null ? null : event.getChildIds().toArray());
+        values.put("platform", event.getPlatform());
+        values.put("application", event.getApplication());
+        values.put("uuid", event.getFlowFileUuid());
+        return new MapRecord(PROVENANCE_SCHEMA, values);
+    }
+}
@@ -0,0 +1,252 @@
+package com.github.jdye64.processors.provenance;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.annotation.behavior.InputRequirement;
+import org.apache.nifi.annotation.behavior.WritesAttribute;
+import org.apache.nifi.annotation.documentation.CapabilityDescription;
+import org.apache.nifi.annotation.documentation.SeeAlso;
+import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.dbcp.DBCPService;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.processor.AbstractProcessor;
+import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.processor.ProcessSession;
+import org.apache.nifi.processor.ProcessorInitializationContext;
+import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.io.InputStreamCallback;
+import org.apache.nifi.processor.util.StandardValidators;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+@Tags({"provenance", "events", "phoenix", "hbase", "jdbc", "sql", "put"})
+@CapabilityDescription("Writes incoming provenance event data from another NiFi clusters Site2SiteReportingTask output straight into Apache Phoenix" +
+        " through JDBC. Events are parsed as they are read and bound with PreparedStatement batches, so no intermediate FlowFile per event" +
+        " and no separate PutSQL hop are needed. The columns written are the same as the ones ProvenanceEventsToPhoenix prepares.")
+@SeeAlso({ProvenanceEventsToPhoenix.class})
+@InputRequirement(InputRequirement.Requirement.INPUT_REQUIRED)
+@WritesAttribute(attribute = "provenance.event.count", description = "Number of provenance events written from the FlowFile")
+public class PutPhoenixProvenanceEvents
+    extends AbstractProcessor {
+
+    static final String STATEMENT_UPSERT = "UPSERT";
+    static final String STATEMENT_INSERT = "INSERT";
+
+    public static final PropertyDescriptor DBCP_SERVICE = new PropertyDescriptor.Builder()
+            .name("Database Connection Pooling Service")
+            .description("Connection pool used to obtain connections to Phoenix")
+            .required(true)
+            .identifiesControllerService(DBCPService.class)
+            .build();
+
+    public static final PropertyDescriptor PHOENIX_TABLE_NAME = new PropertyDescriptor.Builder()
+            .name("Phoenix Table Name")
+            .description("Name of the Phoenix table that the provenance events should be inserted into.")
+            .expressionLanguageSupported(true)
+            .required(true)
+            .addValidator(StandardValidators.NON_EMPTY_VALIDATOR)
+            .build();
+
+    public static final PropertyDescriptor STATEMENT_TYPE = new PropertyDescriptor.Builder()
+            .name("Statement Type")
+            .description("SQL verb used to write the events. Phoenix only supports UPSERT, INSERT is meant for other JDBC databases")
+            .required(true)
+            .allowableValues(STATEMENT_UPSERT, STATEMENT_INSERT)
+            .defaultValue(STATEMENT_UPSERT)
+            .build();
+
+    public static final PropertyDescriptor BATCH_SIZE = new PropertyDescriptor.Builder()
+            .name("Batch Size")
+            .description("Number of events added to a PreparedStatement batch before it is executed")
+            .required(true)
+            .defaultValue("1000")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
+    public static final PropertyDescriptor COMMIT_INTERVAL = new PropertyDescriptor.Builder()
+            .name("Commit Interval")
+            .description("Number of executed batches between transaction commits when the Statement Type is UPSERT. Whatever is left" +
+                    " is always committed once the whole FlowFile has been written. If a later batch fails the rows already committed" +
+                    " stay in the table, which is harmless with UPSERT since the FlowFile will rewrite the same rows when it is retried." +
+                    " With INSERT a retry would fail on those duplicate keys, so this property is ignored and each FlowFile is written" +
+                    " in a single transaction")
+            .required(true)
+            .defaultValue("10")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
+    public static final Relationship REL_SUCCESS = new Relationship.Builder()
+            .name("success")
+            .description("FlowFiles whose provenance events were all written to Phoenix")
+            .build();
+
+    public static final Relationship REL_RETRY = new Relationship.Builder()
+            .name("retry")
+            .description("FlowFiles that could not be written because of a transient database error and may succeed if retried")
+            .build();
+
+    public static final Relationship REL_FAILURE = new Relationship.Builder()
+            .name("failure")
+            .description("FlowFiles that could not be parsed or written to Phoenix")
+            .build();
+
+    private List<PropertyDescriptor> descriptors;
+
+    private Set<Relationship> relationships;
+
+    @Override
+    protected void init(final ProcessorInitializationContext context) {
+        final List<PropertyDescriptor> descriptors = new ArrayList<>();
+        descriptors.add(DBCP_SERVICE);
+        descriptors.add(PHOENIX_TABLE_NAME);
+        descriptors.add(STATEMENT_TYPE);
+        descriptors.add(BATCH_SIZE);
+        descriptors.add(COMMIT_INTERVAL);
+        this.descriptors = Collections.unmodifiableList(descriptors);
+
+        final Set<Relationship> relationships = new HashSet<>();
+        relationships.add(REL_SUCCESS);
+        relationships.add(REL_RETRY);
+        relationships.add(REL_FAILURE);
+        this.relationships = Collections.unmodifiableSet(relationships);
+    }
+
+    @Override
+    public Set<Relationship> getRelationships() {
+        return this.relationships;
+    }
+
+    @Override
+    public final List<PropertyDescriptor> getSupportedPropertyDescriptors() {
+        return descriptors;
+    }
+
+    @Override
+    public void onTrigger(ProcessContext context, ProcessSession session) throws ProcessException {
+
+        FlowFile flowFile = session.get();
+        if ( flowFile == null ) {
+            return;
+        }
+
+        final DBCPService dbcpService = context.getProperty(DBCP_SERVICE).asControllerService(DBCPService.class);
+        final String tableName = context.getProperty(PHOENIX_TABLE_NAME).evaluateAttributeExpressions(flowFile).getValue();
+        final String statementType = context.getProperty(STATEMENT_TYPE).getValue();
+        final String sql = statementType + " INTO " + tableName
+                + ProvenanceEventsToPhoenix.PROV_UPSERT_PREDICATES + ProvenanceEventsToPhoenix.PROV_PREP_VALUES;
+        final int batchSize = context.getProperty(BATCH_SIZE).asInteger();
+        // a partially committed FlowFile can only be retried safely with UPSERT, INSERT commits once per FlowFile
+        final int commitInterval = STATEMENT_INSERT.equals(statementType)
+                ? Integer.MAX_VALUE : context.getProperty(COMMIT_INTERVAL).asInteger();
+
+        final long start = System.nanoTime();
+        final long[] written = new long[1];
+        String url = null;
+
+        try (Connection connection = dbcpService.getConnection()) {
+            url = connection.getMetaData().getURL();
+            final boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                session.read(flowFile, new InputStreamCallback() {
+                    @Override
+                    public void process(InputStream in) throws IOException {
+                        try (ProvenanceEventParser parser = new ProvenanceEventParser(in)) {
+                            written[0] = writeEvents(parser, connection, statement, batchSize, commitInterval);
+                        } catch (SQLException e) {
+                            throw new ProcessException(e);
+                        }
+                    }
+                });
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+
+        } catch (Exception ex) {
+            Throwable cause = ex instanceof ProcessException && ex.getCause() instanceof SQLException ? ex.getCause() : ex;
+            if (cause instanceof SQLTransientException) {
+                getLogger().warn("Transient error writing provenance events to {}, routing to retry: {}", new Object[]{tableName, cause.getMessage()}, cause);
+                session.transfer(session.penalize(flowFile), REL_RETRY);
+            } else {
+                getLogger().error("Error writing provenance events to {}: {}", new Object[]{tableName, cause.getMessage()}, cause);
+                session.transfer(flowFile, REL_FAILURE);
+            }
+            return;
+        }
+
+        flowFile = session.putAttribute(flowFile, "provenance.event.count", String.valueOf(written[0]));
+        session.getProvenanceReporter().send(flowFile, url, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        session.transfer(flowFile, REL_SUCCESS);
+    }
+
+    /**
+     * Binds every event to the statement, executing a batch every batchSize events and committing every commitInterval
+     * batches. Returns the number of events written.
+     */
+    private long writeEvents(ProvenanceEventParser parser, Connection connection, PreparedStatement statement, int batchSize,
+                             int commitInterval) throws IOException, SQLException {
+        long written = 0;
+        int pending = 0;
+        int uncommittedBatches = 0;
+
+        ProvenanceEvent event;
+        while ((event = parser.next()) != null) {
+            String[] values = ProvenanceEventsToPhoenix.toColumnValues(event);
+            for (int i = 0; i < values.length; i++) {
+                statement.setString(i + 1, values[i]);
+            }
+            statement.addBatch();
+            written++;
+
+            if (++pending == batchSize) {
+                statement.executeBatch();
+                pending = 0;
+                if (++uncommittedBatches == commitInterval) {
+                    connection.commit();
+                    uncommittedBatches = 0;
+                }
+            }
+        }
+
+        if (pending > 0) {
+            statement.executeBatch();
+        }
+        connection.commit();
+        return written;
+    }
+}
@@ -0,0 +1,306 @@
+package com.github.jdye64.processors.provenance;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.nifi.annotation.behavior.InputRequirement;
+import org.apache.nifi.annotation.behavior.TriggerSerially;
+import org.apache.nifi.annotation.behavior.TriggerWhenEmpty;
+import org.apache.nifi.annotation.behavior.WritesAttribute;
+import org.apache.nifi.annotation.behavior.WritesAttributes;
+import org.apache.nifi.annotation.documentation.CapabilityDescription;
+import org.apache.nifi.annotation.documentation.SeeAlso;
+import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.processor.AbstractProcessor;
+import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.processor.ProcessSession;
+import org.apache.nifi.processor.ProcessorInitializationContext;
+import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.io.InputStreamCallback;
+import org.apache.nifi.processor.io.OutputStreamCallback;
+import org.apache.nifi.processor.util.StandardValidators;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.common.collect.Maps;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+@Tags({"provenance", "events", "rollup", "aggregate", "metrics"})
+@CapabilityDescription("Aggregates incoming provenance event data from another NiFi clusters Site2SiteReportingTask output into tumbling windows of" +
+        " event time per componentId and eventType, so counts, byte totals and duration percentiles can be stored and queried per window instead" +
+        " of per event. Each rollup holds the event count and a mergeable sketch of durationMillis and of entitySize with min, max, sum, p50, p95," +
+        " p99 and the sketch buckets, so rollups can be merged further downstream. A window is written once an event past its end plus the allowed" +
+        " lateness arrives, or once no input has arrived for that long. Open windows are lost when the processor is stopped.")
+@SeeAlso({ProvenanceEventsToPhoenix.class})
+@InputRequirement(InputRequirement.Requirement.INPUT_REQUIRED)
+@TriggerSerially
+@TriggerWhenEmpty
+@WritesAttributes({
+        @WritesAttribute(attribute = "rollup.count", description = "Number of rollups in the FlowFile"),
+        @WritesAttribute(attribute = "rollup.open.count", description = "Rollups still open after this output"),
+        @WritesAttribute(attribute = "rollup.late.count", description = "Events dropped since the processor was started because their window had already been written")
+})
+public class RollupProvenanceEvents
+    extends AbstractProcessor {
+
+    public static final PropertyDescriptor WINDOW_SIZE = new PropertyDescriptor.Builder()
+            .name("Window Size")
+            .description("Length of each tumbling window, windows are aligned to the epoch")
+            .required(true)
+            .defaultValue("1 min")
+            .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
+            .build();
+
+    public static final PropertyDescriptor ALLOWED_LATENESS = new PropertyDescriptor.Builder()
+            .name("Allowed Lateness")
+            .description("How far behind the newest event seen an event may be and still be added to its window")
+            .required(true)
+            .defaultValue("30 sec")
+            .addValidator(StandardValidators.TIME_PERIOD_VALIDATOR)
+            .build();
+
+    public static final PropertyDescriptor MAX_OPEN_ROLLUPS = new PropertyDescriptor.Builder()
+            .name("Max Open Rollups")
+            .description("Most component and event type rollups kept open across all windows. Beyond this the oldest window is written early.")
+            .required(true)
+            .defaultValue("10000")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
+    public static final Relationship REL_SUCCESS = new Relationship.Builder()
+            .name("success")
+            .description("JSON array of the rollups of every window that closed")
+            .build();
+
+    public static final Relationship REL_ORIGINAL = new Relationship.Builder()
+            .name("original")
+            .description("incoming provenance events once they have been added to their windows")
+            .build();
+
+    public static final Relationship REL_FAILURE = new Relationship.Builder()
+            .name("failure")
+            .description("incoming FlowFiles that are not a valid JSON array of provenance events, none of their events are added to a window")
+            .build();
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private List<PropertyDescriptor> descriptors;
+
+    private Set<Relationship> relationships;
+
+    private volatile RollupWindows windows;
+    private volatile long idleNanos;
+    private volatile long lastInputNanos;
+
+    @Override
+    protected void init(final ProcessorInitializationContext context) {
+        final List<PropertyDescriptor> descriptors = new ArrayList<>();
+        descriptors.add(WINDOW_SIZE);
+        descriptors.add(ALLOWED_LATENESS);
+        descriptors.add(MAX_OPEN_ROLLUPS);
+        this.descriptors = Collections.unmodifiableList(descriptors);
+
+        final Set<Relationship> relationships = new HashSet<>();
+        relationships.add(REL_SUCCESS);
+        relationships.add(REL_ORIGINAL);
+        relationships.add(REL_FAILURE);
+        this.relationships = Collections.unmodifiableSet(relationships);
+    }
+
+    @Override
+    public Set<Relationship> getRelationships() {
+        return this.relationships;
+    }
+
+    @Override
+    public final List<PropertyDescriptor> getSupportedPropertyDescriptors() {
+        return descriptors;
+    }
+
+    @OnScheduled
+    public void createWindows(final ProcessContext context) {
+        final long windowMillis = context.getProperty(WINDOW_SIZE).asTimePeriod(TimeUnit.MILLISECONDS);
+        final long latenessMillis = context.getProperty(ALLOWED_LATENESS).asTimePeriod(TimeUnit.MILLISECONDS);
+        windows = new RollupWindows(windowMillis, latenessMillis, context.getProperty(MAX_OPEN_ROLLUPS).asInteger());
+        idleNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis + latenessMillis);
+        lastInputNanos = System.nanoTime();
+    }
+
+    @OnStopped
+    public void releaseWindows() {
+        windows = null;
+    }
+
+    @Override
+    public void onTrigger(ProcessContext context, ProcessSession session) throws ProcessException {
+
+        final RollupWindows windows = this.windows;
+        final List<RollupWindows.Rollup> closed = new ArrayList<>();
+
+        final FlowFile flowFile = session.get();
+        if ( flowFile == null ) {
+            //Event time only moves with new events, without input the open windows are flushed on wall clock time instead
+            if (windows.getOpenCount() > 0 && System.nanoTime() - lastInputNanos >= idleNanos) {
+                windows.begin();
+                try {
+                    windows.closeAll(closed);
+                    transferRollups(session, null, windows, closed);
+                    session.commit();
+                    windows.commit();
+                } catch (RuntimeException ex) {
+                    windows.rollback();
+                    throw ex;
+                }
+            } else {
+                context.yield();
+            }
+            return;
+        }
+        lastInputNanos = System.nanoTime();
+
+        final List<ProvenanceEvent> events = new ArrayList<>();
+        final int[] invalid = new int[1];
+
+        try {
+
+            session.read(flowFile, new InputStreamCallback() {
+                @Override
+                public void process(InputStream in) throws IOException {
+                    try (ProvenanceEventParser parser = new ProvenanceEventParser(in)) {
+                        ProvenanceEvent event;
+                        while ((event = parser.next()) != null) {
+                            if (event.getError() != null) {
+                                invalid[0]++;
+                                continue;
+                            }
+                            events.add(event);
+                        }
+                    }
+                }
+            });
+
+        } catch (Exception ex) {
+            //Nothing has been added to the windows yet so a retried FlowFile is only counted once
+            getLogger().error("Error reading provenance events for rollup {}", new Object[]{ex.getMessage()}, ex);
+            session.transfer(flowFile, REL_FAILURE);
+            return;
+        }
+
+        //The windows only keep the events once the closed rollups are committed, a rolled back FlowFile is replayed from scratch
+        windows.begin();
+        try {
+            final long lateBefore = windows.getLateCount();
+            for (ProvenanceEvent event : events) {
+                windows.add(event, closed);
+            }
+
+            if (invalid[0] > 0) {
+                session.adjustCounter("Invalid Provenance Events", invalid[0], false);
+            }
+            if (windows.getLateCount() > lateBefore) {
+                session.adjustCounter("Late Provenance Events", windows.getLateCount() - lateBefore, false);
+            }
+
+            transferRollups(session, flowFile, windows, closed);
+            session.transfer(flowFile, REL_ORIGINAL);
+            session.commit();
+            windows.commit();
+        } catch (RuntimeException ex) {
+            windows.rollback();
+            throw ex;
+        }
+    }
+
+    private void transferRollups(final ProcessSession session, final FlowFile parent, final RollupWindows windows,
+                                 final List<RollupWindows.Rollup> closed) {
+        if (closed.isEmpty()) {
+            return;
+        }
+
+        FlowFile rollups = session.write(parent == null ? session.create() : session.create(parent), new OutputStreamCallback() {
+            @Override
+            public void process(OutputStream out) throws IOException {
+                writeRollups(out, closed);
+            }
+        });
+
+        Map<String, String> attributes = Maps.newHashMapWithExpectedSize(4);
+        attributes.put(CoreAttributes.MIME_TYPE.key(), "application/json");
+        attributes.put("rollup.count", String.valueOf(closed.size()));
+        attributes.put("rollup.open.count", String.valueOf(windows.getOpenCount()));
+        attributes.put("rollup.late.count", String.valueOf(windows.getLateCount()));
+        session.transfer(session.putAllAttributes(rollups, attributes), REL_SUCCESS);
+    }
+
+    private static void writeRollups(final OutputStream out, final List<RollupWindows.Rollup> rollups) throws IOException {
+        JsonGenerator generator = JSON_FACTORY.createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        generator.writeStartArray();
+        for (RollupWindows.Rollup rollup : rollups) {
+            generator.writeStartObject();
+            generator.writeNumberField("windowStart", rollup.getWindowStart());
+            generator.writeNumberField("windowEnd", rollup.getWindowEnd());
+            generator.writeStringField("componentId", rollup.getComponentId());
+            generator.writeStringField("componentName", rollup.getComponentName());
+            generator.writeStringField("componentType", rollup.getComponentType());
+            generator.writeStringField("eventType", rollup.getEventType());
+            generator.writeNumberField("count", rollup.getCount());
+            writeSketch(generator, "durationMillis", rollup.getDurations());
+            writeSketch(generator, "entitySize", rollup.getSizes());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.close();
+    }
+
+    private static void writeSketch(final JsonGenerator generator, final String name, final DurationSketch sketch) throws IOException {
+        generator.writeObjectFieldStart(name);
+        generator.writeNumberField("count", sketch.getCount());
+        generator.writeNumberField("sum", sketch.getSum());
+        generator.writeNumberField("min", sketch.getMin());
+        generator.writeNumberField("max", sketch.getMax());
+        generator.writeNumberField("p50", sketch.quantile(0.5));
+        generator.writeNumberField("p95", sketch.quantile(0.95));
+        generator.writeNumberField("p99", sketch.quantile(0.99));
+        generator.writeArrayFieldStart("buckets");
+        for (long value : sketch.getBuckets()) {
+            generator.writeNumber(value);
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,298 @@
+package com.github.jdye64.processors.provenance;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Aggregates provenance events into tumbling windows of event time keyed by component and event type. A window closes
+ * once an event newer than its end plus the allowed lateness has been seen, events that arrive for a window that has
+ * already closed are counted as late and dropped. When more rollups are open than the configured limit the oldest
+ * window is closed early. Changes made between {@link #begin()} and {@link #commit()} can be undone with
+ * {@link #rollback()}, windows closed in between are then opened again. Not thread safe.
+ */
+public class RollupWindows {
+
+    /**
+     * Counters for one component and event type within one window.
+     */
+    public static final class Rollup {
+
+        private final long windowStart;
+        private final long windowEnd;
+        private final String componentId;
+        private final String componentName;
+        private final String componentType;
+        private final String eventType;
+        private long count;
+        private DurationSketch durations = new DurationSketch();
+        private DurationSketch sizes = new DurationSketch();
+
+        Rollup(long windowStart, long windowEnd, String componentId, String componentName, String componentType, String eventType) {
+            this.windowStart = windowStart;
+            this.windowEnd = windowEnd;
+            this.componentId = componentId;
+            this.componentName = componentName;
+            this.componentType = componentType;
+            this.eventType = eventType;
+        }
+
+        public long getWindowStart() {
+            return windowStart;
+        }
+
+        public long getWindowEnd() {
+            return windowEnd;
+        }
+
+        public String getComponentId() {
+            return componentId;
+        }
+
+        public String getComponentName() {
+            return componentName;
+        }
+
+        public String getComponentType() {
+            return componentType;
+        }
+
+        public String getEventType() {
+            return eventType;
+        }
+
+        /**
+         * Events in the rollup, including those with an unknown duration or size.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        public DurationSketch getDurations() {
+            return durations;
+        }
+
+        public DurationSketch getSizes() {
+            return sizes;
+        }
+
+        Rollup copy() {
+            Rollup copy = new Rollup(windowStart, windowEnd, componentId, componentName, componentType, eventType);
+            copy.count = count;
+            copy.durations.merge(durations);
+            copy.sizes.merge(sizes);
+            return copy;
+        }
+
+        void restore(Rollup saved) {
+            count = saved.count;
+            durations = saved.durations;
+            sizes = saved.sizes;
+        }
+    }
+
+    /**
+     * State, before the first change, of everything changed since {@link #begin()}. A null window means the window
+     * did not exist.
+     */
+    private static final class Journal {
+
+        final Map<Long, Map<String, Rollup>> windows = new HashMap<>();
+        final Map<Rollup, Rollup> rollups = new IdentityHashMap<>();
+        final int openCount;
+        final long watermark;
+        final long lateCount;
+
+        Journal(int openCount, long watermark, long lateCount) {
+            this.openCount = openCount;
+            this.watermark = watermark;
+            this.lateCount = lateCount;
+        }
+    }
+
+    private final long windowMillis;
+    private final long latenessMillis;
+    private final int maxOpen;
+
+    private final TreeMap<Long, Map<String, Rollup>> windows = new TreeMap<>();
+    private int openCount;
+    private long watermark = Long.MIN_VALUE;
+    private long lateCount;
+
+    //Null while changes are not being recorded
+    private Journal journal;
+
+    public RollupWindows(final long windowMillis, final long latenessMillis, final int maxOpen) {
+        this.windowMillis = windowMillis;
+        this.latenessMillis = latenessMillis;
+        this.maxOpen = maxOpen;
+    }
+
+    /**
+     * Adds the event to its rollup and moves any windows it closed into the closed list.
+     */
+    public void add(final ProvenanceEvent event, final List<Rollup> closed) {
+        final Long timestamp = event.getTimestampMillis();
+        if (timestamp == null || event.getComponentId() == null || event.getEventType() == null) {
+            return;
+        }
+
+        final long windowStart = timestamp - Math.floorMod(timestamp, windowMillis);
+        if (watermark != Long.MIN_VALUE && isClosed(windowStart, watermark) && !windows.containsKey(windowStart)) {
+            lateCount++;
+            return;
+        }
+
+        record(windowStart);
+        Map<String, Rollup> window = windows.get(windowStart);
+        if (window == null) {
+            window = new HashMap<>();
+            windows.put(windowStart, window);
+        }
+
+        final String key = event.getComponentId() + '\u0000' + event.getEventType();
+        Rollup rollup = window.get(key);
+        if (rollup == null) {
+            //The rollup keeps its own copy of the component strings so the parsed event can be collected
+            rollup = new Rollup(windowStart, windowStart + windowMillis, event.getComponentId(), event.getComponentName(),
+                    event.getComponentType(), event.getEventType());
+            window.put(key, rollup);
+            openCount++;
+        }
+
+        record(rollup);
+        rollup.count++;
+        if (event.getDurationMillis() != null) {
+            rollup.durations.add(event.getDurationMillis());
+        }
+        if (event.getEntitySize() != null) {
+            rollup.sizes.add(event.getEntitySize());
+        }
+
+        if (timestamp > watermark) {
+            watermark = timestamp;
+            closeUpTo(watermark, closed);
+        }
+        while (openCount > maxOpen && windows.size() > 1) {
+            closeOldest(closed);
+        }
+    }
+
+    /**
+     * Closes every open window regardless of the watermark.
+     */
+    public void closeAll(final List<Rollup> closed) {
+        while (!windows.isEmpty()) {
+            closeOldest(closed);
+        }
+    }
+
+    private boolean isClosed(final long windowStart, final long now) {
+        return windowStart + windowMillis + latenessMillis <= now;
+    }
+
+    private void closeUpTo(final long now, final List<Rollup> closed) {
+        Iterator<Map.Entry<Long, Map<String, Rollup>>> itr = windows.entrySet().iterator();
+        while (itr.hasNext()) {
+            Map.Entry<Long, Map<String, Rollup>> window = itr.next();
+            if (!isClosed(window.getKey(), now)) {
+                return;
+            }
+            record(window.getKey());
+            closed.addAll(window.getValue().values());
+            openCount -= window.getValue().size();
+            itr.remove();
+        }
+    }
+
+    private void closeOldest(final List<Rollup> closed) {
+        record(windows.firstKey());
+        Map<String, Rollup> window = windows.pollFirstEntry().getValue();
+        closed.addAll(window.values());
+        openCount -= window.size();
+    }
+
+    /**
+     * Starts recording the changes made by {@link #add(ProvenanceEvent, List)} and {@link #closeAll(List)} so they can
+     * be undone.
+     */
+    public void begin() {
+        journal = new Journal(openCount, watermark, lateCount);
+    }
+
+    /**
+     * Keeps the changes made since {@link #begin()}.
+     */
+    public void commit() {
+        journal = null;
+    }
+
+    /**
+     * Undoes the changes made since {@link #begin()}, so the same events can be added again as if they had never
+     * been seen and the windows they closed are open again.
+     */
+    public void rollback() {
+        final Journal undo = journal;
+        if (undo == null) {
+            return;
+        }
+        journal = null;
+
+        for (Map.Entry<Long, Map<String, Rollup>> window : undo.windows.entrySet()) {
+            if (window.getValue() == null) {
+                windows.remove(window.getKey());
+            } else {
+                windows.put(window.getKey(), window.getValue());
+            }
+        }
+        for (Map.Entry<Rollup, Rollup> rollup : undo.rollups.entrySet()) {
+            rollup.getKey().restore(rollup.getValue());
+        }
+        openCount = undo.openCount;
+        watermark = undo.watermark;
+        lateCount = undo.lateCount;
+    }
+
+    private void record(final long windowStart) {
+        if (journal != null && !journal.windows.containsKey(windowStart)) {
+            final Map<String, Rollup> window = windows.get(windowStart);
+            journal.windows.put(windowStart, window == null ? null : new HashMap<>(window));
+        }
+    }
+
+    private void record(final Rollup rollup) {
+        if (journal != null && !journal.rollups.containsKey(rollup)) {
+            journal.rollups.put(rollup, rollup.copy());
+        }
+    }
+
+    public int getOpenCount() {
+        return openCount;
+    }
+
+    public long getLateCount() {
+        return lateCount;
+    }
+}
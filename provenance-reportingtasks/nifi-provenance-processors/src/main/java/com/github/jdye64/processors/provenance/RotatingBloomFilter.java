@@ -0,0 +1,304 @@
+package com.github.jdye64.processors.provenance;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Bounded memory set membership test made of two Bloom filter generations. Keys are checked against both
+ * generations and added to the current one. The current generation becomes the previous one, and the oldest is
+ * discarded, when the rotation interval elapses or it has taken its expected number of insertions, so a key is
+ * remembered for at least one and at most two rotation intervals and the false positive rate never degrades past the
+ * configured one.
+ */
+public class RotatingBloomFilter {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final class Generation {
+
+        private final long[] bits;
+        private final long createdMillis;
+        private long setBits;
+        private long insertions;
+
+        private Generation(long numBits, long createdMillis) {
+            this.bits = new long[(int) ((numBits + 63) >>> 6)];
+            this.createdMillis = createdMillis;
+        }
+
+        private boolean get(long index) {
+            return (bits[(int) (index >>> 6)] & (1L << index)) != 0;
+        }
+
+        private void set(long index) {
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            if ((bits[word] & mask) == 0) {
+                bits[word] |= mask;
+                setBits++;
+            }
+        }
+    }
+
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final long rotationMillis;
+    private final long numBits;
+    private final int numHashes;
+
+    private Generation current;
+    private Generation previous;
+
+    private long hits;
+    private long rotations;
+
+    public RotatingBloomFilter(long expectedInsertions, double falsePositiveRate, long rotationMillis, long nowMillis) {
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rotationMillis = rotationMillis;
+
+        //Standard sizing, m = -n ln(p) / ln(2)^2 and k = m / n ln(2)
+        this.numBits = Math.max(64, (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+        if ((numBits + 63) >>> 6 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A filter for " + expectedInsertions + " keys at a false positive rate of " + falsePositiveRate + " is too large");
+        }
+
+        this.current = new Generation(numBits, nowMillis);
+    }
+
+    /**
+     * Keys that have been checked against the filter but are held back, as their hashes, until the events they belong
+     * to have been safely handed off. {@link #add(String)} also tells whether a key is already pending so duplicates
+     * within one batch are caught before anything has been added to the filter.
+     */
+    public static final class Pending {
+
+        private long[] hashes = new long[64];
+        private int size;
+
+        /**
+         * Returns false if the key is already pending.
+         */
+        public boolean add(String key) {
+            long hash = hash(key);
+            int mask = hashes.length - 1;
+            int slot = (int) hash & mask;
+            while (hashes[slot] != 0) {
+                if (hashes[slot] == hash) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            hashes[slot] = hash;
+            if (++size * 2 > hashes.length) {
+                grow();
+            }
+            return true;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        private void grow() {
+            long[] old = hashes;
+            hashes = new long[old.length * 2];
+            int mask = hashes.length - 1;
+            for (long hash : old) {
+                if (hash != 0) {
+                    int slot = (int) hash & mask;
+                    while (hashes[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    hashes[slot] = hash;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the key and returns true if it had not been seen before, or false if it is a probable duplicate.
+     */
+    public synchronized boolean add(String key, long nowMillis) {
+        if (add(hash(key), nowMillis)) {
+            return true;
+        }
+        hits++;
+        return false;
+    }
+
+    /**
+     * Returns true, and counts a hit, if the key is a probable duplicate. Nothing is added.
+     */
+    public synchronized boolean mightContain(String key) {
+        long hash1 = hash(key);
+        long hash2 = mix(hash1 ^ 0x9e3779b97f4a7c15L);
+
+        boolean inCurrent = true;
+        boolean inPrevious = previous != null;
+        long combined = hash1;
+        for (int i = 0; i < numHashes && (inCurrent || inPrevious); i++) {
+            long index = (combined & Long.MAX_VALUE) % numBits;
+            inCurrent = inCurrent && current.get(index);
+            inPrevious = inPrevious && previous.get(index);
+            combined += hash2;
+        }
+
+        if (inCurrent || inPrevious) {
+            hits++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds every pending key.
+     */
+    public synchronized void addAll(Pending pending, long nowMillis) {
+        for (long hash : pending.hashes) {
+            if (hash != 0) {
+                add(hash, nowMillis);
+            }
+        }
+    }
+
+    private boolean add(long hash1, long nowMillis) {
+        if (nowMillis - current.createdMillis >= rotationMillis || current.insertions >= expectedInsertions) {
+            previous = current;
+            current = new Generation(numBits, nowMillis);
+            rotations++;
+        }
+
+        long hash2 = mix(hash1 ^ 0x9e3779b97f4a7c15L);
+
+        boolean inCurrent = true;
+        boolean inPrevious = previous != null;
+        long combined = hash1;
+        for (int i = 0; i < numHashes; i++) {
+            long index = (combined & Long.MAX_VALUE) % numBits;
+            if (!current.get(index)) {
+                inCurrent = false;
+                current.set(index);
+            }
+            if (inPrevious && !previous.get(index)) {
+                inPrevious = false;
+            }
+            combined += hash2;
+        }
+
+        if (inCurrent || inPrevious) {
+            return false;
+        }
+        current.insertions++;
+        return true;
+    }
+
+    /**
+     * Fraction of the bits set in the current generation. Once it passes about one half the filter is close to its
+     * configured capacity.
+     */
+    public synchronized double getFillRatio() {
+        return (double) current.setBits / numBits;
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getRotationCount() {
+        return rotations;
+    }
+
+    /**
+     * Writes both generations so the filter can be restored after a restart with {@link #readFrom(DataInputStream)}.
+     */
+    public synchronized void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeLong(expectedInsertions);
+        out.writeDouble(falsePositiveRate);
+        out.writeLong(numBits);
+        out.writeInt(numHashes);
+        writeGeneration(out, current);
+        out.writeBoolean(previous != null);
+        if (previous != null) {
+            writeGeneration(out, previous);
+        }
+    }
+
+    /**
+     * Replaces the contents of this filter with a previously written one. Returns false, leaving this filter untouched,
+     * if the saved filter was sized differently.
+     */
+    public synchronized boolean readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != FORMAT_VERSION || in.readLong() != expectedInsertions || in.readDouble() != falsePositiveRate
+                || in.readLong() != numBits || in.readInt() != numHashes) {
+            return false;
+        }
+
+        Generation restoredCurrent = readGeneration(in);
+        Generation restoredPrevious = in.readBoolean() ? readGeneration(in) : null;
+        current = restoredCurrent;
+        previous = restoredPrevious;
+        return true;
+    }
+
+    private static void writeGeneration(DataOutputStream out, Generation generation) throws IOException {
+        out.writeLong(generation.createdMillis);
+        out.writeLong(generation.insertions);
+        for (long word : generation.bits) {
+            out.writeLong(word);
+        }
+    }
+
+    private Generation readGeneration(DataInputStream in) throws IOException {
+        Generation generation = new Generation(numBits, in.readLong());
+        generation.insertions = in.readLong();
+        for (int i = 0; i < generation.bits.length; i++) {
+            generation.bits[i] = in.readLong();
+            generation.setBits += Long.bitCount(generation.bits[i]);
+        }
+        return generation;
+    }
+
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        //Zero marks an empty slot in Pending
+        hash = mix(hash);
+        return hash == 0 ? 1 : hash;
+    }
+
+    //Murmur3 finalizer, spreads single bit changes across the whole word
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
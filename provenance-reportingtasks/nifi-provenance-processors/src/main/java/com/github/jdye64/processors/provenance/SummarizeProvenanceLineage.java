@@ -0,0 +1,242 @@
+package com.github.jdye64.processors.provenance;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.nifi.annotation.behavior.InputRequirement;
+import org.apache.nifi.annotation.behavior.TriggerSerially;
+import org.apache.nifi.annotation.behavior.WritesAttribute;
+import org.apache.nifi.annotation.behavior.WritesAttributes;
+import org.apache.nifi.annotation.documentation.CapabilityDescription;
+import org.apache.nifi.annotation.documentation.SeeAlso;
+import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnScheduled;
+import org.apache.nifi.annotation.lifecycle.OnStopped;
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.flowfile.FlowFile;
+import org.apache.nifi.flowfile.attributes.CoreAttributes;
+import org.apache.nifi.processor.AbstractProcessor;
+import org.apache.nifi.processor.ProcessContext;
+import org.apache.nifi.processor.ProcessSession;
+import org.apache.nifi.processor.ProcessorInitializationContext;
+import org.apache.nifi.processor.Relationship;
+import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.io.InputStreamCallback;
+import org.apache.nifi.processor.io.OutputStreamCallback;
+import org.apache.nifi.processor.util.StandardValidators;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.google.common.collect.Maps;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+@Tags({"provenance", "events", "lineage", "latency"})
+@CapabilityDescription("Follows FlowFile lineages through incoming provenance event data from another NiFi clusters Site2SiteReportingTask output" +
+        " and writes a summary for every lineage that completes, instead of storing every event and reconstructing lineage with queries later." +
+        " Open lineages are kept in memory and a lineage completes once each of its FlowFiles has been dropped or sent. The summary holds the" +
+        " end to end latency from lineageStart, the number of events (hops) and the component the lineage spent the longest at. Lineages stay" +
+        " open across incoming FlowFiles and are lost when the processor is stopped.")
+@SeeAlso({ProvenanceEventsToPhoenix.class})
+@InputRequirement(InputRequirement.Requirement.INPUT_REQUIRED)
+@TriggerSerially
+@WritesAttributes({
+        @WritesAttribute(attribute = "lineage.count", description = "Number of lineage summaries in the FlowFile"),
+        @WritesAttribute(attribute = "lineage.open.count", description = "FlowFiles still being followed after this input"),
+        @WritesAttribute(attribute = "lineage.evicted.count", description = "FlowFiles evicted from the index since the processor was started")
+})
+public class SummarizeProvenanceLineage
+    extends AbstractProcessor {
+
+    public static final PropertyDescriptor MAX_OPEN_FLOWFILES = new PropertyDescriptor.Builder()
+            .name("Max Open FlowFiles")
+            .description("Most FlowFiles followed at once. Beyond this the FlowFile with no events for the longest is evicted and its lineage" +
+                    " is not summarized unless another of its FlowFiles is still open.")
+            .required(true)
+            .defaultValue("100000")
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
+    public static final Relationship REL_SUCCESS = new Relationship.Builder()
+            .name("success")
+            .description("JSON array of the lineages completed by the events in an incoming FlowFile")
+            .build();
+
+    public static final Relationship REL_ORIGINAL = new Relationship.Builder()
+            .name("original")
+            .description("incoming provenance events once they have been added to the lineage index")
+            .build();
+
+    public static final Relationship REL_FAILURE = new Relationship.Builder()
+            .name("failure")
+            .description("incoming FlowFiles that are not a valid JSON array of provenance events, none of their events are added to the lineage index")
+            .build();
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private List<PropertyDescriptor> descriptors;
+
+    private Set<Relationship> relationships;
+
+    private volatile LineageIndex index;
+
+    @Override
+    protected void init(final ProcessorInitializationContext context) {
+        final List<PropertyDescriptor> descriptors = new ArrayList<>();
+        descriptors.add(MAX_OPEN_FLOWFILES);
+        this.descriptors = Collections.unmodifiableList(descriptors);
+
+        final Set<Relationship> relationships = new HashSet<>();
+        relationships.add(REL_SUCCESS);
+        relationships.add(REL_ORIGINAL);
+        relationships.add(REL_FAILURE);
+        this.relationships = Collections.unmodifiableSet(relationships);
+    }
+
+    @Override
+    public Set<Relationship> getRelationships() {
+        return this.relationships;
+    }
+
+    @Override
+    public final List<PropertyDescriptor> getSupportedPropertyDescriptors() {
+        return descriptors;
+    }
+
+    @OnScheduled
+    public void createIndex(final ProcessContext context) {
+        index = new LineageIndex(context.getProperty(MAX_OPEN_FLOWFILES).asInteger());
+    }
+
+    @OnStopped
+    public void releaseIndex() {
+        if (index != null) {
+            index.clear();
+            index = null;
+        }
+    }
+
+    @Override
+    public void onTrigger(ProcessContext context, ProcessSession session) throws ProcessException {
+
+        final FlowFile flowFile = session.get();
+        if ( flowFile == null ) {
+            return;
+        }
+
+        final LineageIndex index = this.index;
+        final List<ProvenanceEvent> events = new ArrayList<>();
+        final int[] invalid = new int[1];
+
+        try {
+
+            session.read(flowFile, new InputStreamCallback() {
+                @Override
+                public void process(InputStream in) throws IOException {
+                    try (ProvenanceEventParser parser = new ProvenanceEventParser(in)) {
+                        ProvenanceEvent event;
+                        while ((event = parser.next()) != null) {
+                            if (event.getError() != null) {
+                                invalid[0]++;
+                                continue;
+                            }
+                            events.add(event);
+                        }
+                    }
+                }
+            });
+
+        } catch (Exception ex) {
+            //Nothing has been added to the index yet so a retried FlowFile is only counted once
+            getLogger().error("Error reading provenance events for lineage {}", new Object[]{ex.getMessage()}, ex);
+            session.transfer(flowFile, REL_FAILURE);
+            return;
+        }
+
+        //The index only keeps the events once their summaries are committed, a rolled back FlowFile is replayed from scratch
+        index.begin();
+        try {
+            final List<LineageIndex.LineageSummary> summaries = new ArrayList<>();
+            for (ProvenanceEvent event : events) {
+                LineageIndex.LineageSummary summary = index.add(event);
+                if (summary != null) {
+                    summaries.add(summary);
+                }
+            }
+
+            if (invalid[0] > 0) {
+                session.adjustCounter("Invalid Provenance Events", invalid[0], false);
+            }
+
+            if (!summaries.isEmpty()) {
+                FlowFile summary = session.write(session.create(flowFile), new OutputStreamCallback() {
+                    @Override
+                    public void process(OutputStream out) throws IOException {
+                        writeSummaries(out, summaries);
+                    }
+                });
+
+                Map<String, String> attributes = Maps.newHashMapWithExpectedSize(4);
+                attributes.put(CoreAttributes.MIME_TYPE.key(), "application/json");
+                attributes.put("lineage.count", String.valueOf(summaries.size()));
+                attributes.put("lineage.open.count", String.valueOf(index.getOpenCount()));
+                attributes.put("lineage.evicted.count", String.valueOf(index.getEvictedCount()));
+                session.transfer(session.putAllAttributes(summary, attributes), REL_SUCCESS);
+            }
+
+            session.transfer(flowFile, REL_ORIGINAL);
+            session.commit();
+            index.commit();
+        } catch (RuntimeException ex) {
+            index.rollback();
+            throw ex;
+        }
+    }
+
+    private static void writeSummaries(final OutputStream out, final List<LineageIndex.LineageSummary> summaries) throws IOException {
+        JsonGenerator generator = JSON_FACTORY.createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        generator.writeStartArray();
+        for (LineageIndex.LineageSummary summary : summaries) {
+            generator.writeStartObject();
+            generator.writeStringField("flowFileUuid", summary.getFlowFileUuid());
+            generator.writeStringField("closingEventType", summary.getClosingEventType());
+            generator.writeNumberField("lineageStart", summary.getLineageStart());
+            generator.writeNumberField("lineageEnd", summary.getLineageEnd());
+            generator.writeNumberField("latencyMillis", summary.getLatencyMillis());
+            generator.writeNumberField("hops", summary.getHops());
+            generator.writeStringField("slowestComponentId", summary.getSlowestComponentId());
+            generator.writeStringField("slowestComponentName", summary.getSlowestComponentName());
+            generator.writeNumberField("slowestComponentMillis", summary.getSlowestComponentMillis());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.close();
+    }
+}
@@ -0,0 +1,80 @@
+package com.github.jdye64.processors.provenance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestDurationSketch {
+
+    @Test
+    public void testQuantilesWithinRelativeAccuracy() throws Exception {
+        DurationSketch sketch = new DurationSketch();
+        for (long i = 1; i <= 100000; i++) {
+            sketch.add(i);
+        }
+
+        assertEquals(100000, sketch.getCount());
+        assertEquals(1, sketch.getMin());
+        assertEquals(100000, sketch.getMax());
+        assertWithin(50000, sketch.quantile(0.5));
+        assertWithin(95000, sketch.quantile(0.95));
+        assertWithin(99000, sketch.quantile(0.99));
+        assertEquals(1, sketch.quantile(0));
+        assertEquals(100000, sketch.quantile(1));
+    }
+
+    @Test
+    public void testMergeMatchesSingleSketch() throws Exception {
+        DurationSketch all = new DurationSketch();
+        DurationSketch first = new DurationSketch();
+        DurationSketch second = new DurationSketch();
+        for (long i = 0; i < 10000; i++) {
+            long value = (i * 7919) % 5000;
+            all.add(value);
+            (i % 2 == 0 ? first : second).add(value);
+        }
+        //Unknown durations are reported as -1 and must not count
+        first.add(-1);
+
+        first.merge(second);
+        assertEquals(all.getCount(), first.getCount());
+        assertEquals(all.getSum(), first.getSum());
+        assertEquals(all.quantile(0.5), first.quantile(0.5));
+        assertEquals(all.quantile(0.99), first.quantile(0.99));
+
+        DurationSketch rebuilt = new DurationSketch();
+        long[] buckets = all.getBuckets();
+        for (int i = 0; i < buckets.length; i += 2) {
+            rebuilt.addBucket((int) buckets[i], buckets[i + 1]);
+        }
+        assertEquals(all.getCount(), rebuilt.getCount());
+        assertWithin(all.quantile(0.95), rebuilt.quantile(0.95));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue("expected " + expected + " but was " + actual,
+                Math.abs(actual - expected) <= expected * DurationSketch.RELATIVE_ACCURACY);
+    }
+}
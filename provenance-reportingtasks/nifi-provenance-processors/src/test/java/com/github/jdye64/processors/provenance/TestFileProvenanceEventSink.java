@@ -0,0 +1,69 @@
+package com.github.jdye64.processors.provenance;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestFileProvenanceEventSink {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWrittenFileParsesBack() throws Exception {
+        List<ProvenanceEvent> events = new ArrayList<>();
+        try (ProvenanceEventParser parser = new ProvenanceEventParser(Files.newInputStream(new File("src/test/resources/sample_prov_events.json").toPath()))) {
+            ProvenanceEvent event;
+            while ((event = parser.next()) != null) {
+                events.add(event);
+            }
+        }
+
+        Path directory = folder.getRoot().toPath().resolve("out");
+        try (FileProvenanceEventSink sink = new FileProvenanceEventSink(directory)) {
+            sink.write(0, events);
+        }
+
+        Path written = directory.resolve("provenance-00000-00000000000000039101-00000000000000039117.json");
+        assertEquals(1, directory.toFile().list().length);
+        try (InputStream in = Files.newInputStream(written);
+             ProvenanceEventParser parser = new ProvenanceEventParser(in)) {
+            for (ProvenanceEvent expected : events) {
+                assertArrayEquals(ProvenanceEventsToPhoenix.toColumnValues(expected), ProvenanceEventsToPhoenix.toColumnValues(parser.next()));
+            }
+            assertNull(parser.next());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.jdye64.processors.provenance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestLineageIndex {
+
+    @Test
+    public void testRolledBackEventsAddedAgain() throws Exception {
+        LineageIndex index = new LineageIndex(100);
+        List<ProvenanceEvent> events = events(event("RECEIVE", "a", 1000, "[]"), event("DROP", "a", 1200, "[]"));
+
+        index.begin();
+        assertNull(index.add(events.get(0)));
+        assertNotNull(index.add(events.get(1)));
+        index.rollback();
+
+        //Not treated as late, the lineage is summarized again from scratch
+        index.begin();
+        assertNull(index.add(events.get(0)));
+        LineageIndex.LineageSummary summary = index.add(events.get(1));
+        index.commit();
+
+        assertEquals(2, summary.getHops());
+        assertEquals(200, summary.getLatencyMillis());
+        assertEquals(0, index.getLateCount());
+        assertEquals(0, index.getOpenCount());
+    }
+
+    @Test
+    public void testRollbackRestoresEvictedFlowFiles() throws Exception {
+        LineageIndex index = new LineageIndex(1);
+        List<ProvenanceEvent> events = events(event("RECEIVE", "a", 1000, "[]"), event("RECEIVE", "b", 1100, "[]"),
+                event("DROP", "a", 1200, "[]"));
+
+        index.begin();
+        index.add(events.get(0));
+        index.commit();
+
+        index.begin();
+        index.add(events.get(1));
+        assertEquals(1, index.getEvictedCount());
+        index.rollback();
+        assertEquals(0, index.getEvictedCount());
+        assertEquals(1, index.getOpenCount());
+
+        //a is still being followed, so its DROP closes the lineage it opened
+        LineageIndex.LineageSummary summary = index.add(events.get(2));
+        assertEquals("a", summary.getFlowFileUuid());
+        assertEquals(2, summary.getHops());
+    }
+
+    @Test
+    public void testRollbackRestoresForkedLineage() throws Exception {
+        LineageIndex index = new LineageIndex(100);
+        List<ProvenanceEvent> events = events(event("RECEIVE", "a", 1000, "[]"), event("FORK", "a", 1100, "[\"b\"]"),
+                event("DROP", "a", 1200, "[]"), event("DROP", "b", 1300, "[]"));
+
+        index.add(events.get(0));
+        index.add(events.get(1));
+        assertEquals(2, index.getOpenCount());
+
+        index.begin();
+        assertNull(index.add(events.get(2)));
+        assertNotNull(index.add(events.get(3)));
+        index.rollback();
+        assertEquals(2, index.getOpenCount());
+
+        //Both FlowFiles are open again, the lineage only closes with the last of them
+        assertNull(index.add(events.get(3)));
+        LineageIndex.LineageSummary summary = index.add(events.get(2));
+        assertEquals("a", summary.getFlowFileUuid());
+        assertEquals(4, summary.getHops());
+        assertEquals(0, index.getOpenCount());
+    }
+
+    private static List<ProvenanceEvent> events(String... json) throws Exception {
+        StringBuilder array = new StringBuilder("[");
+        for (int i = 0; i < json.length; i++) {
+            array.append(i == 0 ? "" : ",").append(json[i]);
+        }
+        array.append("]");
+
+        List<ProvenanceEvent> events = new ArrayList<>();
+        try (ProvenanceEventParser parser = new ProvenanceEventParser(new ByteArrayInputStream(array.toString().getBytes(StandardCharsets.UTF_8)))) {
+            ProvenanceEvent event;
+            while ((event = parser.next()) != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    private static String event(String type, String uuid, long timestamp, String childIds) {
+        return "{\"eventType\":\"" + type + "\",\"entityId\":\"" + uuid + "\",\"lineageStart\":1000,\"timestampMillis\":" + timestamp +
+                ",\"durationMillis\":-1,\"componentId\":\"c-id\",\"componentName\":\"c\",\"childIds\":" + childIds + "}";
+    }
+}
@@ -0,0 +1,162 @@
+package com.github.jdye64.processors.provenance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestOrderedEventConverter {
+
+    private static final int BENCHMARK_EVENTS = Integer.getInteger("provenance.benchmark.events", 1000000);
+
+    /**
+     * Generates a JSON array of provenance events on the fly so large inputs never have to be held in memory.
+     */
+    private static class SyntheticEventStream
+        extends InputStream {
+
+        private final int events;
+        private int next;
+        private byte[] buffer = "[".getBytes(StandardCharsets.UTF_8);
+        private int position;
+
+        SyntheticEventStream(int events) {
+            this.events = events;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return buffer[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            int n = Math.min(len, buffer.length - position);
+            System.arraycopy(buffer, position, b, off, n);
+            position += n;
+            return n;
+        }
+
+        private boolean fill() {
+            while (position == buffer.length) {
+                if (next > events) {
+                    return false;
+                }
+                buffer = (next == events ? "]" : (next == 0 ? "" : ",") + event(next)).getBytes(StandardCharsets.UTF_8);
+                position = 0;
+                next++;
+            }
+            return true;
+        }
+
+        private static String event(int i) {
+            return "{\"eventId\":\"event-" + i + "\",\"eventOrdinal\":" + i + ",\"eventType\":\"DROP\",\"timestampMillis\":1492015149058," +
+                    "\"timestamp\":\"2017-04-12T16:39:09.058Z\",\"durationMillis\":-1,\"lineageStart\":1491424386487," +
+                    "\"details\":\"Auto-Terminated by success Relationship\",\"componentId\":\"162e4916-015b-1000-58fd-8a9755e6c62f\"," +
+                    "\"componentType\":\"LogAttribute\",\"componentName\":\"LogAttribute\",\"entityId\":\"entity-" + i + "\"," +
+                    "\"entityType\":\"org.apache.nifi.flowfile.FlowFile\",\"entitySize\":" + (i % 4096) + ",\"updatedAttributes\":{}," +
+                    "\"previousAttributes\":{\"path\":\"./\",\"uuid\":\"uuid-" + i + "\",\"filename\":\"" + i + "\"}," +
+                    "\"actorHostname\":\"localhost\",\"contentURI\":\"http://localhost:8080/nifi-api/provenance-events/" + i + "/content/output\"," +
+                    "\"previousContentURI\":\"http://localhost:8080/nifi-api/provenance-events/" + i + "/content/input\"," +
+                    "\"parentIds\":[],\"childIds\":[],\"platform\":\"nifi\",\"application\":\"NiFi Flow\"}";
+        }
+    }
+
+    private static final OrderedEventConverter.Conversion<String[]> COLUMNS = new OrderedEventConverter.Conversion<String[]>() {
+        @Override
+        public String[] convert(ProvenanceEvent event) throws IOException {
+            return ProvenanceEventsToPhoenix.toColumnValues(event);
+        }
+    };
+
+    @Test
+    public void testParallelConversionKeepsOrder() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (OrderedEventConverter<String[]> converter = new OrderedEventConverter<>(
+                new ProvenanceEventParser(new SyntheticEventStream(10000)), COLUMNS, executor, 16, 8)) {
+            for (int i = 0; i < 10000; i++) {
+                assertEquals("event-" + i, converter.next()[0]);
+            }
+            assertNull(converter.next());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /*
+     * The throughput tests only run with -Dprovenance.benchmark=true, compare their times in the surefire report.
+     */
+
+    @Test
+    public void testConversionThroughputSingleThread() throws Exception {
+        assertConvertsBenchmarkEvents(1);
+    }
+
+    @Test
+    public void testConversionThroughputFourThreads() throws Exception {
+        assertConvertsBenchmarkEvents(4);
+    }
+
+    @Test
+    public void testConversionThroughputSixteenThreads() throws Exception {
+        assertConvertsBenchmarkEvents(16);
+    }
+
+    private static void assertConvertsBenchmarkEvents(int threads) throws IOException {
+        assumeTrue(Boolean.getBoolean("provenance.benchmark"));
+
+        //Warm up so the measurement is not dominated by class loading and JIT
+        convert(threads, 50000);
+        assertEquals(BENCHMARK_EVENTS, convert(threads, BENCHMARK_EVENTS));
+    }
+
+    private static int convert(int threads, int events) throws IOException {
+        ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        try (OrderedEventConverter<String[]> converter = new OrderedEventConverter<>(
+                new ProvenanceEventParser(new SyntheticEventStream(events)), COLUMNS, executor,
+                ProvenanceEventsToPhoenix.CONVERSION_CHUNK_SIZE, 2 * threads)) {
+            int count = 0;
+            while (converter.next() != null) {
+                count++;
+            }
+            return count;
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+}
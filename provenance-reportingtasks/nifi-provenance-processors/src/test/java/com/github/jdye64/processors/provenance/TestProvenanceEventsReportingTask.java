@@ -0,0 +1,276 @@
+package com.github.jdye64.processors.provenance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.components.PropertyValue;
+import org.apache.nifi.components.state.Scope;
+import org.apache.nifi.controller.ConfigurationContext;
+import org.apache.nifi.controller.status.ProcessGroupStatus;
+import org.apache.nifi.provenance.ProvenanceEventRecord;
+import org.apache.nifi.provenance.ProvenanceEventRepository;
+import org.apache.nifi.provenance.ProvenanceEventType;
+import org.apache.nifi.reporting.EventAccess;
+import org.apache.nifi.reporting.ReportingContext;
+import org.apache.nifi.state.MockStateManager;
+import org.apache.nifi.util.MockPropertyValue;
+import org.apache.nifi.util.MockReportingInitializationContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestProvenanceEventsReportingTask {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Map<String, String> properties = new HashMap<>();
+
+    //Events currently in the mocked provenance repository, in id order
+    private final List<ProvenanceEventRecord> repository = new ArrayList<>();
+
+    private volatile long readDelayMillis;
+
+    private ProvenanceEventsReportingTask task;
+    private MockStateManager stateManager;
+    private ReportingContext context;
+    private Path output;
+
+    @Before
+    public void init() throws Exception {
+        output = folder.getRoot().toPath().resolve("out");
+        properties.put(ProvenanceEventsReportingTask.SINK.getName(), ProvenanceEventsReportingTask.SINK_FILES.getValue());
+        properties.put(ProvenanceEventsReportingTask.OUTPUT_DIRECTORY.getName(), output.toString());
+
+        task = new ProvenanceEventsReportingTask();
+        task.initialize(new MockReportingInitializationContext());
+        stateManager = new MockStateManager(task);
+
+        final Answer<PropertyValue> propertyAnswer = new Answer<PropertyValue>() {
+            @Override
+            public PropertyValue answer(InvocationOnMock invocation) {
+                PropertyDescriptor descriptor = (PropertyDescriptor) invocation.getArguments()[0];
+                String value = properties.get(descriptor.getName());
+                return new MockPropertyValue(value == null ? descriptor.getDefaultValue() : value);
+            }
+        };
+
+        ProvenanceEventRepository provenanceRepository = mock(ProvenanceEventRepository.class);
+        when(provenanceRepository.getMaxEventId()).thenAnswer(new Answer<Long>() {
+            @Override
+            public Long answer(InvocationOnMock invocation) {
+                return repository.isEmpty() ? null : repository.get(repository.size() - 1).getEventId();
+            }
+        });
+
+        EventAccess eventAccess = mock(EventAccess.class);
+        when(eventAccess.getProvenanceRepository()).thenReturn(provenanceRepository);
+        when(eventAccess.getControllerStatus()).thenReturn(new ProcessGroupStatus());
+        when(eventAccess.getProvenanceEvents(anyLong(), anyInt())).thenAnswer(new Answer<List<ProvenanceEventRecord>>() {
+            @Override
+            public List<ProvenanceEventRecord> answer(InvocationOnMock invocation) throws Exception {
+                Thread.sleep(readDelayMillis);
+                long first = (Long) invocation.getArguments()[0];
+                int max = (Integer) invocation.getArguments()[1];
+                List<ProvenanceEventRecord> events = new ArrayList<>();
+                for (ProvenanceEventRecord record : repository) {
+                    if (record.getEventId() >= first && events.size() < max) {
+                        events.add(record);
+                    }
+                }
+                return events;
+            }
+        });
+
+        context = mock(ReportingContext.class);
+        when(context.getProperty(any(PropertyDescriptor.class))).thenAnswer(propertyAnswer);
+        when(context.getEventAccess()).thenReturn(eventAccess);
+        when(context.getStateManager()).thenReturn(stateManager);
+
+        ConfigurationContext configurationContext = mock(ConfigurationContext.class);
+        when(configurationContext.getProperty(any(PropertyDescriptor.class))).thenAnswer(propertyAnswer);
+        task.createSink(configurationContext);
+    }
+
+    @After
+    public void stop() {
+        task.closeSink();
+    }
+
+    private void addEvents(long first, long last) {
+        for (long id = first; id <= last; id++) {
+            ProvenanceEventRecord record = mock(ProvenanceEventRecord.class);
+            when(record.getEventId()).thenReturn(id);
+            when(record.getEventType()).thenReturn(ProvenanceEventType.DROP);
+            when(record.getEventTime()).thenReturn(1492015149058L + id);
+            when(record.getFlowFileUuid()).thenReturn("flowfile-" + id);
+            when(record.getComponentId()).thenReturn("component");
+            when(record.getComponentType()).thenReturn("LogAttribute");
+            repository.add(record);
+        }
+    }
+
+    private List<String> writtenFiles() {
+        String[] names = output.toFile().list();
+        Arrays.sort(names);
+        return Arrays.asList(names);
+    }
+
+    private List<ProvenanceEvent> read(String file) throws IOException {
+        List<ProvenanceEvent> events = new ArrayList<>();
+        try (InputStream in = Files.newInputStream(output.resolve(file));
+             ProvenanceEventParser parser = new ProvenanceEventParser(in)) {
+            ProvenanceEvent event;
+            while ((event = parser.next()) != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    @Test
+    public void testStartAtBeginningBackfills() throws Exception {
+        addEvents(0, 4);
+        task.onTrigger(context);
+
+        assertEquals(Arrays.asList("provenance-00000-00000000000000000000-00000000000000000004.json"), writtenFiles());
+        assertEquals(5, read(writtenFiles().get(0)).size());
+        stateManager.assertStateEquals(ProvenanceEventsReportingTask.LAST_EVENT_ID, "4", Scope.LOCAL);
+        stateManager.assertStateEquals(ProvenanceEventsReportingTask.GENERATION, "0", Scope.LOCAL);
+    }
+
+    @Test
+    public void testStartAtEndSkipsExistingEvents() throws Exception {
+        properties.put(ProvenanceEventsReportingTask.START_POSITION.getName(), ProvenanceEventsReportingTask.START_END.getValue());
+        addEvents(0, 4);
+        task.onTrigger(context);
+
+        assertTrue(writtenFiles().isEmpty());
+        stateManager.assertStateEquals(ProvenanceEventsReportingTask.LAST_EVENT_ID, "4", Scope.LOCAL);
+
+        addEvents(5, 6);
+        task.onTrigger(context);
+        assertEquals(Arrays.asList("provenance-00000-00000000000000000005-00000000000000000006.json"), writtenFiles());
+    }
+
+    @Test
+    public void testClearedRepositoryStartsNewGeneration() throws Exception {
+        addEvents(0, 4);
+        task.onTrigger(context);
+        List<ProvenanceEvent> before = read(writtenFiles().get(0));
+
+        //The repository was cleared, its ids start over below the stored cursor
+        repository.clear();
+        addEvents(0, 2);
+        task.onTrigger(context);
+
+        assertEquals(Arrays.asList(
+                "provenance-00000-00000000000000000000-00000000000000000004.json",
+                "provenance-00001-00000000000000000000-00000000000000000002.json"), writtenFiles());
+        stateManager.assertStateEquals(ProvenanceEventsReportingTask.LAST_EVENT_ID, "2", Scope.LOCAL);
+        stateManager.assertStateEquals(ProvenanceEventsReportingTask.GENERATION, "1", Scope.LOCAL);
+
+        List<ProvenanceEvent> after = read(writtenFiles().get(1));
+        for (int i = 0; i < after.size(); i++) {
+            assertEquals(before.get(i).getEventOrdinal(), after.get(i).getEventOrdinal());
+            assertFalse(before.get(i).getEventId().equals(after.get(i).getEventId()));
+        }
+    }
+
+    @Test
+    public void testMaxEventsPerRun() throws Exception {
+        properties.put(ProvenanceEventsReportingTask.BATCH_SIZE.getName(), "10");
+        properties.put(ProvenanceEventsReportingTask.MAX_EVENTS_PER_RUN.getName(), "15");
+        addEvents(0, 24);
+
+        task.onTrigger(context);
+        assertEquals(Arrays.asList(
+                "provenance-00000-00000000000000000000-00000000000000000009.json",
+                "provenance-00000-00000000000000000010-00000000000000000014.json"), writtenFiles());
+        stateManager.assertStateEquals(ProvenanceEventsReportingTask.LAST_EVENT_ID, "14", Scope.LOCAL);
+
+        task.onTrigger(context);
+        assertEquals("provenance-00000-00000000000000000015-00000000000000000024.json", writtenFiles().get(2));
+        stateManager.assertStateEquals(ProvenanceEventsReportingTask.LAST_EVENT_ID, "24", Scope.LOCAL);
+    }
+
+    @Test
+    public void testMaxRunDuration() throws Exception {
+        properties.put(ProvenanceEventsReportingTask.BATCH_SIZE.getName(), "1");
+        properties.put(ProvenanceEventsReportingTask.MAX_RUN_DURATION.getName(), "200 millis");
+        readDelayMillis = 50;
+        addEvents(0, 99);
+
+        task.onTrigger(context);
+
+        //The batch started before the deadline is finished, no batch is started after it
+        int written = writtenFiles().size();
+        assertTrue(written >= 1 && written <= 5);
+        stateManager.assertStateEquals(ProvenanceEventsReportingTask.LAST_EVENT_ID, String.valueOf(written - 1), Scope.LOCAL);
+    }
+
+    @Test
+    public void testCursorKeptWhenSinkFails() throws Exception {
+        addEvents(0, 2);
+        task.onTrigger(context);
+        stateManager.assertStateEquals(ProvenanceEventsReportingTask.LAST_EVENT_ID, "2", Scope.LOCAL);
+
+        //A regular file in place of the output directory makes every write fail
+        Path moved = folder.getRoot().toPath().resolve("moved");
+        Files.move(output, moved);
+        Files.createFile(output);
+        addEvents(3, 4);
+        task.onTrigger(context);
+        stateManager.assertStateEquals(ProvenanceEventsReportingTask.LAST_EVENT_ID, "2", Scope.LOCAL);
+
+        Files.delete(output);
+        Files.move(moved, output);
+        task.onTrigger(context);
+        assertEquals(Arrays.asList(
+                "provenance-00000-00000000000000000000-00000000000000000002.json",
+                "provenance-00000-00000000000000000003-00000000000000000004.json"), writtenFiles());
+        stateManager.assertStateEquals(ProvenanceEventsReportingTask.LAST_EVENT_ID, "4", Scope.LOCAL);
+    }
+}
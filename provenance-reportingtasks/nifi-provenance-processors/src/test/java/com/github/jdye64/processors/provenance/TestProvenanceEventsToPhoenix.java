@@ -1,12 +1,23 @@
 package com.github.jdye64.processors.provenance;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
 import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
 
+import org.apache.nifi.util.MockFlowFile;
 import org.apache.nifi.util.TestRunner;
 import org.apache.nifi.util.TestRunners;
 import org.junit.Before;
 import org.junit.Test;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
 
 /**
  * Licensed to the Apache Software Foundation (ASF) under one or more
@@ -59,4 +70,195 @@ public class TestProvenanceEventsToPhoenix {
 //
 //        assertTrue(StringUtils.equals("<p>modified value</p> \n<a href=\"httpd://localhost\"></a>", ele.html()));
     }
+
+    @Test
+    public void testBatchedOutput() throws Exception {
+        testRunner.setProperty(ProvenanceEventsToPhoenix.OUTPUT_MODE, ProvenanceEventsToPhoenix.OUTPUT_BATCHED.getValue());
+        testRunner.setProperty(ProvenanceEventsToPhoenix.BATCH_SIZE, "5");
+        testRunner.enqueue(new File("src/test/resources/sample_prov_events.json").toPath());
+        testRunner.run();
+
+        testRunner.assertAllFlowFilesTransferred(ProvenanceEventsToPhoenix.REL_SUCCESS, 4);
+
+        List<MockFlowFile> ffs = testRunner.getFlowFilesForRelationship(ProvenanceEventsToPhoenix.REL_SUCCESS);
+        ffs.get(0).assertAttributeEquals("provenance.event.count", "5");
+        ffs.get(3).assertAttributeEquals("provenance.event.count", "2");
+
+        String data = new String(testRunner.getContentAsByteArray(ffs.get(3)), "UTF-8");
+        assertTrue(data.startsWith("{\"sql\":\"UPSERT INTO NIFI_PROV (EVENTID, EVENTORDINAL,"));
+        assertEquals(2, data.split("\"org.apache.nifi.flowfile.FlowFile\"").length - 1);
+    }
+
+    @Test
+    public void testParallelConversion() throws Exception {
+        testRunner.setProperty(ProvenanceEventsToPhoenix.CONVERSION_THREADS, "4");
+        testRunner.enqueue(new File("src/test/resources/sample_prov_events.json").toPath());
+        testRunner.run();
+
+        testRunner.assertAllFlowFilesTransferred(ProvenanceEventsToPhoenix.REL_SUCCESS, 17);
+
+        //Events come out in the order they were in the input
+        List<MockFlowFile> ffs = testRunner.getFlowFilesForRelationship(ProvenanceEventsToPhoenix.REL_SUCCESS);
+        for (int i = 0; i < ffs.size(); i++) {
+            ffs.get(i).assertAttributeEquals("sql.args.2.value", String.valueOf(39101 + i));
+        }
+    }
+
+    @Test
+    public void testReplayedEventsRoutedToDuplicate() throws Exception {
+        testRunner.setProperty(ProvenanceEventsToPhoenix.DEDUPLICATION_KEY, ProvenanceEventsToPhoenix.DEDUPLICATION_EVENT_ID.getValue());
+        testRunner.enqueue(new File("src/test/resources/sample_prov_events.json").toPath());
+        testRunner.enqueue(new File("src/test/resources/sample_prov_events.json").toPath());
+        testRunner.run(2);
+
+        testRunner.assertTransferCount(ProvenanceEventsToPhoenix.REL_SUCCESS, 17);
+        testRunner.assertTransferCount(ProvenanceEventsToPhoenix.REL_DUPLICATE, 1);
+
+        MockFlowFile duplicates = testRunner.getFlowFilesForRelationship(ProvenanceEventsToPhoenix.REL_DUPLICATE).get(0);
+        duplicates.assertAttributeEquals("provenance.duplicate.count", "17");
+        duplicates.assertAttributeEquals("provenance.dedup.hits", "17");
+        assertTrue(new String(testRunner.getContentAsByteArray(duplicates), "UTF-8").startsWith("b2577602-3469-4575-8525-a43407c3c13f\n"));
+    }
+
+    @Test
+    public void testFilterStatisticsPublishedWhenDuplicatesDropped() throws Exception {
+        testRunner.setProperty(ProvenanceEventsToPhoenix.DEDUPLICATION_KEY, ProvenanceEventsToPhoenix.DEDUPLICATION_EVENT_ID.getValue());
+        testRunner.setProperty(ProvenanceEventsToPhoenix.DUPLICATE_HANDLING, ProvenanceEventsToPhoenix.DUPLICATES_DROP.getValue());
+        //Small enough for 17 events to show in the fill ratio
+        testRunner.setProperty(ProvenanceEventsToPhoenix.DEDUPLICATION_CAPACITY, "100");
+        testRunner.enqueue(new File("src/test/resources/sample_prov_events.json").toPath());
+        testRunner.run(1, false);
+
+        //No duplicates yet, the filter is still observable
+        assertNull(testRunner.getCounterValue("Deduplication Filter Hits"));
+        long fill = testRunner.getCounterValue("Deduplication Filter Fill Per Mille");
+        assertTrue(fill > 0);
+
+        testRunner.enqueue(new File("src/test/resources/sample_prov_events.json").toPath());
+        testRunner.run(1, true, false);
+
+        testRunner.assertTransferCount(ProvenanceEventsToPhoenix.REL_SUCCESS, 17);
+        testRunner.assertTransferCount(ProvenanceEventsToPhoenix.REL_DUPLICATE, 0);
+        assertEquals(Long.valueOf(17), testRunner.getCounterValue("Deduplication Filter Hits"));
+        //Nothing new was added, the counter still holds the same fill ratio
+        assertEquals(Long.valueOf(fill), testRunner.getCounterValue("Deduplication Filter Fill Per Mille"));
+    }
+
+    @Test
+    public void testRetriedEventsNotTreatedAsDuplicates() throws Exception {
+        String events = new String(Files.readAllBytes(new File("src/test/resources/sample_prov_events.json").toPath()), "UTF-8");
+        testRunner.setProperty(ProvenanceEventsToPhoenix.DEDUPLICATION_KEY, ProvenanceEventsToPhoenix.DEDUPLICATION_EVENT_ID.getValue());
+        testRunner.enqueue(events.replace("\"eventOrdinal\": 39105", "\"eventOrdinal\": \"not a number\""));
+        testRunner.run(1, false);
+
+        testRunner.assertTransferCount(ProvenanceEventsToPhoenix.REL_SUCCESS, 16);
+        testRunner.assertTransferCount(ProvenanceEventsToPhoenix.REL_FAILURE, 1);
+
+        //The event that failed was never seen, so the corrected resend gets through
+        testRunner.clearTransferState();
+        testRunner.enqueue(events);
+        testRunner.run(1, true, false);
+
+        testRunner.assertTransferCount(ProvenanceEventsToPhoenix.REL_SUCCESS, 1);
+        testRunner.getFlowFilesForRelationship(ProvenanceEventsToPhoenix.REL_SUCCESS).get(0).assertAttributeEquals("sql.args.2.value", "39105");
+        testRunner.getFlowFilesForRelationship(ProvenanceEventsToPhoenix.REL_DUPLICATE).get(0).assertAttributeEquals("provenance.duplicate.count", "16");
+    }
+
+    @Test
+    public void testDuplicatesWithinFlowFile() throws Exception {
+        String events = new String(Files.readAllBytes(new File("src/test/resources/sample_prov_events.json").toPath()), "UTF-8").trim();
+        testRunner.setProperty(ProvenanceEventsToPhoenix.DEDUPLICATION_KEY, ProvenanceEventsToPhoenix.DEDUPLICATION_EVENT_ID.getValue());
+        testRunner.setProperty(ProvenanceEventsToPhoenix.OUTPUT_MODE, ProvenanceEventsToPhoenix.OUTPUT_BATCHED.getValue());
+        testRunner.enqueue(events.substring(0, events.length() - 1) + "," + events.substring(1));
+        testRunner.run();
+
+        testRunner.assertTransferCount(ProvenanceEventsToPhoenix.REL_SUCCESS, 1);
+        testRunner.getFlowFilesForRelationship(ProvenanceEventsToPhoenix.REL_SUCCESS).get(0).assertAttributeEquals("provenance.event.count", "17");
+        testRunner.getFlowFilesForRelationship(ProvenanceEventsToPhoenix.REL_DUPLICATE).get(0).assertAttributeEquals("provenance.duplicate.count", "17");
+    }
+
+    @Test
+    public void testBadEventIsolatedToFailure() throws Exception {
+        String events = new String(Files.readAllBytes(new File("src/test/resources/sample_prov_events.json").toPath()), "UTF-8");
+        testRunner.enqueue(events.replace("\"eventOrdinal\": 39105", "\"eventOrdinal\": \"not a number\""));
+        testRunner.run();
+
+        testRunner.assertTransferCount(ProvenanceEventsToPhoenix.REL_SUCCESS, 16);
+        testRunner.assertTransferCount(ProvenanceEventsToPhoenix.REL_FAILURE, 1);
+
+        MockFlowFile failure = testRunner.getFlowFilesForRelationship(ProvenanceEventsToPhoenix.REL_FAILURE).get(0);
+        failure.assertAttributeEquals("provenance.failed.count", "1");
+        String data = new String(testRunner.getContentAsByteArray(failure), "UTF-8");
+        assertTrue(data.startsWith("[{\"error\":\"Expected a number for eventOrdinal but found not a number\",\"event\":{"));
+        //The event is passed on as it was received, including the value that could not be read
+        assertTrue(data.contains("\"eventOrdinal\": \"not a number\",\n    \"eventType\": \"DROP\""));
+        assertTrue(data.endsWith("}}]"));
+    }
+
+    @Test
+    public void testManyBadEventsStreamedToFailure() throws Exception {
+        String events = new String(Files.readAllBytes(new File("src/test/resources/sample_prov_events.json").toPath()), "UTF-8").trim();
+        String bad = events.substring(1, events.length() - 1).replaceAll("\"eventOrdinal\": \\d+", "\"eventOrdinal\": \"x\"");
+        StringBuilder input = new StringBuilder("[");
+        for (int i = 0; i < 10; i++) {
+            input.append(i == 0 ? "" : ",").append(bad);
+        }
+        testRunner.enqueue(input.append("]").toString());
+        testRunner.run();
+
+        testRunner.assertAllFlowFilesTransferred(ProvenanceEventsToPhoenix.REL_FAILURE, 1);
+        MockFlowFile failure = testRunner.getFlowFilesForRelationship(ProvenanceEventsToPhoenix.REL_FAILURE).get(0);
+        failure.assertAttributeEquals("provenance.failed.count", "170");
+
+        //Larger than a single flush so the FlowFile was appended to, and still one JSON array
+        byte[] data = testRunner.getContentAsByteArray(failure);
+        assertTrue(data.length > ProvenanceEventsToPhoenix.FAILURE_FLUSH_BYTES);
+        int failures = 0;
+        try (JsonParser parser = new JsonFactory().createParser(data)) {
+            assertEquals(JsonToken.START_ARRAY, parser.nextToken());
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                failures++;
+            }
+            assertEquals(JsonToken.END_ARRAY, parser.getCurrentToken());
+            assertNull(parser.nextToken());
+        }
+        assertEquals(170, failures);
+    }
+
+    @Test
+    public void testMalformedJsonRoutesOnlyOriginal() throws Exception {
+        String events = new String(Files.readAllBytes(new File("src/test/resources/sample_prov_events.json").toPath()), "UTF-8");
+        String truncated = events.substring(0, events.length() - 200);
+        testRunner.setProperty(ProvenanceEventsToPhoenix.OUTPUT_MODE, ProvenanceEventsToPhoenix.OUTPUT_BATCHED.getValue());
+        testRunner.setProperty(ProvenanceEventsToPhoenix.BATCH_SIZE, "5");
+        testRunner.enqueue(truncated.replace("\"eventOrdinal\": 39102", "\"eventOrdinal\": \"x\""));
+        testRunner.run();
+
+        //Neither the batches nor the bad event written before the parse error are sent on
+        testRunner.assertAllFlowFilesTransferred(ProvenanceEventsToPhoenix.REL_FAILURE, 1);
+        testRunner.getFlowFilesForRelationship(ProvenanceEventsToPhoenix.REL_FAILURE).get(0).assertAttributeNotExists("provenance.failed.count");
+    }
+
+    @Test
+    public void testFilteredEventsSkipped() throws Exception {
+        String events = new String(Files.readAllBytes(new File("src/test/resources/sample_prov_events.json").toPath()), "UTF-8");
+        testRunner.setProperty(ProvenanceEventsToPhoenix.FILTER_EVENT_TYPES, "SEND, ROUTE");
+        testRunner.setProperty(ProvenanceEventsToPhoenix.FILTER_COMPONENT_NAME, "Log.*");
+        testRunner.enqueue(events.replaceFirst("\"eventType\": \"DROP\"", "\"eventType\": \"SEND\""));
+        testRunner.run();
+
+        testRunner.assertAllFlowFilesTransferred(ProvenanceEventsToPhoenix.REL_SUCCESS, 1);
+        testRunner.getFlowFilesForRelationship(ProvenanceEventsToPhoenix.REL_SUCCESS).get(0)
+                .assertAttributeEquals("sql.args.1.value", "b2577602-3469-4575-8525-a43407c3c13f");
+        assertEquals(Long.valueOf(16), testRunner.getCounterValue("Filtered Provenance Events"));
+
+        testRunner.clearTransferState();
+        testRunner.setProperty(ProvenanceEventsToPhoenix.FILTER_EVENT_TYPES, "DROP");
+        testRunner.setProperty(ProvenanceEventsToPhoenix.FILTER_MIN_ENTITY_SIZE, "1");
+        testRunner.enqueue(events);
+        testRunner.run();
+
+        testRunner.assertTransferCount(ProvenanceEventsToPhoenix.REL_SUCCESS, 0);
+    }
 }
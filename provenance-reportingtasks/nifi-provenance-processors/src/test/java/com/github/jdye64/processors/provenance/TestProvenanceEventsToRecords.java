@@ -0,0 +1,198 @@
+package com.github.jdye64.processors.provenance;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.nifi.controller.AbstractControllerService;
+import org.apache.nifi.logging.ComponentLog;
+import org.apache.nifi.schema.access.SchemaNotFoundException;
+import org.apache.nifi.serialization.AbstractRecordSetWriter;
+import org.apache.nifi.serialization.RecordSetWriter;
+import org.apache.nifi.serialization.RecordSetWriterFactory;
+import org.apache.nifi.serialization.record.DataType;
+import org.apache.nifi.serialization.record.Record;
+import org.apache.nifi.serialization.record.RecordFieldType;
+import org.apache.nifi.serialization.record.RecordSchema;
+import org.apache.nifi.serialization.record.type.ArrayDataType;
+import org.apache.nifi.serialization.record.type.MapDataType;
+import org.apache.nifi.util.MockFlowFile;
+import org.apache.nifi.util.TestRunner;
+import org.apache.nifi.util.TestRunners;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestProvenanceEventsToRecords {
+
+    /**
+     * Record Writer that keeps the schemas and records it is handed and writes one eventId per line.
+     */
+    private static class CapturingRecordWriter
+        extends AbstractControllerService
+        implements RecordSetWriterFactory {
+
+        private final List<Record> records = new ArrayList<>();
+        private Map<String, String> variables;
+        private RecordSchema readSchema;
+        private RecordSchema writeSchema;
+        private boolean schemaMissing;
+
+        @Override
+        public RecordSchema getSchema(Map<String, String> variables, RecordSchema readSchema) throws SchemaNotFoundException, IOException {
+            if (schemaMissing) {
+                throw new SchemaNotFoundException("No schema named " + variables.get("schema.name"));
+            }
+            this.variables = variables;
+            this.readSchema = readSchema;
+            return readSchema;
+        }
+
+        @Override
+        public RecordSetWriter createWriter(ComponentLog logger, RecordSchema schema, OutputStream out) throws SchemaNotFoundException, IOException {
+            this.writeSchema = schema;
+            return new AbstractRecordSetWriter(out) {
+                @Override
+                protected Map<String, String> writeRecord(Record record) throws IOException {
+                    records.add(record);
+                    getOutputStream().write((record.getValue("eventId") + "\n").getBytes(StandardCharsets.UTF_8));
+                    return Collections.emptyMap();
+                }
+
+                @Override
+                public String getMimeType() {
+                    return "text/plain";
+                }
+            };
+        }
+    }
+
+    private TestRunner testRunner;
+
+    private CapturingRecordWriter writer;
+
+    private String events;
+
+    @Before
+    public void init() throws Exception {
+        testRunner = TestRunners.newTestRunner(ProvenanceEventsToRecords.class);
+        writer = new CapturingRecordWriter();
+        testRunner.addControllerService("writer", writer);
+        testRunner.enableControllerService(writer);
+        testRunner.setProperty(ProvenanceEventsToRecords.RECORD_WRITER, "writer");
+        events = new String(Files.readAllBytes(new File("src/test/resources/sample_prov_events.json").toPath()), "UTF-8");
+    }
+
+    @Test
+    public void testProvenanceSchema() {
+        RecordSchema schema = ProvenanceEventsToRecords.PROVENANCE_SCHEMA;
+        assertEquals(24, schema.getFieldCount());
+        assertEquals(RecordFieldType.LONG, schema.getDataType("eventOrdinal").get().getFieldType());
+        assertEquals(RecordFieldType.STRING, schema.getDataType("uuid").get().getFieldType());
+
+        for (String field : new String[] {"parentIds", "childIds"}) {
+            DataType type = schema.getDataType(field).get();
+            assertEquals(RecordFieldType.ARRAY, type.getFieldType());
+            assertEquals(RecordFieldType.STRING, ((ArrayDataType) type).getElementType().getFieldType());
+        }
+        for (String field : new String[] {"updatedAttributes", "previousAttributes"}) {
+            DataType type = schema.getDataType(field).get();
+            assertEquals(RecordFieldType.MAP, type.getFieldType());
+            assertEquals(RecordFieldType.STRING, ((MapDataType) type).getValueType().getFieldType());
+        }
+    }
+
+    @Test
+    public void testEventsWrittenWithProvenanceSchema() throws Exception {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("schema.name", "provenance");
+        testRunner.enqueue(events, attributes);
+        testRunner.run();
+
+        testRunner.assertAllFlowFilesTransferred(ProvenanceEventsToRecords.REL_SUCCESS, 1);
+        MockFlowFile records = testRunner.getFlowFilesForRelationship(ProvenanceEventsToRecords.REL_SUCCESS).get(0);
+        records.assertAttributeEquals("record.count", "17");
+        records.assertAttributeEquals("mime.type", "text/plain");
+        assertEquals(17, new String(testRunner.getContentAsByteArray(records), "UTF-8").split("\n").length);
+
+        //The writer resolves its schema from the incoming FlowFile's attributes and the built in schema
+        assertEquals("provenance", writer.variables.get("schema.name"));
+        assertSame(ProvenanceEventsToRecords.PROVENANCE_SCHEMA, writer.readSchema);
+        assertSame(ProvenanceEventsToRecords.PROVENANCE_SCHEMA, writer.writeSchema);
+
+        Record first = writer.records.get(0);
+        assertEquals("b2577602-3469-4575-8525-a43407c3c13f", first.getValue("eventId"));
+        assertEquals(39101L, first.getValue("eventOrdinal"));
+        assertEquals("e641df07-5d5d-4831-84c3-8f1c7f78c915", first.getValue("uuid"));
+        assertEquals("244087247665558", ((Map<?, ?>) first.getValue("previousAttributes")).get("filename"));
+        assertEquals(0, ((Map<?, ?>) first.getValue("updatedAttributes")).size());
+        assertArrayEquals(new Object[0], (Object[]) first.getValue("parentIds"));
+    }
+
+    @Test
+    public void testArrayAndMapFields() throws Exception {
+        testRunner.enqueue(events
+                .replaceFirst("\"updatedAttributes\": \\{\\}", "\"updatedAttributes\": {\"path\": \"out/\", \"mime.type\": \"text/csv\"}")
+                .replaceFirst("\"childIds\": \\[\\]", "\"childIds\": [\"child-1\", \"child-2\"]"));
+        testRunner.run();
+
+        testRunner.assertAllFlowFilesTransferred(ProvenanceEventsToRecords.REL_SUCCESS, 1);
+        Record first = writer.records.get(0);
+        Map<?, ?> updated = (Map<?, ?>) first.getValue("updatedAttributes");
+        assertEquals(2, updated.size());
+        assertEquals("out/", updated.get("path"));
+        assertEquals("text/csv", updated.get("mime.type"));
+        assertArrayEquals(new Object[] {"child-1", "child-2"}, (Object[]) first.getValue("childIds"));
+    }
+
+    @Test
+    public void testInvalidEventRoutesToFailure() throws Exception {
+        String invalid = events.replace("\"eventOrdinal\": 39102", "\"eventOrdinal\": \"x\"");
+        testRunner.enqueue(invalid);
+        testRunner.run();
+
+        testRunner.assertAllFlowFilesTransferred(ProvenanceEventsToRecords.REL_FAILURE, 1);
+        testRunner.getFlowFilesForRelationship(ProvenanceEventsToRecords.REL_FAILURE).get(0).assertContentEquals(invalid);
+    }
+
+    @Test
+    public void testMissingSchemaRoutesToFailure() throws Exception {
+        writer.schemaMissing = true;
+        testRunner.enqueue(events);
+        testRunner.run();
+
+        testRunner.assertAllFlowFilesTransferred(ProvenanceEventsToRecords.REL_FAILURE, 1);
+        assertEquals(0, writer.records.size());
+    }
+}
@@ -0,0 +1,145 @@
+package com.github.jdye64.processors.provenance;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.apache.nifi.controller.AbstractControllerService;
+import org.apache.nifi.dbcp.DBCPService;
+import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.util.TestRunner;
+import org.apache.nifi.util.TestRunners;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+/**
+ * Runs against an in-memory H2 database standing in for Phoenix, so the statements are written with INSERT.
+ */
+public class TestPutPhoenixProvenanceEvents {
+
+    private static final String DB_URL = "jdbc:h2:mem:provenance;DB_CLOSE_DELAY=-1";
+
+    private TestRunner testRunner;
+
+    private static class H2ConnectionPool
+        extends AbstractControllerService
+        implements DBCPService {
+
+        @Override
+        public Connection getConnection() throws ProcessException {
+            try {
+                return DriverManager.getConnection(DB_URL);
+            } catch (SQLException e) {
+                throw new ProcessException(e);
+            }
+        }
+    }
+
+    @Before
+    public void init() throws Exception {
+        StringBuilder ddl = new StringBuilder("CREATE TABLE NIFI_PROV (");
+        for (String column : ProvenanceEventsToPhoenix.PROV_COLUMNS) {
+            ddl.append(column).append(" VARCHAR, ");
+        }
+        ddl.append("PRIMARY KEY (EVENTID))");
+        try (Connection connection = DriverManager.getConnection(DB_URL); Statement statement = connection.createStatement()) {
+            statement.execute(ddl.toString());
+        }
+
+        H2ConnectionPool pool = new H2ConnectionPool();
+        testRunner = TestRunners.newTestRunner(PutPhoenixProvenanceEvents.class);
+        testRunner.addControllerService("h2", pool);
+        testRunner.enableControllerService(pool);
+        testRunner.setProperty(PutPhoenixProvenanceEvents.DBCP_SERVICE, "h2");
+        testRunner.setProperty(PutPhoenixProvenanceEvents.PHOENIX_TABLE_NAME, "NIFI_PROV");
+        testRunner.setProperty(PutPhoenixProvenanceEvents.STATEMENT_TYPE, PutPhoenixProvenanceEvents.STATEMENT_INSERT);
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        try (Connection connection = DriverManager.getConnection(DB_URL); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE NIFI_PROV");
+        }
+    }
+
+    @Test
+    public void testWriteProvEvents() throws Exception {
+        testRunner.setProperty(PutPhoenixProvenanceEvents.BATCH_SIZE, "5");
+        testRunner.setProperty(PutPhoenixProvenanceEvents.COMMIT_INTERVAL, "2");
+        testRunner.enqueue(new File("src/test/resources/sample_prov_events.json").toPath());
+        testRunner.run();
+
+        testRunner.assertAllFlowFilesTransferred(PutPhoenixProvenanceEvents.REL_SUCCESS, 1);
+        testRunner.getFlowFilesForRelationship(PutPhoenixProvenanceEvents.REL_SUCCESS).get(0).assertAttributeEquals("provenance.event.count", "17");
+        assertEquals(17, countRows());
+
+        try (Connection connection = DriverManager.getConnection(DB_URL); Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT EVENTTYPE, UUID FROM NIFI_PROV WHERE EVENTID = 'b2577602-3469-4575-8525-a43407c3c13f'")) {
+            rs.next();
+            assertEquals("DROP", rs.getString(1));
+            assertEquals("e641df07-5d5d-4831-84c3-8f1c7f78c915", rs.getString(2));
+        }
+    }
+
+    @Test
+    public void testMalformedInputRollsBack() throws Exception {
+        testRunner.setProperty(PutPhoenixProvenanceEvents.BATCH_SIZE, "1");
+        testRunner.setProperty(PutPhoenixProvenanceEvents.COMMIT_INTERVAL, "100");
+        //Valid events followed by a truncated one, nothing executed before the failure may be committed
+        String events = new String(Files.readAllBytes(Paths.get("src/test/resources/sample_prov_events.json")), StandardCharsets.UTF_8);
+        testRunner.enqueue(events.substring(0, events.lastIndexOf(']')) + ", {\"eventId\": ");
+        testRunner.run();
+
+        testRunner.assertAllFlowFilesTransferred(PutPhoenixProvenanceEvents.REL_FAILURE, 1);
+        assertEquals(0, countRows());
+    }
+
+    @Test
+    public void testInsertIgnoresCommitInterval() throws Exception {
+        testRunner.setProperty(PutPhoenixProvenanceEvents.BATCH_SIZE, "1");
+        testRunner.setProperty(PutPhoenixProvenanceEvents.COMMIT_INTERVAL, "1");
+        //With INSERT a partially committed FlowFile could never be retried, so the whole FlowFile is one transaction
+        String events = new String(Files.readAllBytes(Paths.get("src/test/resources/sample_prov_events.json")), StandardCharsets.UTF_8);
+        testRunner.enqueue(events.substring(0, events.lastIndexOf(']')) + ", {\"eventId\": ");
+        testRunner.run();
+
+        testRunner.assertAllFlowFilesTransferred(PutPhoenixProvenanceEvents.REL_FAILURE, 1);
+        assertEquals(0, countRows());
+    }
+
+    private int countRows() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(DB_URL); Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM NIFI_PROV")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
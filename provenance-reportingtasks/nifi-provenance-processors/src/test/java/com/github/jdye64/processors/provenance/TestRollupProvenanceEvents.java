@@ -0,0 +1,117 @@
+package com.github.jdye64.processors.provenance;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.apache.nifi.util.MockFlowFile;
+import org.apache.nifi.util.TestRunner;
+import org.apache.nifi.util.TestRunners;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestRollupProvenanceEvents {
+
+    private TestRunner testRunner;
+
+    @Before
+    public void init() {
+        testRunner = TestRunners.newTestRunner(RollupProvenanceEvents.class);
+    }
+
+    @Test
+    public void testWindowClosedByLaterEvent() throws Exception {
+        testRunner.enqueue("[" +
+                event("A", "DROP", 1000, 10, 100) + "," +
+                event("A", "DROP", 2000, 20, 300) + "," +
+                event("B", "SEND", 30000, -1, 50) + "," +
+                event("A", "DROP", 70000, 5, 10) + "]");
+        testRunner.enqueue("[" +
+                event("A", "DROP", 100000, 5, 10) + "," +
+                event("A", "DROP", 5000, 5, 10) + "]");
+        testRunner.run(2);
+
+        testRunner.assertTransferCount(RollupProvenanceEvents.REL_ORIGINAL, 2);
+        testRunner.assertTransferCount(RollupProvenanceEvents.REL_SUCCESS, 1);
+
+        MockFlowFile rollups = testRunner.getFlowFilesForRelationship(RollupProvenanceEvents.REL_SUCCESS).get(0);
+        rollups.assertAttributeEquals("rollup.count", "2");
+        rollups.assertAttributeEquals("rollup.open.count", "1");
+        rollups.assertAttributeEquals("rollup.late.count", "1");
+
+        String data = new String(testRunner.getContentAsByteArray(rollups), "UTF-8");
+        assertTrue(data.contains("\"windowStart\":0,\"windowEnd\":60000,\"componentId\":\"A-id\",\"componentName\":\"A\",\"componentType\":\"A\"," +
+                "\"eventType\":\"DROP\",\"count\":2,\"durationMillis\":{\"count\":2,\"sum\":30,\"min\":10,\"max\":20,"));
+        assertTrue(data.contains("\"entitySize\":{\"count\":2,\"sum\":400,\"min\":100,\"max\":300,"));
+        //Unknown durations are counted as events but kept out of the duration sketch
+        assertTrue(data.contains("\"eventType\":\"SEND\",\"count\":1,\"durationMillis\":{\"count\":0,\"sum\":0,\"min\":-1,\"max\":-1,"));
+    }
+
+    @Test
+    public void testIdleWindowsFlushed() throws Exception {
+        testRunner.setProperty(RollupProvenanceEvents.WINDOW_SIZE, "10 ms");
+        testRunner.setProperty(RollupProvenanceEvents.ALLOWED_LATENESS, "0 ms");
+        testRunner.enqueue(new File("src/test/resources/sample_prov_events.json").toPath());
+
+        testRunner.run(1, false, true);
+        testRunner.assertTransferCount(RollupProvenanceEvents.REL_SUCCESS, 1);
+
+        Thread.sleep(50);
+        testRunner.run(1, true, false);
+
+        //The first window closed when the later events arrived, the last one only on the idle flush
+        testRunner.assertTransferCount(RollupProvenanceEvents.REL_SUCCESS, 2);
+        MockFlowFile flushed = testRunner.getFlowFilesForRelationship(RollupProvenanceEvents.REL_SUCCESS).get(1);
+        flushed.assertAttributeEquals("rollup.open.count", "0");
+    }
+
+    @Test
+    public void testFailedFlowFileNotCountedTwiceOnRetry() throws Exception {
+        String events = event("A", "DROP", 1000, 10, 100) + "," + event("A", "DROP", 100000, 5, 10);
+        testRunner.enqueue("[" + events + ",{\"eventType\":");
+        testRunner.run(1, false);
+
+        //Nothing of the truncated FlowFile went into a window, so no window closed either
+        testRunner.assertTransferCount(RollupProvenanceEvents.REL_FAILURE, 1);
+        testRunner.assertTransferCount(RollupProvenanceEvents.REL_SUCCESS, 0);
+        testRunner.clearTransferState();
+
+        testRunner.enqueue("[" + events + "]");
+        testRunner.run(1, true, false);
+
+        testRunner.assertTransferCount(RollupProvenanceEvents.REL_ORIGINAL, 1);
+        testRunner.assertTransferCount(RollupProvenanceEvents.REL_SUCCESS, 1);
+        MockFlowFile rollups = testRunner.getFlowFilesForRelationship(RollupProvenanceEvents.REL_SUCCESS).get(0);
+        rollups.assertAttributeEquals("rollup.count", "1");
+        rollups.assertAttributeEquals("rollup.open.count", "1");
+        String data = new String(testRunner.getContentAsByteArray(rollups), "UTF-8");
+        assertTrue(data.contains("\"windowStart\":0,\"windowEnd\":60000,\"componentId\":\"A-id\",\"componentName\":\"A\",\"componentType\":\"A\"," +
+                "\"eventType\":\"DROP\",\"count\":1,"));
+    }
+
+    private static String event(String component, String type, long timestamp, long duration, long size) {
+        return "{\"eventType\":\"" + type + "\",\"timestampMillis\":" + timestamp + ",\"durationMillis\":" + duration + ",\"entitySize\":" + size +
+                ",\"componentId\":\"" + component + "-id\",\"componentName\":\"" + component + "\",\"componentType\":\"" + component + "\"}";
+    }
+}
@@ -0,0 +1,106 @@
+package com.github.jdye64.processors.provenance;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestRollupWindows {
+
+    @Test
+    public void testRollbackReopensClosedWindows() throws Exception {
+        RollupWindows windows = new RollupWindows(60000, 0, 100);
+        List<ProvenanceEvent> events = events(event("A", 1000, 10), event("B", 2000, 20), event("A", 70000, 30));
+        List<RollupWindows.Rollup> closed = new ArrayList<>();
+
+        windows.begin();
+        windows.add(events.get(0), closed);
+        windows.commit();
+
+        windows.begin();
+        windows.add(events.get(1), closed);
+        windows.add(events.get(2), closed);
+        assertEquals(2, closed.size());
+        assertEquals(1, windows.getOpenCount());
+        windows.rollback();
+
+        //Back to the single committed event, replaying the rolled back ones closes the first window once
+        assertEquals(1, windows.getOpenCount());
+        closed.clear();
+        windows.add(events.get(1), closed);
+        windows.add(events.get(2), closed);
+
+        assertEquals(2, closed.size());
+        for (RollupWindows.Rollup rollup : closed) {
+            assertEquals(1, rollup.getCount());
+            assertEquals(1, rollup.getDurations().getCount());
+        }
+        assertEquals(0, windows.getLateCount());
+    }
+
+    @Test
+    public void testRollbackRestoresRollupCounts() throws Exception {
+        RollupWindows windows = new RollupWindows(60000, 0, 100);
+        List<ProvenanceEvent> events = events(event("A", 1000, 10), event("A", 2000, 500), event("A", 70000, 30));
+        List<RollupWindows.Rollup> closed = new ArrayList<>();
+
+        windows.add(events.get(0), closed);
+        windows.begin();
+        windows.add(events.get(1), closed);
+        windows.rollback();
+
+        windows.add(events.get(2), closed);
+        assertEquals(1, closed.size());
+        RollupWindows.Rollup rollup = closed.get(0);
+        assertEquals(1, rollup.getCount());
+        assertEquals(10, rollup.getDurations().getMax());
+        assertEquals(10, rollup.getDurations().getSum());
+    }
+
+    private static List<ProvenanceEvent> events(String... json) throws Exception {
+        StringBuilder array = new StringBuilder("[");
+        for (int i = 0; i < json.length; i++) {
+            array.append(i == 0 ? "" : ",").append(json[i]);
+        }
+        array.append("]");
+
+        List<ProvenanceEvent> events = new ArrayList<>();
+        try (ProvenanceEventParser parser = new ProvenanceEventParser(new ByteArrayInputStream(array.toString().getBytes(StandardCharsets.UTF_8)))) {
+            ProvenanceEvent event;
+            while ((event = parser.next()) != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    private static String event(String component, long timestamp, long duration) {
+        return "{\"eventType\":\"DROP\",\"timestampMillis\":" + timestamp + ",\"durationMillis\":" + duration + ",\"entitySize\":10" +
+                ",\"componentId\":\"" + component + "-id\",\"componentName\":\"" + component + "\",\"componentType\":\"" + component + "\"}";
+    }
+}
@@ -0,0 +1,121 @@
+package com.github.jdye64.processors.provenance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.apache.nifi.util.MockFlowFile;
+import org.apache.nifi.util.TestRunner;
+import org.apache.nifi.util.TestRunners;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestSummarizeProvenanceLineage {
+
+    private TestRunner testRunner;
+
+    @Before
+    public void init() {
+        testRunner = TestRunners.newTestRunner(SummarizeProvenanceLineage.class);
+    }
+
+    @Test
+    public void testEveryDropClosesItsLineage() throws Exception {
+        testRunner.enqueue(new File("src/test/resources/sample_prov_events.json").toPath());
+        testRunner.run();
+
+        testRunner.assertTransferCount(SummarizeProvenanceLineage.REL_ORIGINAL, 1);
+        testRunner.assertTransferCount(SummarizeProvenanceLineage.REL_SUCCESS, 1);
+
+        MockFlowFile summaries = testRunner.getFlowFilesForRelationship(SummarizeProvenanceLineage.REL_SUCCESS).get(0);
+        summaries.assertAttributeEquals("lineage.count", "17");
+        summaries.assertAttributeEquals("lineage.open.count", "0");
+        String data = new String(testRunner.getContentAsByteArray(summaries), "UTF-8");
+        assertTrue(data.contains("\"closingEventType\":\"DROP\",\"lineageStart\":1491424386487,\"lineageEnd\":1492015149058,\"latencyMillis\":590762571,\"hops\":1"));
+    }
+
+    @Test
+    public void testForkedLineageClosesWithLastFlowFile() throws Exception {
+        testRunner.enqueue("[" +
+                event("RECEIVE", "a", 1000, "GetFile", "[]") + "," +
+                event("ATTRIBUTES_MODIFIED", "a", 1500, "UpdateAttribute", "[]") + "," +
+                event("FORK", "a", 1600, "SplitText", "[\"b\"]") + "," +
+                event("SEND", "a", 1700, "PutSFTP", "[]") + "," +
+                event("DROP", "a", 1701, "PutSFTP", "[]") + "]");
+        testRunner.enqueue("[" + event("DROP", "b", 2000, "LogAttribute", "[]") + "]");
+        testRunner.run(2);
+
+        testRunner.assertTransferCount(SummarizeProvenanceLineage.REL_ORIGINAL, 2);
+        testRunner.assertTransferCount(SummarizeProvenanceLineage.REL_SUCCESS, 1);
+
+        MockFlowFile summaries = testRunner.getFlowFilesForRelationship(SummarizeProvenanceLineage.REL_SUCCESS).get(0);
+        assertEquals("[{\"flowFileUuid\":\"b\",\"closingEventType\":\"DROP\",\"lineageStart\":1000,\"lineageEnd\":2000,\"latencyMillis\":1000," +
+                "\"hops\":5,\"slowestComponentId\":\"UpdateAttribute-id\",\"slowestComponentName\":\"UpdateAttribute\",\"slowestComponentMillis\":500}]",
+                new String(testRunner.getContentAsByteArray(summaries), "UTF-8"));
+    }
+
+    @Test
+    public void testIdleFlowFilesEvicted() throws Exception {
+        testRunner.setProperty(SummarizeProvenanceLineage.MAX_OPEN_FLOWFILES, "1");
+        testRunner.enqueue("[" +
+                event("RECEIVE", "a", 1000, "GetFile", "[]") + "," +
+                event("RECEIVE", "b", 1100, "GetFile", "[]") + "," +
+                event("DROP", "a", 1200, "LogAttribute", "[]") + "," +
+                event("DROP", "b", 1300, "LogAttribute", "[]") + "]");
+        testRunner.run();
+
+        MockFlowFile summaries = testRunner.getFlowFilesForRelationship(SummarizeProvenanceLineage.REL_SUCCESS).get(0);
+        summaries.assertAttributeEquals("lineage.evicted.count", "2");
+        //b was evicted before it was dropped so only the DROP counts as a hop, latency still comes from lineageStart
+        String data = new String(testRunner.getContentAsByteArray(summaries), "UTF-8");
+        assertTrue(data.contains("\"flowFileUuid\":\"b\",\"closingEventType\":\"DROP\",\"lineageStart\":1000,\"lineageEnd\":1300,\"latencyMillis\":300,\"hops\":1"));
+    }
+
+    @Test
+    public void testFailedFlowFileNotCountedTwiceOnRetry() throws Exception {
+        String events = event("RECEIVE", "a", 1000, "GetFile", "[]") + "," + event("DROP", "a", 1200, "LogAttribute", "[]");
+        testRunner.enqueue("[" + events + ",{\"eventType\":");
+        testRunner.run(1, false);
+
+        testRunner.assertTransferCount(SummarizeProvenanceLineage.REL_FAILURE, 1);
+        testRunner.assertTransferCount(SummarizeProvenanceLineage.REL_SUCCESS, 0);
+        testRunner.clearTransferState();
+
+        testRunner.enqueue("[" + events + "]");
+        testRunner.run(1, true, false);
+
+        testRunner.assertTransferCount(SummarizeProvenanceLineage.REL_ORIGINAL, 1);
+        testRunner.assertTransferCount(SummarizeProvenanceLineage.REL_SUCCESS, 1);
+        MockFlowFile summaries = testRunner.getFlowFilesForRelationship(SummarizeProvenanceLineage.REL_SUCCESS).get(0);
+        summaries.assertAttributeEquals("lineage.count", "1");
+        String data = new String(testRunner.getContentAsByteArray(summaries), "UTF-8");
+        assertTrue(data.contains("\"flowFileUuid\":\"a\",\"closingEventType\":\"DROP\",\"lineageStart\":1000,\"lineageEnd\":1200,\"latencyMillis\":200,\"hops\":2"));
+    }
+
+    private static String event(String type, String uuid, long timestamp, String component, String childIds) {
+        return "{\"eventType\":\"" + type + "\",\"entityId\":\"" + uuid + "\",\"lineageStart\":1000,\"timestampMillis\":" + timestamp +
+                ",\"durationMillis\":-1,\"componentId\":\"" + component + "-id\",\"componentName\":\"" + component + "\",\"childIds\":" + childIds + "}";
+    }
+}
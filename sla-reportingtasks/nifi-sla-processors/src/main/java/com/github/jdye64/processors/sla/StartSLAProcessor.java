@@ -19,6 +19,7 @@ import org.apache.nifi.processor.ProcessSession;
 import org.apache.nifi.processor.ProcessorInitializationContext;
 import org.apache.nifi.processor.Relationship;
 import org.apache.nifi.processor.exception.ProcessException;
+import org.apache.nifi.processor.util.StandardValidators;
 
 /**
  * Licensed to the Apache Software Foundation (ASF) under one or more
@@ -49,6 +50,15 @@ import org.apache.nifi.processor.exception.ProcessException;
 public class StartSLAProcessor
         extends AbstractProcessor {
 
+    static final PropertyDescriptor BATCH_SIZE = new PropertyDescriptor.Builder()
+            .name("Batch Size")
+            .description("Maximum number of flowfiles pulled from the incoming queue on each invocation. Every flowfile in a batch is" +
+                    " stamped with the same start timestamp.")
+            .defaultValue("100")
+            .required(true)
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
     public static final Relationship REL_SUCCESS = new Relationship.Builder()
             .name("success")
             .description("successfully started SLA window")
@@ -61,6 +71,7 @@ public class StartSLAProcessor
     @Override
     protected void init(final ProcessorInitializationContext context) {
         final List<PropertyDescriptor> descriptors = new ArrayList<>();
+        descriptors.add(BATCH_SIZE);
         this.descriptors = Collections.unmodifiableList(descriptors);
 
         final Set<Relationship> relationships = new HashSet<>();
@@ -80,12 +91,17 @@ public class StartSLAProcessor
 
     @Override
     public void onTrigger(final ProcessContext context, final ProcessSession session) throws ProcessException {
-        final FlowFile flowFile = session.get();
-        if ( flowFile == null ) {
+        final List<FlowFile> flowFiles = session.get(context.getProperty(BATCH_SIZE).asInteger());
+        if ( flowFiles.isEmpty() ) {
             return;
         }
 
+        //One clock read for the whole batch, the flowfiles all arrived in the same invocation
         String timestamp = String.valueOf(System.currentTimeMillis());
-        session.transfer(session.putAttribute(flowFile, "sla.start.timestamp", timestamp), REL_SUCCESS);
+        final List<FlowFile> started = new ArrayList<>(flowFiles.size());
+        for (FlowFile flowFile : flowFiles) {
+            started.add(session.putAttribute(flowFile, "sla.start.timestamp", timestamp));
+        }
+        session.transfer(started, REL_SUCCESS);
     }
 }
@@ -11,7 +11,9 @@ import org.apache.nifi.annotation.behavior.ReadsAttributes;
 import org.apache.nifi.annotation.documentation.CapabilityDescription;
 import org.apache.nifi.annotation.documentation.SeeAlso;
 import org.apache.nifi.annotation.documentation.Tags;
+import org.apache.nifi.annotation.lifecycle.OnScheduled;
 import org.apache.nifi.components.PropertyDescriptor;
+import org.apache.nifi.components.PropertyValue;
 import org.apache.nifi.flowfile.FlowFile;
 import org.apache.nifi.processor.AbstractProcessor;
 import org.apache.nifi.processor.ProcessContext;
@@ -59,6 +61,15 @@ public class StopSLAProcessor
             .addValidator(StandardValidators.POSITIVE_LONG_VALIDATOR)
             .build();
 
+    static final PropertyDescriptor BATCH_SIZE = new PropertyDescriptor.Builder()
+            .name("Batch Size")
+            .description("Maximum number of flowfiles pulled from the incoming queue on each invocation. The current timestamp is read once" +
+                    " per batch and compared against the 'sla.start.timestamp' of every flowfile in it.")
+            .defaultValue("100")
+            .required(true)
+            .addValidator(StandardValidators.POSITIVE_INTEGER_VALIDATOR)
+            .build();
+
     public static final Relationship REL_ORIGINAL = new Relationship.Builder()
             .name("original")
             .description("passthrough relationship so that the flowfile can continue its normal path without interuption")
@@ -78,10 +89,14 @@ public class StopSLAProcessor
 
     private Set<Relationship> relationships;
 
+    //SLA value when it does not reference any flowfile attributes, null if it has to be evaluated per flowfile
+    private volatile Long cachedSla;
+
     @Override
     protected void init(final ProcessorInitializationContext context) {
         final List<PropertyDescriptor> descriptors = new ArrayList<>();
         descriptors.add(SLA);
+        descriptors.add(BATCH_SIZE);
         this.descriptors = Collections.unmodifiableList(descriptors);
 
         final Set<Relationship> relationships = new HashSet<>();
@@ -101,34 +116,44 @@ public class StopSLAProcessor
         return descriptors;
     }
 
+    @OnScheduled
+    public void onScheduled(final ProcessContext context) {
+        final PropertyValue sla = context.getProperty(SLA);
+        cachedSla = sla.isExpressionLanguagePresent() ? null : sla.asLong();
+    }
+
     @Override
     public void onTrigger(final ProcessContext context, final ProcessSession session) throws ProcessException {
-        final FlowFile flowFile = session.get();
-        if ( flowFile == null ) {
+        final List<FlowFile> flowFiles = session.get(context.getProperty(BATCH_SIZE).asInteger());
+        if ( flowFiles.isEmpty() ) {
             return;
         }
 
-        try {
-
-            String timestamp = String.valueOf(System.currentTimeMillis());
-            String startTimestamp = flowFile.getAttribute("sla.start.timestamp");
-            long diff = (Long.valueOf(timestamp) - Long.valueOf(startTimestamp));
-
-            if (getLogger().isDebugEnabled()) {
-                getLogger().debug("Pulling sla.start.timestamp value of {} comparing with current timestamp of {}. Result: {}", new Object[]{startTimestamp, timestamp, diff});
+        final long now = System.currentTimeMillis();
+        final String timestamp = String.valueOf(now);
+        final Long sla = cachedSla;
+
+        for (FlowFile flowFile : flowFiles) {
+            try {
+                String startTimestamp = flowFile.getAttribute("sla.start.timestamp");
+                long diff = now - Long.parseLong(startTimestamp);
+
+                if (getLogger().isDebugEnabled()) {
+                    getLogger().debug("Pulling sla.start.timestamp value of {} comparing with current timestamp of {}. Result: {}", new Object[]{startTimestamp, timestamp, diff});
+                }
+
+                long threshold = sla != null ? sla : context.getProperty(SLA).evaluateAttributeExpressions(flowFile).asLong();
+                if (diff > threshold) {
+                    FlowFile missedSLAFF = session.clone(flowFile);
+                    missedSLAFF = session.putAttribute(missedSLAFF, "sla.stop.timestamp", timestamp);
+                    session.transfer(missedSLAFF, REL_SLA_MISSED);
+                }
+
+                session.transfer(flowFile, REL_ORIGINAL);
+            } catch (Exception e) {
+                getLogger().error("Unable to check the SLA of {}", new Object[]{flowFile}, e);
+                session.transfer(flowFile, REL_FAILURE);
             }
-
-            if (diff > context.getProperty(SLA).evaluateAttributeExpressions().asLong()) {
-                FlowFile missedSLAFF = session.clone(flowFile);
-                missedSLAFF = session.putAttribute(missedSLAFF, "sla.stop.timestamp", timestamp);
-                session.transfer(missedSLAFF, REL_SLA_MISSED);
-            }
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            session.transfer(flowFile, REL_FAILURE);
-        } finally {
-            session.transfer(flowFile, REL_ORIGINAL);
         }
     }
 
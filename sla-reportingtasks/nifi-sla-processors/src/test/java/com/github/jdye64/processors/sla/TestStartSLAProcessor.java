@@ -0,0 +1,61 @@
+package com.github.jdye64.processors.sla;
+
+import java.util.List;
+
+import org.apache.nifi.util.MockFlowFile;
+import org.apache.nifi.util.TestRunner;
+import org.apache.nifi.util.TestRunners;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestStartSLAProcessor {
+
+    private TestRunner testRunner;
+
+    @Before
+    public void init() {
+        testRunner = TestRunners.newTestRunner(StartSLAProcessor.class);
+    }
+
+    @Test
+    public void testBatchSharesStartTimestamp() throws Exception {
+        testRunner.setProperty(StartSLAProcessor.BATCH_SIZE, "3");
+        for (int i = 0; i < 5; i++) {
+            testRunner.enqueue("flowfile " + i);
+        }
+
+        testRunner.run();
+        testRunner.assertAllFlowFilesTransferred(StartSLAProcessor.REL_SUCCESS, 3);
+
+        List<MockFlowFile> started = testRunner.getFlowFilesForRelationship(StartSLAProcessor.REL_SUCCESS);
+        String timestamp = started.get(0).getAttribute("sla.start.timestamp");
+        for (MockFlowFile flowFile : started) {
+            flowFile.assertAttributeEquals("sla.start.timestamp", timestamp);
+        }
+
+        testRunner.run();
+        testRunner.assertAllFlowFilesTransferred(StartSLAProcessor.REL_SUCCESS, 5);
+        testRunner.assertQueueEmpty();
+    }
+}
@@ -0,0 +1,149 @@
+package com.github.jdye64.processors.sla;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.nifi.util.MockFlowFile;
+import org.apache.nifi.util.TestRunner;
+import org.apache.nifi.util.TestRunners;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * <p>
+ * Created on 10/17/26.
+ */
+
+
+public class TestStopSLAProcessor {
+
+    private static final int BENCHMARK_FLOWFILES = 20000;
+
+    private TestRunner testRunner;
+
+    @Before
+    public void init() {
+        testRunner = TestRunners.newTestRunner(StopSLAProcessor.class);
+    }
+
+    @Test
+    public void testMissedSLAIsCloned() throws Exception {
+        testRunner.setProperty(StopSLAProcessor.SLA, "1000");
+        testRunner.enqueue("late", start(System.currentTimeMillis() - 60000));
+        testRunner.enqueue("on time", start(System.currentTimeMillis()));
+        testRunner.run();
+
+        testRunner.assertTransferCount(StopSLAProcessor.REL_ORIGINAL, 2);
+        testRunner.assertTransferCount(StopSLAProcessor.REL_SLA_MISSED, 1);
+        testRunner.assertTransferCount(StopSLAProcessor.REL_FAILURE, 0);
+
+        MockFlowFile missed = testRunner.getFlowFilesForRelationship(StopSLAProcessor.REL_SLA_MISSED).get(0);
+        missed.assertContentEquals("late");
+        missed.assertAttributeExists("sla.stop.timestamp");
+    }
+
+    @Test
+    public void testMissingStartTimestampOnlyGoesToFailure() throws Exception {
+        testRunner.enqueue("no start");
+        testRunner.enqueue("on time", start(System.currentTimeMillis()));
+        testRunner.run();
+
+        testRunner.assertTransferCount(StopSLAProcessor.REL_FAILURE, 1);
+        testRunner.assertTransferCount(StopSLAProcessor.REL_ORIGINAL, 1);
+        testRunner.assertTransferCount(StopSLAProcessor.REL_SLA_MISSED, 0);
+        testRunner.getFlowFilesForRelationship(StopSLAProcessor.REL_FAILURE).get(0).assertContentEquals("no start");
+    }
+
+    @Test
+    public void testSLAEvaluatedPerFlowFile() throws Exception {
+        testRunner.setProperty(StopSLAProcessor.SLA, "${sla.millis}");
+
+        Map<String, String> strict = start(System.currentTimeMillis() - 5000);
+        strict.put("sla.millis", "10");
+        Map<String, String> lenient = start(System.currentTimeMillis() - 5000);
+        lenient.put("sla.millis", "600000");
+        testRunner.enqueue("strict", strict);
+        testRunner.enqueue("lenient", lenient);
+        testRunner.run();
+
+        testRunner.assertTransferCount(StopSLAProcessor.REL_ORIGINAL, 2);
+        testRunner.assertTransferCount(StopSLAProcessor.REL_SLA_MISSED, 1);
+        testRunner.getFlowFilesForRelationship(StopSLAProcessor.REL_SLA_MISSED).get(0).assertContentEquals("strict");
+    }
+
+    @Test
+    public void testBatchPullsEveryQueuedFlowFile() throws Exception {
+        //25 FlowFiles in batches of 10 take three triggers, the last one pulling a partial batch
+        process(10, 25);
+    }
+
+    /*
+     * The throughput tests only run with -Dsla.benchmark=true, compare their times in the surefire report.
+     */
+
+    @Test
+    public void testBatchThroughputSizeOne() throws Exception {
+        assertProcessesBenchmarkFlowFiles(1);
+    }
+
+    @Test
+    public void testBatchThroughputSizeTen() throws Exception {
+        assertProcessesBenchmarkFlowFiles(10);
+    }
+
+    @Test
+    public void testBatchThroughputSizeHundred() throws Exception {
+        assertProcessesBenchmarkFlowFiles(100);
+    }
+
+    @Test
+    public void testBatchThroughputSizeThousand() throws Exception {
+        assertProcessesBenchmarkFlowFiles(1000);
+    }
+
+    private static void assertProcessesBenchmarkFlowFiles(int batchSize) {
+        assumeTrue(Boolean.getBoolean("sla.benchmark"));
+
+        //Warm up so the measurement is not dominated by class loading and JIT
+        process(batchSize, BENCHMARK_FLOWFILES / 10);
+        process(batchSize, BENCHMARK_FLOWFILES);
+    }
+
+    private static void process(int batchSize, int flowFiles) {
+        TestRunner runner = TestRunners.newTestRunner(StopSLAProcessor.class);
+        runner.setProperty(StopSLAProcessor.BATCH_SIZE, String.valueOf(batchSize));
+
+        Map<String, String> attributes = start(System.currentTimeMillis());
+        for (int i = 0; i < flowFiles; i++) {
+            runner.enqueue(new byte[0], attributes);
+        }
+        runner.run((flowFiles + batchSize - 1) / batchSize);
+
+        runner.assertQueueEmpty();
+        assertEquals(flowFiles, runner.getFlowFilesForRelationship(StopSLAProcessor.REL_ORIGINAL).size());
+    }
+
+    private static Map<String, String> start(long timestamp) {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("sla.start.timestamp", String.valueOf(timestamp));
+        return attributes;
+    }
+}